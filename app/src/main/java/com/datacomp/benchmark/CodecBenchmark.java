@@ -0,0 +1,219 @@
+package com.datacomp.benchmark;
+
+import com.datacomp.core.CanonicalHuffman;
+import com.datacomp.core.HuffmanCode;
+import com.datacomp.core.HuffmanEncoder;
+import com.datacomp.core.TableBasedHuffmanDecoder;
+import com.datacomp.service.cpu.CpuFrequencyService;
+import com.datacomp.service.cpu.VectorFrequencyService;
+import com.datacomp.service.cpu.VectorKernels;
+import com.datacomp.util.VectorSupport;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Single-thread micro-benchmark for the Huffman codec hot loops.
+ *
+ * Uses the same data shapes as CpuCompressionServiceTest (repeated text,
+ * random bytes, byte ramp) plus a skewed distribution with long codes,
+ * and reports MB/s of uncompressed data per stage. When the Vector API is
+ * available, a second table compares the scalar and vector histogram and
+ * code-length sum kernels, including an all-zero dataset.
+ *
+ * Usage: CodecBenchmark [size-MB] [iterations]
+ */
+public class CodecBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 3;
+    
+    /** Vector API code runs interpreted until C2 compiles it, so warm up longer. */
+    private static final int KERNEL_WARMUP_ITERATIONS = 10;
+    
+    /** Keeps kernel results live so they are not optimized away. */
+    private static volatile long blackhole;
+
+    public static void main(String[] args) {
+        int sizeMB = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int size = sizeMB * 1024 * 1024;
+
+        System.out.printf("Codec benchmark: %d MB per dataset, %d iterations, single thread%n%n",
+                         sizeMB, iterations);
+        System.out.printf("%-10s %12s %14s %14s %14s%n",
+                         "dataset", "encode MB/s", "decode MB/s", "4-stream MB/s", "bitwise MB/s");
+
+        Map<String, byte[]> datasets = datasets(size);
+        for (Map.Entry<String, byte[]> dataset : datasets.entrySet()) {
+            runDataset(dataset.getKey(), dataset.getValue(), iterations);
+        }
+        
+        if (VectorSupport.isAvailable()) {
+            datasets.put("zeros", new byte[size]);
+            System.out.printf("%n%-10s %12s %14s %14s %14s%n",
+                             "dataset", "hist MB/s", "vector MB/s", "bits MB/s", "vector MB/s");
+            for (Map.Entry<String, byte[]> dataset : datasets.entrySet()) {
+                runKernels(dataset.getKey(), dataset.getValue(), iterations);
+            }
+        } else {
+            System.out.printf("%nVector API not available; start with --add-modules jdk.incubator.vector%n");
+        }
+    }
+
+    private static void runDataset(String name, byte[] data, int iterations) {
+        long[] frequencies = new long[256];
+        for (byte b : data) {
+            frequencies[b & 0xFF]++;
+        }
+        HuffmanCode[] codes = CanonicalHuffman.buildCanonicalCodes(frequencies);
+        HuffmanEncoder encoder = new HuffmanEncoder(codes);
+        long encodedBits = encoder.computeEncodedBits(frequencies);
+        byte[] encoded = encoder.encode(data, 0, data.length, encodedBits);
+
+        TableBasedHuffmanDecoder decoder = new TableBasedHuffmanDecoder(codes);
+        byte[] decoded = new byte[data.length];
+        CanonicalHuffman.HuffmanDecoder bitwise = CanonicalHuffman.buildDecoder(codes);
+
+        double encodeMBps = measure(data.length, iterations,
+            () -> encoder.encode(data, 0, data.length, encodedBits));
+        double decodeMBps = measure(data.length, iterations,
+            () -> decoder.decode(encoded, encoded.length, decoded, 0, data.length));
+        if (!Arrays.equals(data, decoded)) {
+            throw new IllegalStateException("Round trip mismatch for dataset " + name);
+        }
+
+        byte[] encodedStreams = encoder.encodeStreams(data, 0, data.length, 4, encodedBits);
+        Arrays.fill(decoded, (byte) 0);
+        double streamsMBps = measure(data.length, iterations,
+            () -> decoder.decodeStreams(encodedStreams, encodedStreams.length, decoded, 0, data.length, 4));
+        if (!Arrays.equals(data, decoded)) {
+            throw new IllegalStateException("4-stream round trip mismatch for dataset " + name);
+        }
+
+        double bitwiseMBps = measure(data.length, iterations,
+            () -> decodeBitwise(encoded, data.length, bitwise));
+
+        System.out.printf("%-10s %12.1f %14.1f %14.1f %14.1f%n",
+                         name, encodeMBps, decodeMBps, streamsMBps, bitwiseMBps);
+    }
+
+    /**
+     * Histogram and code-length sum kernels: scalar vs Vector API, one thread.
+     */
+    private static void runKernels(String name, byte[] data, int iterations) {
+        // Single-thread pools so the comparison is per core
+        ForkJoinPool pool = new ForkJoinPool(1);
+        CpuFrequencyService scalarHistogram = new CpuFrequencyService(pool);
+        VectorFrequencyService vectorHistogram = new VectorFrequencyService(pool);
+        if (!Arrays.equals(scalarHistogram.computeHistogram(data, 0, data.length),
+                           vectorHistogram.computeHistogram(data, 0, data.length))) {
+            throw new IllegalStateException("Histogram mismatch for dataset " + name);
+        }
+        
+        double scalarMBps = measure(data.length, iterations, KERNEL_WARMUP_ITERATIONS,
+            () -> scalarHistogram.computeHistogram(data, 0, data.length));
+        double vectorMBps = measure(data.length, iterations, KERNEL_WARMUP_ITERATIONS,
+            () -> vectorHistogram.computeHistogram(data, 0, data.length));
+        
+        HuffmanCode[] codes = CanonicalHuffman.buildCanonicalCodes(
+            scalarHistogram.computeHistogram(data, 0, data.length));
+        int[] codeLengths = new int[256];
+        for (int i = 0; i < 256; i++) {
+            codeLengths[i] = codes[i] != null ? codes[i].getCodeLength() : 0;
+        }
+        double scalarBitsMBps = measure(data.length, iterations, KERNEL_WARMUP_ITERATIONS, () -> {
+            long bits = 0;
+            for (byte b : data) {
+                bits += codeLengths[b & 0xFF];
+            }
+            blackhole = bits;
+        });
+        double vectorBitsMBps = measure(data.length, iterations, KERNEL_WARMUP_ITERATIONS,
+            () -> blackhole = VectorKernels.sumCodeLengths(data, 0, data.length, codeLengths));
+        pool.shutdown();
+        
+        System.out.printf("%-10s %12.1f %14.1f %14.1f %14.1f%n",
+                         name, scalarMBps, vectorMBps, scalarBitsMBps, vectorBitsMBps);
+    }
+    
+    /**
+     * Bit-serial reference: one bit per step, canonical lookup per length.
+     */
+    private static byte[] decodeBitwise(byte[] src, int outputSize,
+                                        CanonicalHuffman.HuffmanDecoder decoder) {
+        byte[] output = new byte[outputSize];
+        int maxLen = decoder.getMaxCodeLength();
+        long bitPos = 0;
+
+        for (int i = 0; i < outputSize; i++) {
+            int code = 0;
+            int symbol = -1;
+            for (int len = 1; len <= maxLen && symbol == -1; len++) {
+                int bit = (src[(int) (bitPos >>> 3)] >>> (7 - (int) (bitPos & 7))) & 1;
+                bitPos++;
+                code = (code << 1) | bit;
+                symbol = decoder.decodeSymbol(code, len);
+            }
+            output[i] = (byte) symbol;
+        }
+        return output;
+    }
+
+    /**
+     * Run an operation and return the best throughput in MB/s.
+     */
+    static double measure(int bytes, int iterations, Runnable operation) {
+        return measure(bytes, iterations, WARMUP_ITERATIONS, operation);
+    }
+    
+    static double measure(int bytes, int iterations, int warmups, Runnable operation) {
+        for (int i = 0; i < warmups; i++) {
+            operation.run();
+        }
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            operation.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return (bytes / (1024.0 * 1024.0)) / (best / 1_000_000_000.0);
+    }
+
+    /**
+     * Datasets mirroring CpuCompressionServiceTest, scaled to the requested size.
+     */
+    static Map<String, byte[]> datasets(int size) {
+        Map<String, byte[]> datasets = new LinkedHashMap<>();
+
+        byte[] text = new byte[size];
+        byte[] pattern = "Hello World! ".getBytes();
+        for (int i = 0; i < size; i++) {
+            text[i] = pattern[i % pattern.length];
+        }
+        datasets.put("text", text);
+
+        byte[] random = new byte[size];
+        new Random(42).nextBytes(random);
+        datasets.put("random", random);
+
+        byte[] ramp = new byte[size];
+        for (int i = 0; i < size; i++) {
+            ramp[i] = (byte) (i % 256);
+        }
+        datasets.put("ramp", ramp);
+
+        // Geometric distribution: deep tree with codes past the table width
+        byte[] skewed = new byte[size];
+        Random skewRandom = new Random(7);
+        for (int i = 0; i < size; i++) {
+            skewed[i] = (byte) Math.min(255, (int) (-Math.log(1 - skewRandom.nextDouble()) * 2));
+        }
+        datasets.put("skewed", skewed);
+
+        return datasets;
+    }
+}
@@ -0,0 +1,113 @@
+package com.datacomp.benchmark;
+
+import com.datacomp.config.CompressionOptions;
+import com.datacomp.service.cpu.CpuCompressionService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Thread-scaling benchmark for the CPU compression service.
+ *
+ * Compresses and decompresses one generated file (skewed bytes, so both
+ * stages do real work) with 1, 2, 4, ... worker threads up to the number
+ * of available processors, and reports end-to-end MB/s and the speedup
+ * over one thread. The memory budget is raised so the window never limits
+ * the larger thread counts.
+ *
+ * Usage: ScalingBenchmark [size-MB] [chunk-MB] [max-threads]
+ */
+public class ScalingBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int sizeMB = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        int chunkMB = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2])
+                                         : Runtime.getRuntime().availableProcessors();
+
+        Path dir = Files.createTempDirectory("scaling-benchmark");
+        Path input = dir.resolve("input.bin");
+        Path compressed = dir.resolve("input.dcz");
+        Path output = dir.resolve("output.bin");
+        try {
+            writeInput(input, sizeMB);
+
+            System.out.printf("Scaling benchmark: %d MB file, %d MB chunks, up to %d threads%n%n",
+                             sizeMB, chunkMB, maxThreads);
+            System.out.printf("%-8s %14s %9s %14s %9s%n",
+                             "threads", "compress MB/s", "speedup", "decomp MB/s", "speedup");
+
+            double baseCompress = 0;
+            double baseDecompress = 0;
+            for (int threads : threadCounts(maxThreads)) {
+                CompressionOptions options = CompressionOptions.builder()
+                    .chunkSizeMB(chunkMB)
+                    .cpuThreads(threads)
+                    .build();
+
+                double compressMBps;
+                double decompressMBps;
+                try (CpuCompressionService service = new CpuCompressionService(options)) {
+                    // Warm-up pass so the first row is not penalized by JIT compilation
+                    service.compress(input, compressed, null);
+                    service.decompress(compressed, output, null);
+                    compressMBps = throughput(sizeMB, () -> service.compress(input, compressed, null));
+                    decompressMBps = throughput(sizeMB, () -> service.decompress(compressed, output, null));
+                }
+                if (threads == 1) {
+                    baseCompress = compressMBps;
+                    baseDecompress = decompressMBps;
+                }
+
+                System.out.printf("%-8d %14.1f %8.2fx %14.1f %8.2fx%n",
+                                 threads, compressMBps, compressMBps / baseCompress,
+                                 decompressMBps, decompressMBps / baseDecompress);
+            }
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(compressed);
+            Files.deleteIfExists(output);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    /**
+     * 1, 2, 4, ... up to and including maxThreads.
+     */
+    static List<Integer> threadCounts(int maxThreads) {
+        List<Integer> counts = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(Math.max(1, maxThreads));
+        return counts;
+    }
+
+    private interface Operation {
+        void run() throws IOException;
+    }
+
+    private static double throughput(int sizeMB, Operation operation) throws IOException {
+        long start = System.nanoTime();
+        operation.run();
+        return sizeMB / ((System.nanoTime() - start) / 1_000_000_000.0);
+    }
+
+    private static void writeInput(Path path, int sizeMB) throws IOException {
+        Random random = new Random(7);
+        byte[] block = new byte[1024 * 1024];
+        try (OutputStream out = Files.newOutputStream(path)) {
+            for (int mb = 0; mb < sizeMB; mb++) {
+                for (int i = 0; i < block.length; i++) {
+                    block[i] = (byte) Math.min(255, (int) (-Math.log(1 - random.nextDouble()) * 2));
+                }
+                out.write(block);
+            }
+        }
+    }
+}
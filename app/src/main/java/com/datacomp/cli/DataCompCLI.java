@@ -6,9 +6,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
 /**
  * Command-line interface for DataComp compression/decompression.
@@ -16,6 +21,7 @@ import java.nio.file.Paths;
  * Usage:
  *   Compress:   java -jar datacomp.jar compress <input-file> <output-file>
  *   Decompress: java -jar datacomp.jar decompress <input-file> <output-file>
+ *   Extract:    java -jar datacomp.jar extract <input-file> <output-file|-> <offset> <length>
  */
 public class DataCompCLI {
     
@@ -31,6 +37,11 @@ public class DataCompCLI {
         String inputPath = args[1];
         String outputPath = args[2];
         
+        if (operation.equals("extract") || operation.equals("x")) {
+            extract(args);
+            return;
+        }
+        
         // Optional: chunk size in MB (default: 32 optimized for MX330 2GB GPU)
         int chunkSizeMB = 32;
         if (args.length > 3) {
@@ -145,6 +156,59 @@ public class DataCompCLI {
         System.out.println("  Throughput: " + String.format("%.2f", throughputMBps) + " MB/s");
     }
     
+    /**
+     * extract <input-file> <output-file|-> <offset> <length>: write one byte
+     * range of the original file, decoding only the chunks it overlaps.
+     */
+    private static void extract(String[] args) {
+        if (args.length < 5) {
+            printUsage();
+            System.exit(1);
+        }
+        long offset = 0;
+        long length = 0;
+        try {
+            offset = Long.parseLong(args[3]);
+            length = Long.parseLong(args[4]);
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid range: " + args[3] + " " + args[4]);
+            System.exit(1);
+        }
+        
+        Path input = Paths.get(args[1]);
+        if (!Files.exists(input)) {
+            System.err.println("Error: Input file does not exist: " + input);
+            System.exit(1);
+        }
+        
+        boolean toStdout = args[2].equals("-");
+        PrintStream stdout = System.out;
+        if (toStdout) {
+            // Keep log and status output out of the extracted bytes
+            System.setOut(System.err);
+        }
+        try (CpuCompressionService service = new CpuCompressionService(32);
+             WritableByteChannel output = toStdout
+                 ? Channels.newChannel(stdout)
+                 : FileChannel.open(Paths.get(args[2]), StandardOpenOption.CREATE,
+                                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long startTime = System.currentTimeMillis();
+            long written = service.decompressRange(input, offset, length, output);
+            
+            if (!toStdout) {
+                double timeSec = (System.currentTimeMillis() - startTime) / 1000.0;
+                System.out.println("Extraction complete!");
+                System.out.println("  Range:   " + offset + " + " + length);
+                System.out.println("  Written: " + formatSize(written));
+                System.out.println("  Time: " + String.format("%.2f", timeSec) + " seconds");
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Extraction failed", e);
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+    
     private static String formatSize(long bytes) {
         if (bytes < 1024) return bytes + " B";
         if (bytes < 1024 * 1024) return String.format("%.2f KB", bytes / 1024.0);
@@ -158,13 +222,15 @@ public class DataCompCLI {
         System.out.println("Usage:");
         System.out.println("  Compress:   java -jar datacomp.jar compress <input-file> <output-file> [chunk-size-MB]");
         System.out.println("  Decompress: java -jar datacomp.jar decompress <input-file> <output-file>");
+        System.out.println("  Extract:    java -jar datacomp.jar extract <input-file> <output-file|-> <offset> <length>");
         System.out.println();
         System.out.println("Examples:");
         System.out.println("  java -jar datacomp.jar compress data.tar data.tar.dc");
         System.out.println("  java -jar datacomp.jar compress large-file.bin /tmp/compressed.dc 8");
         System.out.println("  java -jar datacomp.jar decompress data.tar.dc data-restored.tar");
+        System.out.println("  java -jar datacomp.jar extract app.log.dc - 1048576 4096");
         System.out.println();
         System.out.println("Short forms:");
-        System.out.println("  'c' for compress, 'd' for decompress");
+        System.out.println("  'c' for compress, 'd' for decompress, 'x' for extract");
     }
 }
@@ -38,6 +38,10 @@ public class AppConfig {
         return threads;
     }
     
+    public int getIoThreads() {
+        return config.getInt("compression.io-threads");
+    }
+    
     public boolean useMemoryMappedIo() {
         return config.getBoolean("compression.use-memory-mapped-io");
     }
@@ -46,6 +50,34 @@ public class AppConfig {
         return config.getInt("compression.chunking-threshold-mb");
     }
     
+    public int getMaxCodeLength() {
+        return config.getInt("compression.max-code-length");
+    }
+    
+    public int getInterleavedStreams() {
+        return config.getInt("compression.interleaved-streams");
+    }
+    
+    public int getCheckpointIntervalKB() {
+        return config.getInt("compression.checkpoint-interval-kb");
+    }
+    
+    public boolean isStoreIncompressible() {
+        return config.getBoolean("compression.store-incompressible");
+    }
+    
+    public String getChecksumAlgorithm() {
+        return config.getString("compression.checksum");
+    }
+    
+    public int getMemoryBudgetMB() {
+        return config.getInt("compression.memory-budget-mb");
+    }
+    
+    public boolean isOrderedWrites() {
+        return config.getBoolean("compression.ordered-writes");
+    }
+    
     // GPU settings
     public boolean isGpuAutoDetect() {
         return config.getBoolean("gpu.auto-detect");
@@ -0,0 +1,288 @@
+package com.datacomp.config;
+
+import com.datacomp.core.CanonicalHuffman;
+import com.datacomp.core.ChecksumAlgorithm;
+import com.datacomp.core.HuffmanEncoder;
+
+/**
+ * Tuning options for the chunk compressor.
+ */
+public class CompressionOptions {
+
+    /** Default number of interleaved bitstreams per chunk; multi-stream is opt-in. */
+    public static final int DEFAULT_STREAM_COUNT = 1;
+
+    /** Chunks smaller than this are always written as a single stream. */
+    public static final int MIN_MULTI_STREAM_BYTES = 64 * 1024;
+
+    /** Smallest heap budget for chunks in flight when none is configured. */
+    public static final int DEFAULT_MEMORY_BUDGET_MB = 512;
+
+    /** Chunks in flight per CPU worker, so no worker waits for its next chunk. */
+    public static final int IN_FLIGHT_PER_WORKER = 2;
+
+    /** Default buffer size for stream I/O. */
+    public static final int DEFAULT_IO_BUFFER_SIZE_KB = 256;
+
+    /** Default number of threads writing compressed chunks. */
+    public static final int DEFAULT_IO_THREADS = 4;
+
+    /** Default output bytes between decoder checkpoints in a chunk. */
+    public static final int DEFAULT_CHECKPOINT_INTERVAL_KB = 64;
+
+    private final int chunkSizeMB;
+    private final int maxCodeLength;
+    private final int streamCount;
+    private final boolean memoryMappedIo;
+    private final int memoryBudgetMB;
+    private final boolean orderedWrites;
+    private final int ioBufferSizeKB;
+    private final int cpuThreads;
+    private final int ioThreads;
+    private final int checkpointIntervalKB;
+    private final boolean storeIncompressible;
+    private final ChecksumAlgorithm checksumAlgorithm;
+
+    private CompressionOptions(Builder builder) {
+        this.chunkSizeMB = builder.chunkSizeMB;
+        this.maxCodeLength = builder.maxCodeLength;
+        this.streamCount = builder.streamCount;
+        this.memoryMappedIo = builder.memoryMappedIo;
+        this.orderedWrites = builder.orderedWrites;
+        this.ioBufferSizeKB = builder.ioBufferSizeKB;
+        this.cpuThreads = builder.cpuThreads > 0 ? builder.cpuThreads
+                                                 : Runtime.getRuntime().availableProcessors();
+        this.ioThreads = builder.ioThreads;
+        this.memoryBudgetMB = builder.memoryBudgetMB > 0 ? builder.memoryBudgetMB
+                                                         : defaultMemoryBudgetMB(chunkSizeMB, cpuThreads, ioThreads);
+        this.checkpointIntervalKB = builder.checkpointIntervalKB;
+        this.storeIncompressible = builder.storeIncompressible;
+        this.checksumAlgorithm = builder.checksumAlgorithm;
+    }
+
+    public int getChunkSizeMB() { return chunkSizeMB; }
+    public int getChunkSizeBytes() { return chunkSizeMB * 1024 * 1024; }
+    public int getMaxCodeLength() { return maxCodeLength; }
+    public int getStreamCount() { return streamCount; }
+    public boolean isMemoryMappedIo() { return memoryMappedIo; }
+    public int getMemoryBudgetMB() { return memoryBudgetMB; }
+    public boolean isOrderedWrites() { return orderedWrites; }
+    public int getIoBufferSizeKB() { return ioBufferSizeKB; }
+    public int getIoBufferSizeBytes() { return ioBufferSizeKB * 1024; }
+    public int getCpuThreads() { return cpuThreads; }
+    public int getIoThreads() { return ioThreads; }
+    public int getCheckpointIntervalKB() { return checkpointIntervalKB; }
+    public int getCheckpointIntervalBytes() { return checkpointIntervalKB * 1024; }
+    public boolean isStoreIncompressible() { return storeIncompressible; }
+    public ChecksumAlgorithm getChecksumAlgorithm() { return checksumAlgorithm; }
+
+    /**
+     * Number of bitstreams to use for a chunk of the given size.
+     */
+    public int streamCountFor(int chunkBytes) {
+        return chunkBytes >= MIN_MULTI_STREAM_BYTES ? streamCount : 1;
+    }
+
+    /**
+     * Chunks in flight that keep every CPU worker busy while the I/O
+     * threads write.
+     */
+    public int inFlightChunks() {
+        return IN_FLIGHT_PER_WORKER * cpuThreads + ioThreads;
+    }
+
+    /**
+     * Number of chunks that fit in the memory budget when each one in flight
+     * holds {@code bytesPerChunk} bytes; always at least one.
+     */
+    public int chunksInBudget(long bytesPerChunk) {
+        long fit = memoryBudgetMB * 1024L * 1024L / Math.max(1, bytesPerChunk);
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, fit));
+    }
+
+    /**
+     * Budget for a full compression window, each chunk holding its input and
+     * compressed buffers: at least {@link #DEFAULT_MEMORY_BUDGET_MB}, and no
+     * more than half the maximum heap beyond that.
+     */
+    static int defaultMemoryBudgetMB(int chunkSizeMB, int cpuThreads, int ioThreads) {
+        long wanted = (IN_FLIGHT_PER_WORKER * (long) cpuThreads + ioThreads) * 2L * chunkSizeMB;
+        long halfHeapMB = Runtime.getRuntime().maxMemory() / (2L * 1024 * 1024);
+        return (int) Math.max(DEFAULT_MEMORY_BUDGET_MB, Math.min(wanted, halfHeapMB));
+    }
+
+    /**
+     * Defaults with the given chunk size.
+     */
+    public static CompressionOptions defaults(int chunkSizeMB) {
+        return builder().chunkSizeMB(chunkSizeMB).build();
+    }
+
+    /**
+     * Options from the compression section of the application configuration.
+     */
+    public static CompressionOptions fromConfig(AppConfig config) {
+        return builder()
+            .chunkSizeMB(config.getChunkSizeMB())
+            .maxCodeLength(config.getMaxCodeLength())
+            .streamCount(config.getInterleavedStreams())
+            .memoryMappedIo(config.useMemoryMappedIo())
+            .memoryBudgetMB(config.getMemoryBudgetMB())
+            .orderedWrites(config.isOrderedWrites())
+            .ioBufferSizeKB(config.getIoBufferSizeKB())
+            .cpuThreads(config.getCpuThreads())
+            .ioThreads(config.getIoThreads())
+            .checkpointIntervalKB(config.getCheckpointIntervalKB())
+            .storeIncompressible(config.isStoreIncompressible())
+            .checksumAlgorithm(ChecksumAlgorithm.fromName(config.getChecksumAlgorithm()))
+            .build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private int chunkSizeMB = 16;
+        private int maxCodeLength = CanonicalHuffman.DEFAULT_MAX_CODE_LENGTH;
+        private int streamCount = DEFAULT_STREAM_COUNT;
+        private boolean memoryMappedIo = true;
+        private int memoryBudgetMB = 0;
+        private boolean orderedWrites = false;
+        private int ioBufferSizeKB = DEFAULT_IO_BUFFER_SIZE_KB;
+        private int cpuThreads = 0;
+        private int ioThreads = DEFAULT_IO_THREADS;
+        private int checkpointIntervalKB = DEFAULT_CHECKPOINT_INTERVAL_KB;
+        private boolean storeIncompressible = true;
+        private ChecksumAlgorithm checksumAlgorithm = ChecksumAlgorithm.SHA256;
+
+        public Builder chunkSizeMB(int chunkSizeMB) {
+            this.chunkSizeMB = chunkSizeMB;
+            return this;
+        }
+
+        public Builder maxCodeLength(int maxCodeLength) {
+            this.maxCodeLength = maxCodeLength;
+            return this;
+        }
+
+        /**
+         * Bitstreams per chunk; 1 writes the single-stream layout.
+         */
+        public Builder streamCount(int streamCount) {
+            this.streamCount = streamCount;
+            return this;
+        }
+
+        /**
+         * Read input chunks through mapped windows instead of positional reads.
+         */
+        public Builder memoryMappedIo(boolean memoryMappedIo) {
+            this.memoryMappedIo = memoryMappedIo;
+            return this;
+        }
+
+        /**
+         * Heap budget for chunks in flight; bounds the pipeline windows. 0
+         * sizes it for a full window at the configured thread count.
+         */
+        public Builder memoryBudgetMB(int memoryBudgetMB) {
+            this.memoryBudgetMB = memoryBudgetMB;
+            return this;
+        }
+
+        /**
+         * Write compressed chunks in index order instead of as soon as each
+         * one is encoded; gives byte-identical archives across runs.
+         */
+        public Builder orderedWrites(boolean orderedWrites) {
+            this.orderedWrites = orderedWrites;
+            return this;
+        }
+
+        public Builder ioBufferSizeKB(int ioBufferSizeKB) {
+            this.ioBufferSizeKB = ioBufferSizeKB;
+            return this;
+        }
+
+        /**
+         * Workers for the CPU-bound stages (scan, encode, decode); 0 uses
+         * every available processor.
+         */
+        public Builder cpuThreads(int cpuThreads) {
+            this.cpuThreads = cpuThreads;
+            return this;
+        }
+
+        /**
+         * Threads for the I/O-bound stage (writing compressed chunks), so
+         * CPU workers never wait on the disk.
+         */
+        public Builder ioThreads(int ioThreads) {
+            this.ioThreads = ioThreads;
+            return this;
+        }
+
+        /**
+         * Output bytes (in KB) between decoder checkpoints in each chunk's
+         * footer entry; 0 stores none.
+         */
+        public Builder checkpointIntervalKB(int checkpointIntervalKB) {
+            this.checkpointIntervalKB = checkpointIntervalKB;
+            return this;
+        }
+
+        /**
+         * Store chunks that Huffman coding would not shrink as they are,
+         * skipping the histogram when a sample already looks random.
+         */
+        public Builder storeIncompressible(boolean storeIncompressible) {
+            this.storeIncompressible = storeIncompressible;
+            return this;
+        }
+
+        /**
+         * Checksum of each chunk, recorded in the footer. SHA-256 by default;
+         * CRC32C and xxHash64 only detect accidental corruption, but cost a
+         * fraction of the time.
+         */
+        public Builder checksumAlgorithm(ChecksumAlgorithm checksumAlgorithm) {
+            this.checksumAlgorithm = checksumAlgorithm;
+            return this;
+        }
+
+        public CompressionOptions build() {
+            if (chunkSizeMB < 1 || chunkSizeMB > 1024) {
+                throw new IllegalArgumentException("Chunk size must be between 1 and 1024 MB: " + chunkSizeMB);
+            }
+            if (maxCodeLength < 8 || maxCodeLength > HuffmanEncoder.MAX_CODE_LENGTH) {
+                throw new IllegalArgumentException("Max code length must be between 8 and "
+                    + HuffmanEncoder.MAX_CODE_LENGTH + ": " + maxCodeLength);
+            }
+            if (streamCount < 1 || streamCount > 255) {
+                throw new IllegalArgumentException("Stream count must be between 1 and 255: " + streamCount);
+            }
+            if (memoryBudgetMB < 0) {
+                throw new IllegalArgumentException("Memory budget must not be negative: " + memoryBudgetMB);
+            }
+            if (ioBufferSizeKB < 1 || ioBufferSizeKB > 64 * 1024) {
+                throw new IllegalArgumentException("I/O buffer size must be between 1 KB and 64 MB: "
+                    + ioBufferSizeKB);
+            }
+            if (cpuThreads < 0) {
+                throw new IllegalArgumentException("CPU threads must not be negative: " + cpuThreads);
+            }
+            if (ioThreads < 1) {
+                throw new IllegalArgumentException("I/O threads must be at least 1: " + ioThreads);
+            }
+            if (checksumAlgorithm == null) {
+                throw new IllegalArgumentException("Checksum algorithm must be set");
+            }
+            if (checkpointIntervalKB < 0 || checkpointIntervalKB > 1024 * 1024) {
+                throw new IllegalArgumentException("Checkpoint interval must be between 0 and 1048576 KB: "
+                    + checkpointIntervalKB);
+            }
+            return new CompressionOptions(this);
+        }
+    }
+}
@@ -11,15 +11,42 @@ public class CanonicalHuffman {
     private static final int ALPHABET_SIZE = 256;
     
     /**
-     * Build canonical Huffman codes from frequency histogram.
+     * Default maximum code length. Keeps every codeword within a 16-bit
+     * word (GPU decode kernels) and a single 64-bit accumulator refill.
+     */
+    public static final int DEFAULT_MAX_CODE_LENGTH = 15;
+    
+    /** Per-thread scratch so building lengths allocates nothing per chunk. */
+    private static final ThreadLocal<HuffmanLengthBuilder> LENGTH_BUILDER =
+        ThreadLocal.withInitial(HuffmanLengthBuilder::new);
+    
+    /**
+     * Build canonical Huffman codes from frequency histogram,
+     * limited to {@link #DEFAULT_MAX_CODE_LENGTH} bits.
      * 
      * @param frequencies Frequency count for each byte value (0-255)
      * @return Array of HuffmanCode objects indexed by symbol
      */
     public static HuffmanCode[] buildCanonicalCodes(long[] frequencies) {
+        return buildCanonicalCodes(frequencies, DEFAULT_MAX_CODE_LENGTH);
+    }
+    
+    /**
+     * Build length-limited canonical Huffman codes from frequency histogram.
+     * Codes are optimal among prefix codes whose lengths do not exceed the limit.
+     * 
+     * @param frequencies Frequency count for each byte value (0-255)
+     * @param maxCodeLength Maximum code length in bits (at most 32)
+     * @return Array of HuffmanCode objects indexed by symbol
+     */
+    public static HuffmanCode[] buildCanonicalCodes(long[] frequencies, int maxCodeLength) {
         if (frequencies.length != ALPHABET_SIZE) {
             throw new IllegalArgumentException("Frequency array must have 256 elements");
         }
+        if (maxCodeLength < 1 || maxCodeLength > HuffmanEncoder.MAX_CODE_LENGTH) {
+            throw new IllegalArgumentException("Max code length must be between 1 and "
+                + HuffmanEncoder.MAX_CODE_LENGTH + ": " + maxCodeLength);
+        }
         
         // Count non-zero frequencies
         int numSymbols = 0;
@@ -44,50 +71,106 @@ public class CanonicalHuffman {
             return codes;
         }
         
-        // Build Huffman tree and generate canonical codes
-        int[] codeLengths = buildCodeLengths(frequencies);
+        if (numSymbols > (1L << maxCodeLength)) {
+            throw new IllegalArgumentException(numSymbols + " symbols do not fit in codes of "
+                + maxCodeLength + " bits");
+        }
+        
+        // Build Huffman lengths; fall back to package-merge only if the tree is too deep
+        int[] codeLengths = new int[ALPHABET_SIZE];
+        int longest = LENGTH_BUILDER.get().build(frequencies, codeLengths);
+        if (longest > maxCodeLength) {
+            codeLengths = buildLimitedCodeLengths(frequencies, numSymbols, maxCodeLength);
+        }
         return generateCanonicalCodes(codeLengths);
     }
     
     /**
-     * Build code lengths from frequencies using standard Huffman algorithm.
+     * Build optimal length-limited code lengths using the package-merge algorithm.
+     * 
+     * Every symbol appears as a coin of width 2^-level at each level 1..maxLength.
+     * Starting from the deepest level, adjacent items are paired into packages and
+     * merged with the leaves of the level above. Selecting the 2n-2 cheapest items
+     * at the top level, each selected leaf adds one bit to its symbol's length and
+     * each selected package selects two items on the level below.
      */
-    private static int[] buildCodeLengths(long[] frequencies) {
-        PriorityQueue<HuffmanNode> queue = new PriorityQueue<>();
-        
-        // Create leaf nodes
+    static int[] buildLimitedCodeLengths(long[] frequencies, int numSymbols, int maxLength) {
+        // Symbols sorted by (frequency, symbol)
+        int[] symbols = new int[numSymbols];
+        long[] weights = new long[numSymbols];
+        int n = 0;
         for (int i = 0; i < ALPHABET_SIZE; i++) {
             if (frequencies[i] > 0) {
-                queue.offer(new HuffmanNode(i, frequencies[i]));
+                symbols[n++] = i;
             }
         }
+        sortByFrequency(symbols, frequencies);
+        for (int i = 0; i < n; i++) {
+            weights[i] = frequencies[symbols[i]];
+        }
+        
+        // isPackage[level][i]: whether item i of the merged list at that level is a package
+        boolean[][] isPackage = new boolean[maxLength + 1][];
+        long[] previous = weights.clone();
+        int previousSize = n;
+        isPackage[maxLength] = new boolean[n];
         
-        // Build tree
-        while (queue.size() > 1) {
-            HuffmanNode left = queue.poll();
-            HuffmanNode right = queue.poll();
-            queue.offer(new HuffmanNode(left, right));
+        for (int level = maxLength - 1; level >= 1; level--) {
+            int numPackages = previousSize / 2;
+            long[] merged = new long[n + numPackages];
+            boolean[] flags = new boolean[n + numPackages];
+            int leaf = 0;
+            int pkg = 0;
+            int out = 0;
+            while (leaf < n || pkg < numPackages) {
+                long packageWeight = pkg < numPackages
+                    ? previous[2 * pkg] + previous[2 * pkg + 1] : Long.MAX_VALUE;
+                if (leaf < n && weights[leaf] <= packageWeight) {
+                    merged[out++] = weights[leaf++];
+                } else {
+                    flags[out] = true;
+                    merged[out++] = packageWeight;
+                    pkg++;
+                }
+            }
+            isPackage[level] = flags;
+            previous = merged;
+            previousSize = out;
         }
         
-        // Extract code lengths
+        // Walk the selection down from the top level
         int[] codeLengths = new int[ALPHABET_SIZE];
-        if (!queue.isEmpty()) {
-            HuffmanNode root = queue.poll();
-            extractLengths(root, 0, codeLengths);
+        int selected = 2 * n - 2;
+        for (int level = 1; level <= maxLength && selected > 0; level++) {
+            boolean[] flags = isPackage[level];
+            int leaves = 0;
+            int packages = 0;
+            for (int i = 0; i < selected; i++) {
+                if (flags[i]) {
+                    packages++;
+                } else {
+                    codeLengths[symbols[leaves++]]++;
+                }
+            }
+            selected = 2 * packages;
         }
         
         return codeLengths;
     }
     
     /**
-     * Recursively extract code lengths from tree.
+     * Insertion sort of symbols by (frequency, symbol); at most 256 entries.
      */
-    private static void extractLengths(HuffmanNode node, int depth, int[] lengths) {
-        if (node.isLeaf()) {
-            lengths[node.getSymbol()] = depth;
-        } else {
-            extractLengths(node.getLeft(), depth + 1, lengths);
-            extractLengths(node.getRight(), depth + 1, lengths);
+    private static void sortByFrequency(int[] symbols, long[] frequencies) {
+        for (int i = 1; i < symbols.length; i++) {
+            int symbol = symbols[i];
+            long freq = frequencies[symbol];
+            int j = i - 1;
+            while (j >= 0 && frequencies[symbols[j]] > freq) {
+                symbols[j + 1] = symbols[j];
+                j--;
+            }
+            symbols[j + 1] = symbol;
         }
     }
     
@@ -157,28 +240,63 @@ public class CanonicalHuffman {
     
     /**
      * Decoder for canonical Huffman codes.
+     *
+     * Canonical codes of one length are consecutive integers, so each length
+     * needs only its first codeword, a left-aligned limit and an offset into
+     * the symbols sorted by (length, codeword). Decoding a codeword is then a
+     * few array reads instead of a map lookup per length.
      */
     public static class HuffmanDecoder {
-        private final Map<Integer, Map<Integer, Integer>> lookupTable;
+        private static final int MAX_LENGTH = 32;
+        
+        private final long[] firstCode = new long[MAX_LENGTH + 1];   // First codeword of each length
+        private final long[] limit = new long[MAX_LENGTH + 1];       // Last codeword, left-aligned in 64 bits
+        private final int[] count = new int[MAX_LENGTH + 1];         // Number of codes of each length
+        private final int[] symbolOffset = new int[MAX_LENGTH + 1];  // Index of first symbol of each length
+        private final int[] symbolIndex;                             // Symbols sorted by (length, codeword)
         private final int maxCodeLength;
         
         HuffmanDecoder(HuffmanCode[] codes) {
-            this.lookupTable = new HashMap<>();
             int maxLen = 0;
-            
+            int numSymbols = 0;
             for (HuffmanCode code : codes) {
                 if (code != null) {
                     int len = code.getCodeLength();
-                    int codeword = code.getCodeword();
-                    int symbol = code.getSymbol();
-                    
-                    lookupTable.computeIfAbsent(len, k -> new HashMap<>())
-                              .put(codeword, symbol);
+                    if (len < 1 || len > MAX_LENGTH) {
+                        throw new IllegalArgumentException("Invalid code length " + len
+                            + " for symbol " + code.getSymbol());
+                    }
+                    count[len]++;
+                    numSymbols++;
                     maxLen = Math.max(maxLen, len);
                 }
             }
-            
             this.maxCodeLength = maxLen;
+            this.symbolIndex = new int[numSymbols];
+            
+            // Same recurrence as generateCanonicalCodes
+            long code = 0;
+            int offset = 0;
+            for (int len = 1; len <= maxLen; len++) {
+                code = (code + count[len - 1]) << 1;
+                firstCode[len] = code;
+                symbolOffset[len] = offset;
+                offset += count[len];
+                // Wraps to all ones when the last length fills the code space
+                limit[len] = ((code + count[len]) << (64 - len)) - 1;
+            }
+            
+            // Place symbols by codeword, verifying the codes are canonical
+            for (HuffmanCode huffmanCode : codes) {
+                if (huffmanCode == null) continue;
+                int len = huffmanCode.getCodeLength();
+                long index = (huffmanCode.getCodeword() & 0xFFFFFFFFL) - firstCode[len];
+                if (index < 0 || index >= count[len]) {
+                    throw new IllegalArgumentException("Code for symbol " + huffmanCode.getSymbol()
+                        + " is not canonical");
+                }
+                symbolIndex[symbolOffset[len] + (int) index] = huffmanCode.getSymbol();
+            }
         }
         
         /**
@@ -189,17 +307,22 @@ public class CanonicalHuffman {
          * @return Decoded symbol, or -1 if invalid
          */
         public int decode(long bits, int bitPos) {
-            int code = 0;
-            for (int len = 1; len <= maxCodeLength; len++) {
-                code = (code << 1) | ((int)(bits >> (63 - bitPos)) & 1);
-                bitPos++;
-                
-                Map<Integer, Integer> symbols = lookupTable.get(len);
-                if (symbols != null) {
-                    Integer symbol = symbols.get(code);
-                    if (symbol != null) {
-                        return symbol;
-                    }
+            int entry = decodeEntry(bits << bitPos, 1);
+            return entry < 0 ? -1 : entry >>> 8;
+        }
+        
+        /**
+         * Decode the codeword at the top of a left-aligned bit window.
+         * 
+         * @param window Next bits of the stream, MSB first
+         * @param minLength Shortest code length to consider (shorter codes are known not to match)
+         * @return {@code (symbol << 8) | codeLength}, or -1 if no code matches
+         */
+        public int decodeEntry(long window, int minLength) {
+            for (int len = minLength; len <= maxCodeLength; len++) {
+                if (count[len] != 0 && Long.compareUnsigned(window, limit[len]) <= 0) {
+                    int index = (int) ((window >>> (64 - len)) - firstCode[len]);
+                    return (symbolIndex[symbolOffset[len] + index] << 8) | len;
                 }
             }
             return -1; // Invalid code
@@ -217,15 +340,14 @@ public class CanonicalHuffman {
          * @return The decoded symbol, or -1 if not found
          */
         public int decodeSymbol(int codeword, int length) {
-            Map<Integer, Integer> symbols = lookupTable.get(length);
-            if (symbols != null) {
-                Integer symbol = symbols.get(codeword);
-                if (symbol != null) {
-                    return symbol;
-                }
+            if (length < 1 || length > maxCodeLength) {
+                return -1;
             }
-            return -1;
+            long index = (codeword & 0xFFFFFFFFL) - firstCode[length];
+            if (index < 0 || index >= count[length]) {
+                return -1;
+            }
+            return symbolIndex[symbolOffset[length] + (int) index];
         }
     }
 }
-
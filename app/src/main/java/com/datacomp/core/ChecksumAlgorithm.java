@@ -0,0 +1,100 @@
+package com.datacomp.core;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Checksum of each chunk's original bytes, recorded by id in the footer
+ * (format version 2; version 1 files always use SHA-256).
+ *
+ * Every checksum fills the same 32-byte field, shorter digests padded with
+ * zeros, so the chunk index keeps its fixed width whatever the algorithm.
+ * SHA-256 also guards against deliberate tampering; CRC32C (hardware
+ * accelerated) and xxHash64 only catch accidental corruption, several
+ * times faster.
+ */
+public enum ChecksumAlgorithm {
+    SHA256(0, "sha256"),
+    CRC32C(1, "crc32c"),
+    XXHASH64(2, "xxhash64");
+
+    /** Width of the checksum field of every chunk. */
+    public static final int CHECKSUM_SIZE = 32;
+
+    private final int id;
+    private final String name;
+
+    ChecksumAlgorithm(int id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /** Name used in the configuration and in metrics. */
+    public String getName() {
+        return name;
+    }
+
+    public MessageDigest createDigest() {
+        switch (this) {
+            case CRC32C:
+                return new Crc32cDigest();
+            case XXHASH64:
+                return new XxHash64Digest();
+            default:
+                try {
+                    return MessageDigest.getInstance("SHA-256");
+                } catch (NoSuchAlgorithmException e) {
+                    throw new RuntimeException("SHA-256 not available", e);
+                }
+        }
+    }
+
+    /**
+     * Finish {@code digest} (created by {@link #createDigest}) into a
+     * checksum field.
+     */
+    public byte[] checksum(MessageDigest digest) {
+        byte[] value = digest.digest();
+        return value.length == CHECKSUM_SIZE ? value : Arrays.copyOf(value, CHECKSUM_SIZE);
+    }
+
+    public byte[] compute(byte[] data, int offset, int length) {
+        MessageDigest digest = createDigest();
+        digest.update(data, offset, length);
+        return checksum(digest);
+    }
+
+    /**
+     * Checksum of the remaining bytes of a buffer, without moving its position.
+     */
+    public byte[] compute(ByteBuffer data) {
+        MessageDigest digest = createDigest();
+        digest.update(data.duplicate());
+        return checksum(digest);
+    }
+
+    public static ChecksumAlgorithm fromId(int id) {
+        for (ChecksumAlgorithm algorithm : values()) {
+            if (algorithm.id == id) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException("Unknown checksum algorithm: " + id);
+    }
+
+    public static ChecksumAlgorithm fromName(String name) {
+        for (ChecksumAlgorithm algorithm : values()) {
+            if (algorithm.name.equalsIgnoreCase(name)) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException("Unknown checksum algorithm: " + name
+            + " (expected sha256, crc32c or xxhash64)");
+    }
+}
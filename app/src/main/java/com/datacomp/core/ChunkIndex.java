@@ -0,0 +1,272 @@
+package com.datacomp.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fixed-width chunk index of a version 2 footer, readable without parsing it.
+ *
+ * After the footer's chunk count comes the length of the tables section,
+ * then one record per chunk, then the tables section. A record holds only
+ * what cannot be derived: chunk {@code i} starts at original offset
+ * {@code i * chunkSize} and runs to the next chunk or the end of the file,
+ * and its index is its record's position.
+ * <pre>
+ *   offset  size
+ *        0     8   compressed offset
+ *        8     4   compressed size
+ *       12    32   checksum
+ *       44     1   chunk type
+ *       45     1   stream count
+ *       46     4   offset of the chunk's entry in the tables section
+ * </pre>
+ * A chunk's entry holds its checkpoint interval, its checkpoints as
+ * second differences (each step's change from the previous step, zigzag
+ * encoded; steps are nearly equal, so most take 2 bytes) and a reference
+ * to its code length table: 0 when the table follows in
+ * {@link CodeLengthTable}'s compact form, otherwise the table's offset
+ * plus one. Every distinct table is stored once, all as unsigned LEB128
+ * varints.
+ *
+ *
+ * A chunk's metadata is only built, and its tables decoded, when it is
+ * looked up, so {@link #map} can map the index and look chunks up without
+ * touching any other record; decoded code length tables are shared
+ * between chunks.
+ */
+public final class ChunkIndex extends AbstractList<ChunkMetadata> implements RandomAccess {
+
+    public static final int RECORD_SIZE = 50;
+
+    private static final int COMPRESSED_SIZE = 8;
+    private static final int CHECKSUM = 12;
+    private static final int CHUNK_TYPE = 44;
+    private static final int STREAM_COUNT = 45;
+    private static final int ENTRY = 46;
+    private static final int CHECKSUM_SIZE = 32;
+
+    private final ByteBuffer records;
+    private final ByteBuffer tables;
+    private final int size;
+    private final int chunkSize;
+    private final long fileSize;
+    private final Map<Integer, int[]> codeLengthTables = new ConcurrentHashMap<>();
+
+    private ChunkIndex(ByteBuffer records, ByteBuffer tables, int size, int chunkSize, long fileSize) {
+        this.records = records;
+        this.tables = tables;
+        this.size = size;
+        this.chunkSize = chunkSize;
+        this.fileSize = fileSize;
+    }
+
+    /**
+     * Write the tables section length, the records and the tables section.
+     * Chunks must cover the file in {@code chunkSize} steps.
+     */
+    static void write(DataOutputStream out, List<ChunkMetadata> chunks, int chunkSize, long fileSize)
+            throws IOException {
+        int numChunks = chunks.size();
+        if ((long) numChunks * RECORD_SIZE > Integer.MAX_VALUE) {
+            throw new IOException("Too many chunks for the chunk index: " + numChunks);
+        }
+
+        ByteArrayOutputStream tableBytes = new ByteArrayOutputStream();
+        DataOutputStream tablesOut = new DataOutputStream(tableBytes);
+        Map<IntBuffer, Integer> codeLengthOffsets = new HashMap<>();
+        int[] entryOffset = new int[numChunks];
+        for (int i = 0; i < numChunks; i++) {
+            ChunkMetadata chunk = chunks.get(i);
+            if (chunk.getChunkIndex() != i) {
+                throw new IOException("Chunk at position " + i + " has index " + chunk.getChunkIndex());
+            }
+            if (chunk.getOriginalOffset() != (long) i * chunkSize
+                    || chunk.getOriginalSize() != originalSize(i, chunkSize, fileSize)) {
+                throw new IOException("Chunk " + i + " covers " + chunk.getOriginalSize() + " bytes at "
+                    + chunk.getOriginalOffset() + ", not its " + chunkSize + "-byte slot of the file");
+            }
+            entryOffset[i] = tableBytes.size();
+            CompressionHeader.writeCheckpoints(tablesOut, chunk);
+
+            IntBuffer key = IntBuffer.wrap(chunk.getCodeLengths());
+            Integer offset = codeLengthOffsets.get(key);
+            if (offset == null) {
+                tablesOut.writeByte(0);
+                codeLengthOffsets.put(key, tableBytes.size());
+                CodeLengthTable.write(tablesOut, chunk.getCodeLengths());
+            } else {
+                CompressionHeader.writeVarLong(tablesOut, offset + 1L);
+            }
+        }
+
+        out.writeLong(tableBytes.size());
+        for (int i = 0; i < numChunks; i++) {
+            ChunkMetadata chunk = chunks.get(i);
+            byte[] checksum = chunk.getChecksum();
+            if (checksum.length != CHECKSUM_SIZE) {
+                throw new IOException("Checksum of chunk " + i + " is " + checksum.length + " bytes");
+            }
+            out.writeLong(chunk.getCompressedOffset());
+            out.writeInt(chunk.getCompressedSize());
+            out.write(checksum);
+            out.writeByte(chunk.getChunkType().getId());
+            out.writeByte(chunk.getStreamCount());
+            out.writeInt(entryOffset[i]);
+        }
+        tableBytes.writeTo(out);
+    }
+
+    /**
+     * Read an index from a stream into memory.
+     */
+    static ChunkIndex read(DataInputStream in, int numChunks, int chunkSize, long fileSize) throws IOException {
+        long tablesLength = in.readLong();
+        checkLayout(numChunks, tablesLength, chunkSize, fileSize);
+        byte[] records = new byte[numChunks * RECORD_SIZE];
+        in.readFully(records);
+        byte[] tables = new byte[(int) tablesLength];
+        in.readFully(tables);
+        return new ChunkIndex(ByteBuffer.wrap(records), ByteBuffer.wrap(tables), numChunks, chunkSize, fileSize);
+    }
+
+    /**
+     * Map the index that starts at {@code position} and ends the footer at
+     * {@code end}. Only the tables section length is read up front.
+     */
+    static ChunkIndex map(FileChannel channel, long position, int numChunks, long end,
+                          int chunkSize, long fileSize) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(Long.BYTES);
+        DczFile.readFully(channel, length, position);
+        long tablesLength = length.flip().getLong();
+        checkLayout(numChunks, tablesLength, chunkSize, fileSize);
+
+        long recordsStart = position + Long.BYTES;
+        long recordsLength = (long) numChunks * RECORD_SIZE;
+        if (recordsStart + recordsLength + tablesLength != end) {
+            throw new IOException("Invalid file format: chunk index of " + numChunks
+                + " chunks does not match the footer size");
+        }
+        ByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, recordsStart, recordsLength);
+        ByteBuffer tables = channel.map(FileChannel.MapMode.READ_ONLY, recordsStart + recordsLength, tablesLength);
+        return new ChunkIndex(records, tables, numChunks, chunkSize, fileSize);
+    }
+
+    private static void checkLayout(int numChunks, long tablesLength, int chunkSize, long fileSize)
+            throws IOException {
+        if (numChunks < 0 || (long) numChunks * RECORD_SIZE > Integer.MAX_VALUE) {
+            throw new IOException("Invalid file format: " + numChunks + " chunks");
+        }
+        if (tablesLength < 0 || tablesLength > Integer.MAX_VALUE) {
+            throw new IOException("Invalid file format: tables section of " + tablesLength + " bytes");
+        }
+        if (numChunks > 0 && (chunkSize <= 0 || (long) (numChunks - 1) * chunkSize > fileSize)) {
+            throw new IOException("Invalid file format: " + numChunks + " chunks of " + chunkSize
+                + " bytes do not fit a file of " + fileSize + " bytes");
+        }
+    }
+
+    private static int originalSize(int index, int chunkSize, long fileSize) {
+        return (int) Math.min(chunkSize, fileSize - (long) index * chunkSize);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Index of the last chunk whose original offset is at or before
+     * {@code position} (0 for an empty index).
+     */
+    public int chunkIndexAt(long position) {
+        return size == 0 || position < 0 ? 0 : (int) Math.min(position / chunkSize, size - 1);
+    }
+
+    /**
+     * Metadata of chunk {@code index}, decoded from its record.
+     *
+     * @throws UncheckedIOException if the record or its tables are malformed
+     */
+    @Override
+    public ChunkMetadata get(int index) {
+        Objects.checkIndex(index, size);
+        try {
+            return chunk(index);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Chunk " + index + " of the chunk index is malformed", e);
+        }
+    }
+
+    private ChunkMetadata chunk(int index) throws IOException {
+        int record = index * RECORD_SIZE;
+        long originalOffset = (long) index * chunkSize;
+        int originalSize = originalSize(index, chunkSize, fileSize);
+        int compressedSize = records.getInt(record + COMPRESSED_SIZE);
+        byte[] checksum = new byte[CHECKSUM_SIZE];
+        records.get(record + CHECKSUM, checksum);
+        ChunkType chunkType = CompressionHeader.readChunkType(records.get(record + CHUNK_TYPE) & 0xFF);
+        CompressionHeader.checkPayloadSize(chunkType, originalSize, compressedSize);
+
+        int entry = records.getInt(record + ENTRY);
+        TableReader in = tableBytes(entry);
+        int checkpointInterval = (int) CompressionHeader.readVarLong(in, Integer.MAX_VALUE);
+        long[] checkpoints = CompressionHeader.readCheckpointSteps(in, originalSize, compressedSize,
+                                                                   checkpointInterval);
+        long reference = CompressionHeader.readVarLong(in, entry);
+        int[] codeLengths = codeLengths(reference == 0 ? in.position() : (int) reference - 1);
+        return new ChunkMetadata(
+            index, originalOffset, originalSize, records.getLong(record), compressedSize, checksum, codeLengths,
+            chunkType, records.get(record + STREAM_COUNT) & 0xFF, checkpointInterval, checkpoints);
+    }
+
+    private int[] codeLengths(int offset) throws IOException {
+        int[] codeLengths = codeLengthTables.get(offset);
+        if (codeLengths == null) {
+            codeLengths = CodeLengthTable.read(tableBytes(offset));
+            codeLengthTables.putIfAbsent(offset, codeLengths);
+        }
+        return codeLengths;
+    }
+
+    private TableReader tableBytes(int offset) throws IOException {
+        if (offset < 0 || offset >= tables.limit()) {
+            throw new IOException("Invalid file format: table offset " + offset + " outside the tables section");
+        }
+        return new TableReader(tables.duplicate().position(offset));
+    }
+
+    /** Bytes of the tables section from some offset on. */
+    private static final class TableReader implements CompressionHeader.ByteSource {
+        private final ByteBuffer view;
+
+        TableReader(ByteBuffer view) {
+            this.view = view;
+        }
+
+        @Override
+        public int readUnsignedByte() throws IOException {
+            if (!view.hasRemaining()) {
+                throw new EOFException("Table runs past the end of the tables section");
+            }
+            return view.get() & 0xFF;
+        }
+
+        int position() {
+            return view.position();
+        }
+    }
+}
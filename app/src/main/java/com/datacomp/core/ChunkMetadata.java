@@ -14,19 +14,55 @@ public class ChunkMetadata implements Serializable {
     private final int originalSize;
     private final long compressedOffset;
     private final int compressedSize;
-    private final byte[] sha256Checksum;
+    private final byte[] checksum;   // In the header's ChecksumAlgorithm, zero-padded to 32 bytes
     private final int[] codeLengths; // Code lengths for canonical Huffman
+    private final ChunkType chunkType;
+    private final int streamCount;   // Number of bitstreams (1 unless MULTI_STREAM)
+    private final int checkpointInterval; // Output bytes between checkpoints (0 = none)
+    private final long[] checkpoints;     // Payload bit offset at every checkpoint after 0
     
     public ChunkMetadata(int chunkIndex, long originalOffset, int originalSize,
                         long compressedOffset, int compressedSize,
-                        byte[] sha256Checksum, int[] codeLengths) {
+                        byte[] checksum, int[] codeLengths) {
+        this(chunkIndex, originalOffset, originalSize, compressedOffset, compressedSize,
+             checksum, codeLengths, ChunkType.HUFFMAN, 1);
+    }
+    
+    public ChunkMetadata(int chunkIndex, long originalOffset, int originalSize,
+                        long compressedOffset, int compressedSize,
+                        byte[] checksum, int[] codeLengths,
+                        ChunkType chunkType, int streamCount) {
+        this(chunkIndex, originalOffset, originalSize, compressedOffset, compressedSize,
+             checksum, codeLengths, chunkType, streamCount, 0, new long[0]);
+    }
+    
+    /**
+     * @param checkpointInterval Output bytes between checkpoints, or 0 for none
+     * @param checkpoints Bit offset within the compressed payload of the symbol
+     *                    at every nonzero multiple of the interval
+     */
+    public ChunkMetadata(int chunkIndex, long originalOffset, int originalSize,
+                        long compressedOffset, int compressedSize,
+                        byte[] checksum, int[] codeLengths,
+                        ChunkType chunkType, int streamCount,
+                        int checkpointInterval, long[] checkpoints) {
+        if (checkpoints.length != HuffmanEncoder.checkpointCount(originalSize, checkpointInterval)) {
+            throw new IllegalArgumentException("Expected "
+                + HuffmanEncoder.checkpointCount(originalSize, checkpointInterval)
+                + " checkpoints for " + originalSize + " bytes every " + checkpointInterval
+                + ", got " + checkpoints.length);
+        }
         this.chunkIndex = chunkIndex;
         this.originalOffset = originalOffset;
         this.originalSize = originalSize;
         this.compressedOffset = compressedOffset;
         this.compressedSize = compressedSize;
-        this.sha256Checksum = sha256Checksum;
+        this.checksum = checksum;
         this.codeLengths = codeLengths;
+        this.chunkType = chunkType;
+        this.streamCount = streamCount;
+        this.checkpointInterval = checkpointInterval;
+        this.checkpoints = checkpoints;
     }
     
     public int getChunkIndex() { return chunkIndex; }
@@ -34,8 +70,39 @@ public class ChunkMetadata implements Serializable {
     public int getOriginalSize() { return originalSize; }
     public long getCompressedOffset() { return compressedOffset; }
     public int getCompressedSize() { return compressedSize; }
-    public byte[] getSha256Checksum() { return sha256Checksum; }
+    public byte[] getChecksum() { return checksum; }
     public int[] getCodeLengths() { return codeLengths; }
+    public ChunkType getChunkType() { return chunkType; }
+    public int getStreamCount() { return streamCount; }
+    public int getCheckpointInterval() { return checkpointInterval; }
+    public long[] getCheckpoints() { return checkpoints; }
+    
+    /**
+     * Latest position at or before {@code position} where decoding can start
+     * without decoding from the chunk start: the nearest checkpoint, or 0.
+     */
+    public int checkpointAtOrBefore(int position) {
+        if (checkpointInterval == 0 || position <= 0) {
+            return 0;
+        }
+        return Math.min(position / checkpointInterval, checkpoints.length) * checkpointInterval;
+    }
+    
+    /**
+     * Bit offset within the compressed payload of the symbol at a position
+     * from {@link #checkpointAtOrBefore}.
+     */
+    public long checkpointBitOffset(int position) {
+        if (position == 0) {
+            // The first stream starts right after the jump table
+            return chunkType == ChunkType.MULTI_STREAM ? 32L * (streamCount - 1) : 0;
+        }
+        if (checkpointInterval == 0 || position % checkpointInterval != 0
+                || position / checkpointInterval > checkpoints.length) {
+            throw new IllegalArgumentException("No checkpoint at position " + position);
+        }
+        return checkpoints[position / checkpointInterval - 1];
+    }
     
     public double getCompressionRatio() {
         if (originalSize == 0) return 1.0;
@@ -0,0 +1,46 @@
+package com.datacomp.core;
+
+/**
+ * Layout of a chunk's compressed payload, stored as one byte in the chunk table.
+ */
+public enum ChunkType {
+    /** One Huffman bitstream for the whole chunk (format version 1 layout). */
+    HUFFMAN(0),
+    /**
+     * The chunk is split into equal segments, each encoded as its own bitstream
+     * with the chunk's shared code lengths. The payload starts with the byte
+     * sizes of all streams but the last (uint32 each), followed by the streams.
+     */
+    MULTI_STREAM(1),
+    /**
+     * The chunk's bytes as they are, for input Huffman coding cannot shrink
+     * (already compressed or encrypted data). There are no code lengths,
+     * streams or checkpoints; the chunk is copied instead of decoded.
+     */
+    STORED(2),
+    /**
+     * Every byte of the chunk has the same value (zero-filled regions of disk
+     * images and sparse files). The payload is that one byte; the chunk is
+     * expanded with a bulk fill, or left as a hole when the value is 0.
+     */
+    CONSTANT(3);
+
+    private final int id;
+
+    ChunkType(int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public static ChunkType fromId(int id) {
+        for (ChunkType type : values()) {
+            if (type.id == id) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown chunk type: " + id);
+    }
+}
@@ -0,0 +1,171 @@
+package com.datacomp.core;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Compact serialization of a chunk's 256 code lengths (format version 2).
+ *
+ * Lengths are written as 4-bit symbols, high nibble first, in the spirit of
+ * deflate's code-length alphabet:
+ * <pre>
+ *   0-11     literal length
+ *   12 n     previous length repeated n + 3 times (3-18)
+ *   13 n     n + 3 zero lengths (3-18)
+ *   14 n n   n + 19 zero lengths (19-274), n being the next two nibbles
+ *   15 n n   literal length 12-32, in the next two nibbles
+ * </pre>
+ * The symbols end once all 256 lengths are covered; an odd count is padded
+ * with a zero nibble. A text chunk's table takes roughly 40-80 bytes instead
+ * of 512, and a table of equal lengths (random data) takes 4.
+ */
+final class CodeLengthTable {
+
+    static final int SYMBOLS = 256;
+
+    private static final int MAX_LITERAL = 11;
+    private static final int REPEAT = 12;
+    private static final int ZEROS = 13;
+    private static final int LONG_ZEROS = 14;
+    private static final int ESCAPE = 15;
+
+    private static final int MAX_ZEROS = 19 + 255;
+    private static final int MAX_REPEAT = 3 + 15;
+
+    private CodeLengthTable() {
+    }
+
+    static void write(DataOutputStream out, int[] codeLengths) throws IOException {
+        if (codeLengths.length != SYMBOLS) {
+            throw new IOException("Expected " + SYMBOLS + " code lengths, got " + codeLengths.length);
+        }
+        byte[] packed = new byte[SYMBOLS * 3 / 2];  // Worst case: an escaped literal per symbol
+        int nibbles = 0;
+
+        int i = 0;
+        while (i < SYMBOLS) {
+            int length = codeLengths[i];
+            if (length < 0 || length > HuffmanEncoder.MAX_CODE_LENGTH) {
+                throw new IOException("Code length " + length + " of symbol " + i + " out of range");
+            }
+            int run = 1;
+            while (i + run < SYMBOLS && codeLengths[i + run] == length) {
+                run++;
+            }
+
+            if (length == 0 && run >= 3) {
+                int count = Math.min(run, MAX_ZEROS);
+                if (count >= 19) {
+                    nibbles = put(packed, nibbles, LONG_ZEROS);
+                    nibbles = put(packed, nibbles, (count - 19) >>> 4);
+                    nibbles = put(packed, nibbles, (count - 19) & 0xF);
+                } else {
+                    nibbles = put(packed, nibbles, ZEROS);
+                    nibbles = put(packed, nibbles, count - 3);
+                }
+                i += count;
+                continue;
+            }
+
+            if (length <= MAX_LITERAL) {
+                nibbles = put(packed, nibbles, length);
+            } else {
+                nibbles = put(packed, nibbles, ESCAPE);
+                nibbles = put(packed, nibbles, length >>> 4);
+                nibbles = put(packed, nibbles, length & 0xF);
+            }
+            i++;
+            run--;
+            while (run >= 3) {
+                int count = Math.min(run, MAX_REPEAT);
+                nibbles = put(packed, nibbles, REPEAT);
+                nibbles = put(packed, nibbles, count - 3);
+                i += count;
+                run -= count;
+            }
+            // A leftover run of one or two goes out as literals on the next pass
+        }
+
+        out.write(packed, 0, (nibbles + 1) / 2);
+    }
+
+    static int[] read(DataInputStream in) throws IOException {
+        return read(in::readUnsignedByte);
+    }
+
+    static int[] read(CompressionHeader.ByteSource in) throws IOException {
+        int[] codeLengths = new int[SYMBOLS];
+        NibbleReader nibbles = new NibbleReader(in);
+        int previous = -1;
+
+        int i = 0;
+        while (i < SYMBOLS) {
+            int symbol = nibbles.next();
+            if (symbol <= MAX_LITERAL || symbol == ESCAPE) {
+                int length = symbol == ESCAPE ? nibbles.nextByte() : symbol;
+                if (symbol == ESCAPE && (length <= MAX_LITERAL || length > HuffmanEncoder.MAX_CODE_LENGTH)) {
+                    throw new IOException("Invalid file format: code length " + length + " out of range");
+                }
+                codeLengths[i++] = length;
+                previous = length;
+                continue;
+            }
+
+            int value = 0;
+            int count;
+            if (symbol == REPEAT) {
+                if (previous < 0) {
+                    throw new IOException("Invalid file format: code length repeat without a previous length");
+                }
+                value = previous;
+                count = nibbles.next() + 3;
+            } else if (symbol == ZEROS) {
+                count = nibbles.next() + 3;
+            } else {
+                count = nibbles.nextByte() + 19;
+            }
+            if (i + count > SYMBOLS) {
+                throw new IOException("Invalid file format: code length run past symbol " + (SYMBOLS - 1));
+            }
+            Arrays.fill(codeLengths, i, i + count, value);
+            i += count;
+            previous = value;
+        }
+        return codeLengths;
+    }
+
+    private static int put(byte[] packed, int nibbles, int value) {
+        if ((nibbles & 1) == 0) {
+            packed[nibbles >>> 1] = (byte) (value << 4);
+        } else {
+            packed[nibbles >>> 1] |= (byte) value;
+        }
+        return nibbles + 1;
+    }
+
+    private static final class NibbleReader {
+        private final CompressionHeader.ByteSource in;
+        private int current;
+        private boolean pending;
+
+        NibbleReader(CompressionHeader.ByteSource in) {
+            this.in = in;
+        }
+
+        int next() throws IOException {
+            if (pending) {
+                pending = false;
+                return current & 0xF;
+            }
+            current = in.readUnsignedByte();
+            pending = true;
+            return current >>> 4;
+        }
+
+        int nextByte() throws IOException {
+            return (next() << 4) | next();
+        }
+    }
+}
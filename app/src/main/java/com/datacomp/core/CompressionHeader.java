@@ -1,6 +1,8 @@
 package com.datacomp.core;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
@@ -8,12 +10,35 @@ import java.util.List;
 /**
  * Header for compressed file format.
  * Contains magic number, version, original file metadata, and chunk table.
+ *
+ * Version 2 (written now) adds one byte after the chunk size, the id of the
+ * {@link ChecksumAlgorithm} of the chunk checksums, and stores the chunk
+ * table as a fixed-width {@link ChunkIndex}, which {@link #readFooter} maps
+ * instead of parsing, so opening a file costs the same whatever its chunk
+ * count. Each chunk's record holds its type and stream count; its
+ * checkpoints (see {@link ChunkMetadata#getCheckpoints}) and its code
+ * lengths, in {@link CodeLengthTable}'s compact form and stored once per
+ * distinct table, follow in the index's tables section.
+ *
+ * Version 1 files remain readable: variable-length chunk records holding
+ * 256 code lengths as shorts, Huffman chunks with SHA-256 checksums and
+ * no checkpoints. The global checksum is always the SHA-256 of the chunk
+ * checksums.
  */
 public class CompressionHeader implements Serializable {
     private static final long serialVersionUID = 1L;
     
     public static final int MAGIC_NUMBER = 0x44435A46; // "DCZF" - DataComp Zipped File
-    public static final int VERSION = 1;
+    public static final int VERSION = 2;
+    
+    /** The original format, with variable-length chunk records; still readable. */
+    public static final int VERSION_1 = 1;
+    
+    /** Source of the bytes of a variable-length field, read one at a time. */
+    @FunctionalInterface
+    interface ByteSource {
+        int readUnsignedByte() throws IOException;
+    }
     
     private final String originalFileName;
     private final long originalFileSize;
@@ -21,28 +46,61 @@ public class CompressionHeader implements Serializable {
     private final byte[] globalChecksum;
     private final List<ChunkMetadata> chunks;
     private final int chunkSizeBytes;
+    private final ChecksumAlgorithm checksumAlgorithm;
     
     public CompressionHeader(String originalFileName, long originalFileSize,
                            long originalTimestamp, byte[] globalChecksum,
                            int chunkSizeBytes) {
+        this(originalFileName, originalFileSize, originalTimestamp, globalChecksum, chunkSizeBytes,
+             ChecksumAlgorithm.SHA256);
+    }
+    
+    public CompressionHeader(String originalFileName, long originalFileSize,
+                           long originalTimestamp, byte[] globalChecksum,
+                           int chunkSizeBytes, ChecksumAlgorithm checksumAlgorithm) {
+        this(originalFileName, originalFileSize, originalTimestamp, globalChecksum, chunkSizeBytes,
+             checksumAlgorithm, new ArrayList<>());
+    }
+    
+    private CompressionHeader(String originalFileName, long originalFileSize,
+                              long originalTimestamp, byte[] globalChecksum,
+                              int chunkSizeBytes, ChecksumAlgorithm checksumAlgorithm,
+                              List<ChunkMetadata> chunks) {
         this.originalFileName = originalFileName;
         this.originalFileSize = originalFileSize;
         this.originalTimestamp = originalTimestamp;
         this.globalChecksum = globalChecksum;
-        this.chunks = new ArrayList<>();
+        this.chunks = chunks;
         this.chunkSizeBytes = chunkSizeBytes;
+        this.checksumAlgorithm = checksumAlgorithm;
     }
     
     public void addChunk(ChunkMetadata chunk) {
+        if (chunks instanceof ChunkIndex) {
+            throw new IllegalStateException("Cannot add a chunk to a header read from a mapped footer");
+        }
         chunks.add(chunk);
     }
     
+    /**
+     * A mapped chunk index is a view of a file, not serializable data:
+     * serialize a copy holding its chunks in a list.
+     */
+    private Object writeReplace() {
+        if (!(chunks instanceof ChunkIndex)) {
+            return this;
+        }
+        return new CompressionHeader(originalFileName, originalFileSize, originalTimestamp, globalChecksum,
+                                     chunkSizeBytes, checksumAlgorithm, new ArrayList<>(chunks));
+    }
+    
     public String getOriginalFileName() { return originalFileName; }
     public long getOriginalFileSize() { return originalFileSize; }
     public long getOriginalTimestamp() { return originalTimestamp; }
     public byte[] getGlobalChecksum() { return globalChecksum; }
     public List<ChunkMetadata> getChunks() { return chunks; }
     public int getChunkSizeBytes() { return chunkSizeBytes; }
+    public ChecksumAlgorithm getChecksumAlgorithm() { return checksumAlgorithm; }
     public int getNumChunks() { return chunks.size(); }
     
     /**
@@ -60,6 +118,7 @@ public class CompressionHeader implements Serializable {
         out.writeLong(originalFileSize);
         out.writeLong(originalTimestamp);
         out.writeInt(chunkSizeBytes);
+        out.writeByte(checksumAlgorithm.getId());
         
         // Global checksum
         out.write(globalChecksum);
@@ -67,57 +126,30 @@ public class CompressionHeader implements Serializable {
         // Chunk count
         out.writeInt(chunks.size());
         
-        // Write chunk metadata
-        for (ChunkMetadata chunk : chunks) {
-            out.writeInt(chunk.getChunkIndex());
-            out.writeLong(chunk.getOriginalOffset());
-            out.writeInt(chunk.getOriginalSize());
-            out.writeLong(chunk.getCompressedOffset());
-            out.writeInt(chunk.getCompressedSize());
-            out.write(chunk.getSha256Checksum());
-            
-            // Write code lengths (256 integers)
-            int[] codeLengths = chunk.getCodeLengths();
-            for (int len : codeLengths) {
-                out.writeShort(len);
-            }
-        }
+        // Fixed-width chunk records and their tables
+        ChunkIndex.write(out, chunks, chunkSizeBytes, originalFileSize);
     }
     
     /**
      * Read header from input stream.
      */
     public static CompressionHeader readFrom(DataInputStream in) throws IOException {
-        // Verify magic number and version
-        int magic = in.readInt();
-        if (magic != MAGIC_NUMBER) {
-            throw new IOException("Invalid file format: bad magic number");
-        }
-        
-        int version = in.readInt();
-        if (version != VERSION) {
-            throw new IOException("Unsupported version: " + version);
-        }
-        
-        // Read original file metadata
-        int nameLen = in.readInt();
-        byte[] nameBytes = new byte[nameLen];
-        in.readFully(nameBytes);
-        String fileName = new String(nameBytes, StandardCharsets.UTF_8);
-        
-        long fileSize = in.readLong();
-        long timestamp = in.readLong();
-        int chunkSize = in.readInt();
-        
-        // Read global checksum
-        byte[] globalChecksum = new byte[32]; // SHA-256
-        in.readFully(globalChecksum);
-        
-        CompressionHeader header = new CompressionHeader(
-            fileName, fileSize, timestamp, globalChecksum, chunkSize);
+        int version = readVersion(in);
+        CompressionHeader header = readFileInfo(in, version);
         
         // Read chunk metadata
         int numChunks = in.readInt();
+        if (version == VERSION) {
+            try {
+                header.chunks.addAll(ChunkIndex.read(in, numChunks, header.chunkSizeBytes,
+                                                     header.originalFileSize));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return header;
+        }
+        
+        // Variable-length chunk records (version 1)
         for (int i = 0; i < numChunks; i++) {
             int chunkIndex = in.readInt();
             long originalOffset = in.readLong();
@@ -142,5 +174,169 @@ public class CompressionHeader implements Serializable {
         
         return header;
     }
+    
+    /**
+     * Read the footer that fills {@code [footerStart, footerEnd)} of a file.
+     * A version 2 chunk index is mapped rather than read, and each chunk is
+     * decoded when it is looked up; version 1 footers are read whole.
+     */
+    public static CompressionHeader readFooter(FileChannel channel, long footerStart, long footerEnd)
+            throws IOException {
+        long footerSize = footerEnd - footerStart;
+        ByteBuffer start = ByteBuffer.allocate(3 * Integer.BYTES);
+        DczFile.readFully(channel, start, footerStart);
+        start.flip();
+        start.getInt();
+        int version = start.getInt();
+        int nameLen = start.getInt();
+        long prefixSize = 3L * Integer.BYTES + nameLen + 8 + 8 + 4 + 1 + 32 + 4;
+        
+        if (version != VERSION || nameLen < 0 || prefixSize > footerSize) {
+            if (footerSize > Integer.MAX_VALUE) {
+                throw new IOException("Footer too large: " + footerSize + " bytes");
+            }
+            ByteBuffer footer = ByteBuffer.allocate((int) footerSize);
+            DczFile.readFully(channel, footer, footerStart);
+            return readFrom(new DataInputStream(new ByteArrayInputStream(footer.array())));
+        }
+        
+        ByteBuffer prefix = ByteBuffer.allocate((int) prefixSize);
+        DczFile.readFully(channel, prefix, footerStart);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(prefix.array()));
+        readVersion(in);
+        CompressionHeader info = readFileInfo(in, version);
+        int numChunks = in.readInt();
+        ChunkIndex index = ChunkIndex.map(channel, footerStart + prefixSize, numChunks, footerEnd,
+                                          info.chunkSizeBytes, info.originalFileSize);
+        return new CompressionHeader(info.originalFileName, info.originalFileSize, info.originalTimestamp,
+                                     info.globalChecksum, info.chunkSizeBytes, info.checksumAlgorithm, index);
+    }
+    
+    private static int readVersion(DataInputStream in) throws IOException {
+        // Verify magic number and version
+        int magic = in.readInt();
+        if (magic != MAGIC_NUMBER) {
+            throw new IOException("Invalid file format: bad magic number");
+        }
+        
+        int version = in.readInt();
+        if (version != VERSION && version != VERSION_1) {
+            throw new IOException("Unsupported version: " + version);
+        }
+        return version;
+    }
+    
+    private static CompressionHeader readFileInfo(DataInputStream in, int version) throws IOException {
+        // Read original file metadata
+        int nameLen = in.readInt();
+        byte[] nameBytes = new byte[nameLen];
+        in.readFully(nameBytes);
+        String fileName = new String(nameBytes, StandardCharsets.UTF_8);
+        
+        long fileSize = in.readLong();
+        long timestamp = in.readLong();
+        int chunkSize = in.readInt();
+        ChecksumAlgorithm checksumAlgorithm = ChecksumAlgorithm.SHA256;
+        if (version == VERSION) {
+            int id = in.readUnsignedByte();
+            try {
+                checksumAlgorithm = ChecksumAlgorithm.fromId(id);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Invalid file format: " + e.getMessage());
+            }
+        }
+        
+        // Read global checksum
+        byte[] globalChecksum = new byte[32]; // SHA-256
+        in.readFully(globalChecksum);
+        
+        return new CompressionHeader(fileName, fileSize, timestamp, globalChecksum, chunkSize, checksumAlgorithm);
+    }
+    
+    /**
+     * Checkpoint interval, then each checkpoint's step from the previous one
+     * as its zigzag-encoded change from the step before.
+     */
+    static void writeCheckpoints(DataOutputStream out, ChunkMetadata chunk) throws IOException {
+        writeVarLong(out, chunk.getCheckpointInterval());
+        long previous = 0;
+        long previousStep = 0;
+        for (long bitOffset : chunk.getCheckpoints()) {
+            if (bitOffset < previous) {
+                throw new IOException("Checkpoints of chunk " + chunk.getChunkIndex() + " are not in order");
+            }
+            long step = bitOffset - previous;
+            long change = step - previousStep;
+            writeVarLong(out, (change << 1) ^ (change >> 63));
+            previous = bitOffset;
+            previousStep = step;
+        }
+    }
+    
+    /**
+     * Checkpoints following the interval written by {@link #writeCheckpoints}.
+     */
+    static long[] readCheckpointSteps(ByteSource in, int originalSize, int compressedSize, int interval)
+            throws IOException {
+        long[] checkpoints = new long[HuffmanEncoder.checkpointCount(originalSize, interval)];
+        long limit = 8L * compressedSize;
+        long bitOffset = 0;
+        long step = 0;
+        for (int j = 0; j < checkpoints.length; j++) {
+            long zigzag = readVarLong(in, Long.MAX_VALUE);
+            step += (zigzag >>> 1) ^ -(zigzag & 1);
+            if (step < 0 || step > limit - bitOffset) {
+                throw new IOException("Invalid file format: checkpoint " + j + " outside the chunk");
+            }
+            bitOffset += step;
+            checkpoints[j] = bitOffset;
+        }
+        return checkpoints;
+    }
+    
+    static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+    
+    static long readVarLong(ByteSource in, long max) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 63; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value > max) {
+                    throw new IOException("Invalid file format: value " + value + " exceeds " + max);
+                }
+                return value;
+            }
+        }
+        throw new IOException("Invalid file format: malformed varint");
+    }
+    
+    /**
+     * A stored chunk's payload is its original bytes and a constant chunk's
+     * is its fill byte, so their sizes are fixed.
+     */
+    static void checkPayloadSize(ChunkType chunkType, int originalSize, int compressedSize) throws IOException {
+        if (chunkType == ChunkType.STORED && compressedSize != originalSize) {
+            throw new IOException("Invalid file format: stored chunk of " + originalSize
+                + " bytes has a " + compressedSize + " byte payload");
+        }
+        if (chunkType == ChunkType.CONSTANT && compressedSize != 1) {
+            throw new IOException("Invalid file format: constant chunk has a " + compressedSize + " byte payload");
+        }
+    }
+    
+    static ChunkType readChunkType(int id) throws IOException {
+        try {
+            return ChunkType.fromId(id);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid file format: " + e.getMessage());
+        }
+    }
 }
 
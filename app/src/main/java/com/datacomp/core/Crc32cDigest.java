@@ -0,0 +1,51 @@
+package com.datacomp.core;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.zip.CRC32C;
+
+/**
+ * {@link CRC32C} behind the {@link MessageDigest} interface, so it can
+ * stand in for SHA-256 wherever a chunk is digested. The digest is the
+ * 4-byte CRC, big-endian.
+ */
+final class Crc32cDigest extends MessageDigest {
+
+    private final CRC32C crc = new CRC32C();
+
+    Crc32cDigest() {
+        super("CRC32C");
+    }
+
+    @Override
+    protected int engineGetDigestLength() {
+        return Integer.BYTES;
+    }
+
+    @Override
+    protected void engineUpdate(byte input) {
+        crc.update(input);
+    }
+
+    @Override
+    protected void engineUpdate(byte[] input, int offset, int length) {
+        crc.update(input, offset, length);
+    }
+
+    @Override
+    protected void engineUpdate(ByteBuffer input) {
+        crc.update(input);
+    }
+
+    @Override
+    protected byte[] engineDigest() {
+        byte[] digest = ByteBuffer.allocate(Integer.BYTES).putInt((int) crc.getValue()).array();
+        crc.reset();
+        return digest;
+    }
+
+    @Override
+    protected void engineReset() {
+        crc.reset();
+    }
+}
@@ -0,0 +1,181 @@
+package com.datacomp.core;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Open handle on a compressed (.dcz) file.
+ *
+ * The chunk table is read once, when the file is opened, and reused for
+ * every lookup and chunk read afterwards, so callers that extract many
+ * ranges from one file pay for the footer only once. Both layouts are
+ * understood: footer-last (data from offset 0, footer located through the
+ * pointer in the last 8 bytes) and the legacy header-first layout.
+ * A version 2 footer's chunk index is memory-mapped rather than
+ * parsed (see {@link ChunkIndex}), so opening a file with a million chunks
+ * to read one range touches only the records the lookup visits.
+ * Chunk reads are positional, so one handle can serve several threads.
+ */
+public final class DczFile implements Closeable {
+
+    private final Path path;
+    private final FileChannel channel;
+    private final CompressionHeader header;
+    private final long dataStart;
+    private final boolean footerFormat;
+    private final ChunkIndex chunkIndex;  // Mapped index of a version 2 footer, else null
+    private final long[] chunkStarts;     // Original offset of every parsed chunk, for binary search
+
+    private DczFile(Path path, FileChannel channel, CompressionHeader header, long dataStart,
+                    boolean footerFormat) {
+        this.path = path;
+        this.channel = channel;
+        this.header = header;
+        this.dataStart = dataStart;
+        this.footerFormat = footerFormat;
+
+        List<ChunkMetadata> chunks = header.getChunks();
+        if (chunks instanceof ChunkIndex index) {
+            this.chunkIndex = index;
+            this.chunkStarts = null;
+        } else {
+            this.chunkIndex = null;
+            this.chunkStarts = new long[chunks.size()];
+            for (int i = 0; i < chunkStarts.length; i++) {
+                chunkStarts[i] = chunks.get(i).getOriginalOffset();
+            }
+        }
+    }
+
+    /**
+     * Open a compressed file and read its chunk table.
+     */
+    public static DczFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long fileSize = channel.size();
+
+            // Legacy header-first layout: data follows the header and fills the rest of the file
+            try {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    Channels.newInputStream(channel.position(0)), 64 * 1024));
+                CompressionHeader header = CompressionHeader.readFrom(in);
+                long compressedBytes = 0;
+                for (ChunkMetadata chunk : header.getChunks()) {
+                    compressedBytes += chunk.getCompressedSize();
+                }
+                return new DczFile(path, channel, header, fileSize - compressedBytes, false);
+            } catch (IOException | RuntimeException e) {
+                // Not header-first; fall through to the footer pointer
+            }
+
+            if (fileSize < Long.BYTES) {
+                throw new IOException("Not a compressed file (too short): " + path);
+            }
+            ByteBuffer pointer = ByteBuffer.allocate(Long.BYTES);
+            readFully(channel, pointer, fileSize - Long.BYTES);
+            long footerStart = pointer.flip().getLong();
+            if (footerStart < 0 || footerStart >= fileSize - Long.BYTES) {
+                throw new IOException("Invalid footer position: " + footerStart);
+            }
+
+            CompressionHeader header = CompressionHeader.readFooter(channel, footerStart, fileSize - Long.BYTES);
+            return new DczFile(path, channel, header, 0, true);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Path getPath() { return path; }
+    public CompressionHeader getHeader() { return header; }
+    public List<ChunkMetadata> getChunks() { return header.getChunks(); }
+    public long getOriginalSize() { return header.getOriginalFileSize(); }
+
+    /** Position of compressed chunk offset 0 in the file. */
+    public long getDataStart() { return dataStart; }
+
+    /** True for the footer-last layout, false for legacy header-first files. */
+    public boolean isFooterFormat() { return footerFormat; }
+
+    /** Channel for positional reads; closed with this handle. */
+    public FileChannel getChannel() { return channel; }
+
+    /**
+     * Index of the chunk holding original byte {@code position}.
+     */
+    public int chunkIndexAt(long position) {
+        if (position < 0 || position >= getOriginalSize()) {
+            throw new IndexOutOfBoundsException("Position " + position + " outside file of "
+                + getOriginalSize() + " bytes");
+        }
+        if (chunkIndex != null) {
+            return chunkIndex.chunkIndexAt(position);
+        }
+        int index = Arrays.binarySearch(chunkStarts, position);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * Read a chunk's compressed bytes into {@code buffer} (at least
+     * {@link ChunkMetadata#getCompressedSize()} long) with positional reads.
+     */
+    public void readChunk(ChunkMetadata chunk, byte[] buffer) throws IOException {
+        ByteBuffer target = ByteBuffer.wrap(buffer, 0, chunk.getCompressedSize());
+        try {
+            readFully(channel, target, dataStart + chunk.getCompressedOffset());
+        } catch (EOFException e) {
+            throw new EOFException("Compressed file truncated in chunk " + chunk.getChunkIndex());
+        }
+    }
+
+    /**
+     * Map a chunk's compressed bytes read-only, for instance to checksum a
+     * {@link ChunkType#STORED} chunk without copying it to the heap.
+     */
+    public ByteBuffer mapChunk(ChunkMetadata chunk) throws IOException {
+        long start = dataStart + chunk.getCompressedOffset();
+        if (start + chunk.getCompressedSize() > channel.size()) {
+            throw new EOFException("Compressed file truncated in chunk " + chunk.getChunkIndex());
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, chunk.getCompressedSize());
+    }
+
+    /**
+     * Copy a chunk's compressed bytes to {@code target}, at its current
+     * position, with {@link FileChannel#transferTo} (no copy through the
+     * heap; a {@link ChunkType#STORED} chunk is its own original data).
+     */
+    public void transferChunk(ChunkMetadata chunk, WritableByteChannel target) throws IOException {
+        long start = dataStart + chunk.getCompressedOffset();
+        long done = 0;
+        while (done < chunk.getCompressedSize()) {
+            long moved = channel.transferTo(start + done, chunk.getCompressedSize() - done, target);
+            if (moved <= 0) {
+                throw new EOFException("Compressed file truncated in chunk " + chunk.getChunkIndex());
+            }
+            done += moved;
+        }
+    }
+
+    static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int start = buffer.position();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position() - start) == -1) {
+                throw new EOFException("Unexpected end of file at " + (position + buffer.position() - start));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,550 @@
+package com.datacomp.core;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
+
+/**
+ * Word-at-a-time canonical Huffman encoder.
+ *
+ * Algorithm:
+ * 1. Pack every codeword and its length into one primitive table entry
+ * 2. Append codewords to a 64-bit accumulator
+ * 3. Flush whole 32-bit words (big-endian) whenever 32 or more bits are pending
+ * 4. Flush the remaining bits MSB-first and zero-pad the last byte
+ *
+ * The produced bitstream is identical to writing each codeword bit by bit
+ * (MSB-first), so files stay readable by every existing decoder.
+ */
+public class HuffmanEncoder {
+
+    /** Longest codeword the accumulator can take (codewords are stored in an int). */
+    public static final int MAX_CODE_LENGTH = 32;
+
+    private static final VarHandle INT_BE =
+        MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    private final long[] packedCodes;
+
+    public HuffmanEncoder(HuffmanCode[] codes) {
+        this.packedCodes = packCodes(codes);
+    }
+
+    /**
+     * Pack codes into a primitive table indexed by symbol.
+     * Each entry is {@code (codeword << 8) | codeLength}; absent symbols are 0.
+     */
+    public static long[] packCodes(HuffmanCode[] codes) {
+        long[] packed = new long[256];
+        for (int symbol = 0; symbol < 256; symbol++) {
+            HuffmanCode code = codes[symbol];
+            if (code == null) continue;
+
+            int len = code.getCodeLength();
+            if (len > MAX_CODE_LENGTH) {
+                throw new IllegalArgumentException(
+                    "Code length " + len + " for symbol " + symbol + " exceeds " + MAX_CODE_LENGTH + " bits");
+            }
+            packed[symbol] = ((code.getCodeword() & 0xFFFFFFFFL) << 8) | len;
+        }
+        return packed;
+    }
+
+    /**
+     * Get the packed codeword/length table (for kernels that take primitive arrays).
+     */
+    public long[] getPackedCodes() {
+        return packedCodes;
+    }
+
+    /**
+     * Exact size of the encoded stream in bits: sum of frequency × code length.
+     */
+    public long computeEncodedBits(long[] frequencies) {
+        long bits = 0;
+        for (int i = 0; i < 256; i++) {
+            bits += frequencies[i] * (packedCodes[i] & 0xFF);
+        }
+        return bits;
+    }
+
+    /**
+     * Exact size of the encoded stream in bits, computed from the data itself.
+     */
+    public long computeEncodedBits(byte[] data, int offset, int length) {
+        long bits = 0;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            bits += packedCodes[data[i] & 0xFF] & 0xFF;
+        }
+        return bits;
+    }
+
+    /**
+     * Encode data into a new array of exactly {@code (encodedBits + 7) / 8} bytes.
+     *
+     * @param encodedBits Size from {@link #computeEncodedBits(long[])}
+     */
+    public byte[] encode(byte[] data, int offset, int length, long encodedBits) {
+        byte[] output = new byte[maxEncodedBytes(encodedBits, 1)];
+        encode(data, offset, length, output, 0);
+        return output;
+    }
+
+    /**
+     * Encode buffer contents (absolute indices) into a new array of exactly
+     * {@code (encodedBits + 7) / 8} bytes. Direct and mapped buffers are read
+     * in place, without copying into a byte array first.
+     */
+    public byte[] encode(ByteBuffer data, int offset, int length, long encodedBits) {
+        byte[] output = new byte[maxEncodedBytes(encodedBits, 1)];
+        encode(data, offset, length, output, 0);
+        return output;
+    }
+
+    /**
+     * Encode data into a new exactly-sized array (sizes the output with an extra pass).
+     */
+    public byte[] encode(byte[] data, int offset, int length) {
+        return encode(data, offset, length, computeEncodedBits(data, offset, length));
+    }
+
+    /**
+     * Encode data as {@code streamCount} independent bitstreams (the
+     * {@link ChunkType#MULTI_STREAM} layout): the data is split into segments of
+     * {@link #streamSegmentSize} bytes (the last one takes the remainder), and the
+     * output holds the byte size of every stream but the last as a big-endian
+     * int, followed by the streams.
+     *
+     * @param encodedBits Total size from {@link #computeEncodedBits(long[])}
+     */
+    public byte[] encodeStreams(byte[] data, int offset, int length, int streamCount, long encodedBits) {
+        byte[] output = new byte[maxEncodedBytes(encodedBits, streamCount)];
+        int written = encodeStreams(length, streamCount, output,
+            (start, segmentLength, out, outputOffset) ->
+                encode(data, offset + start, segmentLength, out, outputOffset));
+        return written == output.length ? output : Arrays.copyOf(output, written);
+    }
+
+    /**
+     * Multi-stream encoding of buffer contents (absolute indices), read in place.
+     *
+     * @see #encodeStreams(byte[], int, int, int, long)
+     */
+    public byte[] encodeStreams(ByteBuffer data, int offset, int length, int streamCount, long encodedBits) {
+        byte[] output = new byte[maxEncodedBytes(encodedBits, streamCount)];
+        int written = encodeStreams(data, offset, length, streamCount, output);
+        return written == output.length ? output : Arrays.copyOf(output, written);
+    }
+
+    /**
+     * Multi-stream encoding of buffer contents into a caller-provided array,
+     * such as a pooled buffer, of at least {@link #maxEncodedBytes} bytes.
+     *
+     * @return Number of bytes written
+     */
+    public int encodeStreams(ByteBuffer data, int offset, int length, int streamCount, byte[] output) {
+        return encodeStreams(data, offset, length, streamCount, output, 0, null);
+    }
+
+    /**
+     * Multi-stream encoding that also records checkpoints (see
+     * {@link #encode(ByteBuffer, int, int, byte[], int, long[])}); a
+     * checkpoint's bit offset points into the stream holding its symbol.
+     *
+     * @return Number of bytes written
+     */
+    public int encodeStreams(ByteBuffer data, int offset, int length, int streamCount, byte[] output,
+                             int checkpointInterval, long[] checkpoints) {
+        return encodeStreams(length, streamCount, output,
+            (start, segmentLength, out, outputOffset) -> {
+                long[] state = new long[2];
+                int pos = encodeCheckpointed(data, offset, start, segmentLength, out, outputOffset, state,
+                                             checkpointInterval, checkpoints);
+                return flush(state[0], (int) state[1], out, pos) - outputOffset;
+            });
+    }
+
+    /**
+     * Upper bound on the encoded size in bytes: exact for a single stream;
+     * with several streams each one pads at most one partial byte, and the
+     * jump table is added.
+     *
+     * @param encodedBits Total size from {@link #computeEncodedBits(long[])}
+     * @param streamCount Number of streams (1 for the plain layout)
+     */
+    public static int maxEncodedBytes(long encodedBits, int streamCount) {
+        long maxBytes = ((encodedBits + 7) >>> 3);
+        if (streamCount > 1) {
+            maxBytes += 4L * (streamCount - 1) + streamCount - 1;
+        }
+        if (maxBytes > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Encoded chunk too large: " + maxBytes + " bytes");
+        }
+        return (int) maxBytes;
+    }
+
+    /**
+     * Encodes one segment of the input into the output; returns bytes written.
+     */
+    private interface SegmentEncoder {
+        int encode(int start, int length, byte[] output, int outputOffset);
+    }
+
+    private int encodeStreams(int length, int streamCount, byte[] output, SegmentEncoder segments) {
+        if (streamCount < 2) {
+            throw new IllegalArgumentException("Multi-stream encoding needs at least 2 streams: " + streamCount);
+        }
+
+        int jumpTableSize = 4 * (streamCount - 1);
+        int segmentSize = streamSegmentSize(length, streamCount);
+        int pos = jumpTableSize;
+        for (int stream = 0; stream < streamCount; stream++) {
+            int segmentStart = Math.min(length, stream * segmentSize);
+            int segmentEnd = stream == streamCount - 1 ? length : Math.min(length, segmentStart + segmentSize);
+            int written = segments.encode(segmentStart, segmentEnd - segmentStart, output, pos);
+            if (stream < streamCount - 1) {
+                INT_BE.set(output, 4 * stream, written);
+            }
+            pos += written;
+        }
+        return pos;
+    }
+
+    /**
+     * Number of input bytes per stream segment in the multi-stream layout.
+     */
+    public static int streamSegmentSize(int length, int streamCount) {
+        return (int) (((long) length + streamCount - 1) / streamCount);
+    }
+
+    /**
+     * Number of checkpoints in a chunk of {@code length} bytes: one at every
+     * nonzero multiple of {@code interval} inside the chunk (position 0
+     * always starts the payload's first stream). An interval of 0 means none.
+     */
+    public static int checkpointCount(int length, int interval) {
+        return interval > 0 && length > 0 ? (length - 1) / interval : 0;
+    }
+
+    /**
+     * Encode data into a caller-provided buffer.
+     * The buffer must have room for the whole encoded stream.
+     *
+     * @return Number of bytes written
+     */
+    public int encode(byte[] data, int offset, int length, byte[] output, int outputOffset) {
+        long[] state = new long[2];
+        int pos = encodeWords(data, offset, length, output, outputOffset, state);
+        return flush(state[0], (int) state[1], output, pos) - outputOffset;
+    }
+
+    /**
+     * Encode buffer contents (absolute indices) into a caller-provided array.
+     * Heap buffers use the array path; direct and mapped buffers are read in
+     * place a long at a time.
+     *
+     * @return Number of bytes written
+     */
+    public int encode(ByteBuffer data, int offset, int length, byte[] output, int outputOffset) {
+        long[] state = new long[2];
+        int pos = encodeWords(data, offset, length, output, outputOffset, state);
+        return flush(state[0], (int) state[1], output, pos) - outputOffset;
+    }
+
+    /**
+     * Single-stream encoding that also records checkpoints: entry j - 1 of
+     * {@code checkpoints} receives the bit offset, counted from output index
+     * 0, of the codeword for input byte j × {@code checkpointInterval}, so a
+     * decoder can start there. The output is written from index 0 and is
+     * identical to {@link #encode(ByteBuffer, int, int, byte[], int)}.
+     *
+     * @param checkpoints At least {@link #checkpointCount} entries (unused if the interval is 0)
+     * @return Number of bytes written
+     */
+    public int encode(ByteBuffer data, int offset, int length, byte[] output,
+                      int checkpointInterval, long[] checkpoints) {
+        long[] state = new long[2];
+        int pos = encodeCheckpointed(data, offset, 0, length, output, 0, state, checkpointInterval, checkpoints);
+        return flush(state[0], (int) state[1], output, pos);
+    }
+
+    /**
+     * Encode chunk bytes {@code [start, start + length)} (read at
+     * {@code offset + start}) through {@link #encodeWords}, pausing at every
+     * multiple of {@code interval} to record the bit position reached there.
+     *
+     * @return Output position after the last word written
+     */
+    private int encodeCheckpointed(ByteBuffer data, int offset, int start, int length, byte[] output, int pos,
+                                   long[] state, int interval, long[] checkpoints) {
+        if (interval <= 0) {
+            return encodeWords(data, offset + start, length, output, pos, state);
+        }
+        int end = start + length;
+        long next = Math.max(interval, ((long) start + interval - 1) / interval * interval);
+        for (int i = start; i < end; ) {
+            if (i == next) {
+                checkpoints[(int) (next / interval) - 1] = 8L * pos + state[1];
+                next += interval;
+            }
+            int stop = (int) Math.min(end, next);
+            pos = encodeWords(data, offset + i, stop - i, output, pos, state);
+            i = stop;
+        }
+        return pos;
+    }
+
+    /**
+     * Core loop: append codewords to the bits carried in {@code state} as
+     * (accumulator, count) and write every completed 32-bit word at
+     * {@code pos}. The bits not yet written are left in {@code state}, so a
+     * later call resumes exactly where this one stopped; a fresh state of
+     * (0, n) starts n zero bits into the byte at {@code pos}.
+     *
+     * @return Output position after the last word written
+     */
+    private int encodeWords(byte[] data, int offset, int length, byte[] output, int pos, long[] state) {
+        final long[] table = packedCodes;
+        final int end = offset + length;
+
+        long acc = state[0];         // Pending bits, right-aligned
+        int bits = (int) state[1];   // Number of pending bits (always < 32 between symbols)
+
+        for (int i = offset; i < end; i++) {
+            long entry = table[data[i] & 0xFF];
+            int len = (int) entry & 0xFF;
+            acc = (acc << len) | (entry >>> 8);
+            bits += len;
+
+            if (bits >= 32) {
+                bits -= 32;
+                INT_BE.set(output, pos, (int) (acc >>> bits));
+                pos += 4;
+            }
+        }
+
+        state[0] = acc;
+        state[1] = bits;
+        return pos;
+    }
+
+    private int encodeWords(ByteBuffer data, int offset, int length, byte[] output, int pos, long[] state) {
+        if (data.hasArray()) {
+            return encodeWords(data.array(), data.arrayOffset() + offset, length, output, pos, state);
+        }
+
+        final long[] table = packedCodes;
+        final ByteBuffer input = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        final int end = offset + length;
+
+        long acc = state[0];
+        int bits = (int) state[1];
+        int i = offset;
+
+        for (; i <= end - 8; i += 8) {
+            long word = input.getLong(i);
+            // Little-endian: the first byte in memory is the lowest
+            for (int shift = 0; shift < 64; shift += 8) {
+                long entry = table[(int) (word >>> shift) & 0xFF];
+                int len = (int) entry & 0xFF;
+                acc = (acc << len) | (entry >>> 8);
+                bits += len;
+
+                if (bits >= 32) {
+                    bits -= 32;
+                    INT_BE.set(output, pos, (int) (acc >>> bits));
+                    pos += 4;
+                }
+            }
+        }
+        for (; i < end; i++) {
+            long entry = table[input.get(i) & 0xFF];
+            int len = (int) entry & 0xFF;
+            acc = (acc << len) | (entry >>> 8);
+            bits += len;
+
+            if (bits >= 32) {
+                bits -= 32;
+                INT_BE.set(output, pos, (int) (acc >>> bits));
+                pos += 4;
+            }
+        }
+
+        state[0] = acc;
+        state[1] = bits;
+        return pos;
+    }
+
+    /**
+     * Intra-chunk parallel encoding, byte-identical to
+     * {@link #encode(ByteBuffer, int, int, byte[], int)} when
+     * {@code streamCount} is 1 and to
+     * {@link #encodeStreams(ByteBuffer, int, int, int, byte[])} otherwise.
+     *
+     * Every stream is cut into segments of {@code segmentSize} input bytes.
+     * The segments' encoded bit lengths are summed in parallel, a prefix sum
+     * gives each one its final bit position, and the segments are then
+     * encoded in parallel straight into place. A segment leaves the byte it
+     * shares with the next one untouched and hands over its partial bits,
+     * which are OR-ed in afterwards; that stitch is the only serial step.
+     *
+     * @param output At least {@link #maxEncodedBytes} bytes; written from index 0
+     * @param pool Pool that runs the segment tasks
+     * @param segmentSize Input bytes per segment (at least 8)
+     * @return Number of bytes written
+     */
+    public int encodeParallel(ByteBuffer data, int offset, int length, int streamCount, byte[] output,
+                              ForkJoinPool pool, int segmentSize) {
+        return encodeParallel(data, offset, length, streamCount, output, pool, segmentSize, 0, null);
+    }
+
+    /**
+     * Intra-chunk parallel encoding that also records checkpoints, exactly as
+     * the sequential encoders do; each segment records the ones it contains.
+     *
+     * @see #encodeParallel(ByteBuffer, int, int, int, byte[], ForkJoinPool, int)
+     */
+    public int encodeParallel(ByteBuffer data, int offset, int length, int streamCount, byte[] output,
+                              ForkJoinPool pool, int segmentSize, int checkpointInterval, long[] checkpoints) {
+        if (streamCount < 1) {
+            throw new IllegalArgumentException("Stream count must be at least 1: " + streamCount);
+        }
+        if (segmentSize < 8) {
+            throw new IllegalArgumentException("Segment size must be at least 8 bytes: " + segmentSize);
+        }
+
+        // Segments in output order, never crossing a stream boundary
+        int streamSize = streamCount > 1 ? streamSegmentSize(length, streamCount) : length;
+        List<int[]> layout = new ArrayList<>();  // {stream, start, length}
+        for (int stream = 0; stream < streamCount; stream++) {
+            int streamStart = Math.min(length, stream * streamSize);
+            int streamEnd = stream == streamCount - 1 ? length : Math.min(length, streamStart + streamSize);
+            for (int start = streamStart; start < streamEnd; start += segmentSize) {
+                layout.add(new int[] {stream, start, Math.min(segmentSize, streamEnd - start)});
+            }
+        }
+        int segments = layout.size();
+
+        // Phase 1: encoded size of every segment from the shared codebook
+        long[] segmentBits = new long[segments];
+        forEach(pool, segments, segment -> {
+            int[] s = layout.get(segment);
+            segmentBits[segment] = computeEncodedBits(data, offset + s[1], s[2]);
+        });
+
+        // Prefix sum: each segment's absolute bit position; streams start on a byte
+        int jumpTableSize = streamCount > 1 ? 4 * (streamCount - 1) : 0;
+        long[] bitPositions = new long[segments];
+        boolean[] lastInStream = new boolean[segments];
+        long streamBytePos = jumpTableSize;
+        int segment = 0;
+        for (int stream = 0; stream < streamCount; stream++) {
+            long bitPos = streamBytePos * 8;
+            for (; segment < segments && layout.get(segment)[0] == stream; segment++) {
+                if (segment + 1 < segments && layout.get(segment + 1)[0] == stream && segmentBits[segment] < 8) {
+                    // Codes shorter than a bit per byte on average cannot happen for valid
+                    // Huffman codes, but the stitch relies on it; stay sequential if it does
+                    return streamCount > 1
+                        ? encodeStreams(data, offset, length, streamCount, output, checkpointInterval, checkpoints)
+                        : encode(data, offset, length, output, checkpointInterval, checkpoints);
+                }
+                bitPositions[segment] = bitPos;
+                bitPos += segmentBits[segment];
+            }
+            if (segment > 0 && layout.get(segment - 1)[0] == stream) {
+                lastInStream[segment - 1] = true;
+            }
+            long streamBytes = (bitPos + 7) / 8 - streamBytePos;
+            if (stream < streamCount - 1) {
+                INT_BE.set(output, 4 * stream, (int) streamBytes);
+            }
+            streamBytePos += streamBytes;
+        }
+        if (streamBytePos > output.length) {
+            throw new IllegalArgumentException("Output too small: " + output.length + " < " + streamBytePos);
+        }
+
+        // Phase 2: encode every segment in place, holding back shared partial bytes
+        byte[] carry = new byte[segments];
+        forEach(pool, segments, index -> {
+            int[] s = layout.get(index);
+            long bitPos = bitPositions[index];
+            long[] state = {0, bitPos & 7};
+            int pos = encodeCheckpointed(data, offset, s[1], s[2], output, (int) (bitPos >>> 3), state,
+                                         checkpointInterval, checkpoints);
+            long acc = state[0];
+            int bits = (int) state[1];
+            while (bits >= 8) {
+                bits -= 8;
+                output[pos++] = (byte) (acc >>> bits);
+            }
+            if (bits > 0) {
+                byte partial = (byte) (acc << (8 - bits));
+                if (lastInStream[index]) {
+                    output[pos] = partial;
+                } else {
+                    carry[index] = partial;
+                }
+            }
+        });
+
+        // Stitch: the next segment wrote zeros into the shared byte's leading bits
+        for (int index = 0; index < segments; index++) {
+            if (!lastInStream[index] && carry[index] != 0) {
+                output[(int) (bitPositions[index + 1] >>> 3)] |= carry[index];
+            }
+        }
+        return (int) streamBytePos;
+    }
+
+    /**
+     * Exact size of the encoded stream in bits for buffer contents (absolute indices).
+     */
+    public long computeEncodedBits(ByteBuffer data, int offset, int length) {
+        if (data.hasArray()) {
+            return computeEncodedBits(data.array(), data.arrayOffset() + offset, length);
+        }
+        long bits = 0;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            bits += packedCodes[data.get(i) & 0xFF] & 0xFF;
+        }
+        return bits;
+    }
+
+    /**
+     * Run {@code action} for indices {@code 0 .. count-1} as tasks on the pool and wait for all.
+     */
+    private static void forEach(ForkJoinPool pool, int count, IntConsumer action) {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final int index = i;
+            tasks.add(ForkJoinTask.adapt(() -> action.accept(index)));
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> { ForkJoinTask.invokeAll(tasks); }));
+    }
+
+    /**
+     * Flush remaining whole bytes, then the zero-padded partial byte.
+     *
+     * @return Output position after the flush
+     */
+    private static int flush(long acc, int bits, byte[] output, int pos) {
+        while (bits >= 8) {
+            bits -= 8;
+            output[pos++] = (byte) (acc >>> bits);
+        }
+        if (bits > 0) {
+            output[pos++] = (byte) (acc << (8 - bits));
+        }
+        return pos;
+    }
+}
@@ -0,0 +1,150 @@
+package com.datacomp.core;
+
+import java.util.Arrays;
+
+/**
+ * Allocation-free Huffman code length builder.
+ *
+ * Algorithm (Moffat & Katajainen, in-place minimum-redundancy codes):
+ * 1. Sort the non-zero symbols by (frequency, symbol) into a scratch array
+ * 2. Combine the two cheapest items left to right; internal nodes reuse the
+ *    slots of consumed items and store their parent index
+ * 3. Replace parent indices by node depths (top-down)
+ * 4. Convert internal node depths into leaf depths
+ *
+ * All work happens in two 256-entry scratch arrays owned by the builder, so a
+ * builder reused across chunks allocates nothing. Not thread-safe; use one
+ * instance per thread.
+ */
+public final class HuffmanLengthBuilder {
+
+    private static final int ALPHABET_SIZE = 256;
+
+    /** Largest frequency that can be packed with its symbol into one sort key. */
+    private static final long MAX_PACKED_FREQUENCY = (1L << 55) - 1;
+
+    private final long[] work = new long[ALPHABET_SIZE];
+    private final int[] sortedSymbols = new int[ALPHABET_SIZE];
+
+    /**
+     * Compute optimal (unrestricted) code lengths.
+     *
+     * @param frequencies Frequency count for each byte value (0-255)
+     * @param codeLengths Output: code length per symbol, 0 for absent symbols
+     * @return Longest code length
+     */
+    public int build(long[] frequencies, int[] codeLengths) {
+        Arrays.fill(codeLengths, 0);
+        int n = sortSymbols(frequencies);
+
+        if (n == 0) {
+            return 0;
+        }
+        if (n == 1) {
+            // Single symbol: use 1-bit code
+            codeLengths[sortedSymbols[0]] = 1;
+            return 1;
+        }
+
+        final long[] a = work;
+
+        // Phase 1: build the tree; a[i] becomes the parent index of internal node i
+        int root = 0;
+        int leaf = 2;
+        a[0] += a[1];
+        for (int next = 1; next < n - 1; next++) {
+            // First child: ties prefer the internal node, like the PriorityQueue builder
+            if (leaf >= n || a[root] <= a[leaf]) {
+                a[next] = a[root];
+                a[root++] = next;
+            } else {
+                a[next] = a[leaf++];
+            }
+
+            // Second child
+            if (leaf >= n || (root < next && a[root] <= a[leaf])) {
+                a[next] += a[root];
+                a[root++] = next;
+            } else {
+                a[next] += a[leaf++];
+            }
+        }
+
+        // Phase 2: parent indices to internal node depths
+        a[n - 2] = 0;
+        for (int next = n - 3; next >= 0; next--) {
+            a[next] = a[(int) a[next]] + 1;
+        }
+
+        // Phase 3: internal node depths to leaf depths (heaviest symbol last)
+        int available = 1;
+        int used = 0;
+        int depth = 0;
+        root = n - 2;
+        int next = n - 1;
+        while (available > 0) {
+            while (root >= 0 && a[root] == depth) {
+                used++;
+                root--;
+            }
+            while (available > used) {
+                a[next--] = depth;
+                available--;
+            }
+            available = 2 * used;
+            depth++;
+            used = 0;
+        }
+
+        for (int i = 0; i < n; i++) {
+            codeLengths[sortedSymbols[i]] = (int) a[i];
+        }
+        return (int) a[0];
+    }
+
+    /**
+     * Sort non-zero symbols by (frequency, symbol) into sortedSymbols/work.
+     *
+     * @return Number of non-zero symbols
+     */
+    private int sortSymbols(long[] frequencies) {
+        int n = 0;
+        boolean packable = true;
+        for (int symbol = 0; symbol < ALPHABET_SIZE; symbol++) {
+            long freq = frequencies[symbol];
+            if (freq > 0) {
+                packable &= freq <= MAX_PACKED_FREQUENCY;
+                sortedSymbols[n++] = symbol;
+            }
+        }
+
+        if (packable) {
+            // Primitive sort of (frequency << 8 | symbol) keys
+            for (int i = 0; i < n; i++) {
+                int symbol = sortedSymbols[i];
+                work[i] = (frequencies[symbol] << 8) | symbol;
+            }
+            Arrays.sort(work, 0, n);
+            for (int i = 0; i < n; i++) {
+                sortedSymbols[i] = (int) (work[i] & 0xFF);
+                work[i] >>>= 8;
+            }
+        } else {
+            // Huge frequencies: insertion sort on symbols (symbols already ascending)
+            for (int i = 1; i < n; i++) {
+                int symbol = sortedSymbols[i];
+                long freq = frequencies[symbol];
+                int j = i - 1;
+                while (j >= 0 && frequencies[sortedSymbols[j]] > freq) {
+                    sortedSymbols[j + 1] = sortedSymbols[j];
+                    j--;
+                }
+                sortedSymbols[j + 1] = symbol;
+            }
+            for (int i = 0; i < n; i++) {
+                work[i] = frequencies[sortedSymbols[i]];
+            }
+        }
+        return n;
+    }
+}
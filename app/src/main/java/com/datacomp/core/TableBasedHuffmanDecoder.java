@@ -1,42 +1,60 @@
 package com.datacomp.core;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 /**
  * Fast table-based Huffman decoder using lookup tables instead of tree traversal.
  * This is 2-3× faster than bit-by-bit tree walking and GPU-friendly.
- * 
+ *
  * Algorithm:
  * 1. Build a lookup table for all possible N-bit prefixes
  * 2. Read N bits from stream
  * 3. Lookup table returns: [symbol, codeLength]
  * 4. Advance by codeLength bits
  * 5. Repeat
+ *
+ * The table is a flat int[] (no per-entry objects) and bits come from a
+ * left-aligned 64-bit buffer refilled 8 bytes at a time, so a single refill
+ * serves several symbols.
+ *
+ * Destinations without a backing array (direct or mapped buffers) are
+ * decoded through a small per-thread tile: each stream is decoded a tile at
+ * a time, resuming at the bit where the previous tile stopped, and the tile
+ * is bulk-copied into the destination while it is still in cache.
  */
 public class TableBasedHuffmanDecoder {
-    
-    private static final int TABLE_BITS = 10; // 1024-entry lookup table
-    private static final int TABLE_SIZE = 1 << TABLE_BITS;
-    
-    private final LookupEntry[] lookupTable;
-    private final CanonicalHuffman.HuffmanDecoder fallbackDecoder; // For codes > TABLE_BITS
-    private final int maxCodeLength;
-    
+
+    public static final int TABLE_BITS = 10; // 1024-entry lookup table
+    public static final int TABLE_SIZE = 1 << TABLE_BITS;
+
+    /** Entry value for prefixes that belong to codes longer than TABLE_BITS. */
+    public static final int LONG_CODE = 0;
+
+    /** Symbols decoded per stream and tile when the destination is a buffer. */
+    static final int TILE_SYMBOLS = 16 * 1024;
+
+    private static final ThreadLocal<byte[]> TILE = ThreadLocal.withInitial(() -> new byte[4 * TILE_SYMBOLS]);
+
+    private static final VarHandle LONG_BE =
+        MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT_BE =
+        MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
     /**
-     * Lookup table entry: pre-decoded symbol and its code length.
+     * Packed entries: {@code (symbol << 8) | codeLength}, or {@link #LONG_CODE}.
+     * A valid entry is never 0 because every code length is at least 1.
      */
-    public static class LookupEntry {
-        public final int symbol;      // Decoded symbol (0-255), or -1 for "use fallback"
-        public final int codeLength;  // How many bits this symbol uses
-        
-        public LookupEntry(int symbol, int codeLength) {
-            this.symbol = symbol;
-            this.codeLength = codeLength;
-        }
-    }
-    
+    private final int[] lookupTable;
+    private final CanonicalHuffman.HuffmanDecoder fallbackDecoder; // For codes > TABLE_BITS
+    private final int maxCodeLength;
+
     public TableBasedHuffmanDecoder(HuffmanCode[] codes) {
-        this.lookupTable = new LookupEntry[TABLE_SIZE];
+        this.lookupTable = new int[TABLE_SIZE];
         this.fallbackDecoder = new CanonicalHuffman.HuffmanDecoder(codes);
-        
+
         // Find max code length
         int maxLen = 0;
         for (HuffmanCode code : codes) {
@@ -44,190 +62,462 @@ public class TableBasedHuffmanDecoder {
                 maxLen = code.getCodeLength();
             }
         }
-        this.maxCodeLength = maxLen;
-        
+        if (maxLen > HuffmanEncoder.MAX_CODE_LENGTH) {
+            throw new IllegalArgumentException("Code length " + maxLen + " exceeds "
+                + HuffmanEncoder.MAX_CODE_LENGTH + " bits");
+        }
+        this.maxCodeLength = Math.max(1, maxLen);
+
         // Build lookup table
         buildLookupTable(codes);
     }
-    
+
     /**
      * Build the lookup table for fast decoding.
-     * 
+     *
      * Strategy: For each possible TABLE_BITS pattern, pre-compute the decoded symbol.
-     * 
+     *
      * Example: If symbol 'A' has code "101" (3 bits), then all 10-bit patterns
      * starting with "101" decode to 'A':
      *   1010000000 → A (use 3 bits)
      *   1010000001 → A (use 3 bits)
      *   1011111111 → A (use 3 bits)
+     *
+     * Prefixes of longer codes (and unused prefixes) stay {@link #LONG_CODE}.
      */
     private void buildLookupTable(HuffmanCode[] codes) {
-        // Initialize all entries to "use fallback"
-        for (int i = 0; i < TABLE_SIZE; i++) {
-            lookupTable[i] = new LookupEntry(-1, 0);
-        }
-        
-        // For each symbol with its Huffman code
         for (int symbol = 0; symbol < 256; symbol++) {
             HuffmanCode code = codes[symbol];
             if (code == null) continue;
-            
+
             int codeLength = code.getCodeLength();
-            int codeValue = code.getCodeword();
-            
-            if (codeLength <= TABLE_BITS) {
-                // Short code: populate all matching table entries
-                // Example: code "101" (3 bits) matches patterns "101xxxxxxx" (7 suffix bits)
-                
-                int numSuffixes = 1 << (TABLE_BITS - codeLength);
-                int baseIndex = codeValue << (TABLE_BITS - codeLength);
-                
-                for (int suffix = 0; suffix < numSuffixes; suffix++) {
-                    int tableIndex = baseIndex | suffix;
-                    lookupTable[tableIndex] = new LookupEntry(symbol, codeLength);
-                }
-            } else {
-                // Long code (rare): mark prefix for fallback decoding
-                int prefix = codeValue >>> (codeLength - TABLE_BITS);
-                if (lookupTable[prefix].symbol == -1) {
-                    lookupTable[prefix] = new LookupEntry(-1, TABLE_BITS);
-                }
+            if (codeLength > TABLE_BITS) continue;
+
+            // Short code: populate all matching table entries
+            // Example: code "101" (3 bits) matches patterns "101xxxxxxx" (7 suffix bits)
+            int numSuffixes = 1 << (TABLE_BITS - codeLength);
+            int baseIndex = code.getCodeword() << (TABLE_BITS - codeLength);
+            int entry = (symbol << 8) | codeLength;
+
+            for (int suffix = 0; suffix < numSuffixes; suffix++) {
+                lookupTable[baseIndex | suffix] = entry;
             }
         }
     }
-    
+
     /**
      * Decode all symbols from compressed data.
      * Returns the decompressed byte array.
      */
     public byte[] decode(byte[] compressedData, int outputSize) {
         byte[] output = new byte[outputSize];
-        FastBitReader reader = new FastBitReader(compressedData);
-        
-        for (int i = 0; i < outputSize; i++) {
-            int symbol = decodeNextSymbol(reader);
-            if (symbol == -1) {
-                throw new RuntimeException("Huffman decode error at position " + i);
+        decode(compressedData, compressedData.length, output, 0, outputSize);
+        return output;
+    }
+
+    /**
+     * Decode {@code outputSize} symbols from the first {@code compressedLength}
+     * bytes of {@code compressedData} into {@code output} starting at {@code outputOffset}.
+     */
+    public void decode(byte[] compressedData, int compressedLength,
+                       byte[] output, int outputOffset, int outputSize) {
+        decodeStream(compressedData, 0, compressedLength, 0, output, outputOffset, outputSize);
+    }
+
+    /**
+     * Decode into a buffer (absolute indices) without allocating: direct and
+     * mapped buffers are filled in place through the per-thread tile.
+     */
+    public void decode(byte[] compressedData, int compressedLength,
+                       ByteBuffer output, int outputOffset, int outputSize) {
+        if (output.hasArray()) {
+            decode(compressedData, compressedLength, output.array(), output.arrayOffset() + outputOffset,
+                   outputSize);
+            return;
+        }
+        decodeStreamTiled(compressedData, 0, compressedLength, output, outputOffset, outputSize, TILE.get());
+    }
+
+    /**
+     * Decode a {@link ChunkType#MULTI_STREAM} payload (see
+     * {@link HuffmanEncoder#encodeStreams}). Four streams are decoded in one
+     * interleaved loop so their independent dependency chains overlap; other
+     * stream counts are decoded one stream after another.
+     */
+    public void decodeStreams(byte[] compressedData, int compressedLength,
+                              byte[] output, int outputOffset, int outputSize, int streamCount) {
+        int[] streamStart = streamBounds(compressedData, compressedLength, streamCount);
+        int segmentSize = HuffmanEncoder.streamSegmentSize(outputSize, streamCount);
+
+        if (streamCount == 4) {
+            int[] segmentStart = new int[4];
+            int[] segmentEnd = new int[4];
+            for (int stream = 0; stream < 4; stream++) {
+                segmentStart[stream] = outputOffset + segmentStart(outputSize, segmentSize, 4, stream);
+                segmentEnd[stream] = outputOffset + segmentEnd(outputSize, segmentSize, 4, stream);
             }
-            output[i] = (byte) symbol;
+            decode4Streams(compressedData, streamStart, new long[4], output, segmentStart, segmentEnd);
+            return;
+        }
+
+        for (int stream = 0; stream < streamCount; stream++) {
+            int start = segmentStart(outputSize, segmentSize, streamCount, stream);
+            int end = segmentEnd(outputSize, segmentSize, streamCount, stream);
+            decodeStream(compressedData, streamStart[stream], streamStart[stream + 1], 0,
+                         output, outputOffset + start, end - start);
         }
-        
-        return output;
     }
-    
-    /**
-     * Decode a single symbol using table lookup.
-     */
-    private int decodeNextSymbol(FastBitReader reader) {
-        // Peek at next TABLE_BITS without consuming
-        int lookupBits = reader.peek(TABLE_BITS);
-        LookupEntry entry = lookupTable[lookupBits];
-        
-        if (entry.symbol != -1) {
-            // Fast path: symbol found in table (99% of cases)
-            reader.advance(entry.codeLength);
-            return entry.symbol;
-        } else {
-            // Slow path: code longer than TABLE_BITS (rare)
-            return decodeWithFallback(reader);
-        }
-    }
-    
-    /**
-     * Fallback decoder for codes longer than TABLE_BITS.
-     * Uses the canonical Huffman decoder.
-     */
-    private int decodeWithFallback(FastBitReader reader) {
-        int code = 0;
-        for (int len = 1; len <= maxCodeLength; len++) {
-            int bit = reader.read(1);
-            code = (code << 1) | bit;
-            
-            int symbol = fallbackDecoder.decodeSymbol(code, len);
-            if (symbol != -1) {
-                return symbol;
+
+    /**
+     * Multi-stream decode into a buffer (absolute indices) without allocating
+     * per symbol or per chunk. Four streams keep the interleaved loop: each
+     * round decodes one tile of every stream.
+     */
+    public void decodeStreams(byte[] compressedData, int compressedLength,
+                              ByteBuffer output, int outputOffset, int outputSize, int streamCount) {
+        if (output.hasArray()) {
+            decodeStreams(compressedData, compressedLength, output.array(), output.arrayOffset() + outputOffset,
+                          outputSize, streamCount);
+            return;
+        }
+
+        int[] streamStart = streamBounds(compressedData, compressedLength, streamCount);
+        int segmentSize = HuffmanEncoder.streamSegmentSize(outputSize, streamCount);
+        byte[] tile = TILE.get();
+
+        if (streamCount != 4) {
+            for (int stream = 0; stream < streamCount; stream++) {
+                int start = segmentStart(outputSize, segmentSize, streamCount, stream);
+                int end = segmentEnd(outputSize, segmentSize, streamCount, stream);
+                decodeStreamTiled(compressedData, streamStart[stream], streamStart[stream + 1],
+                                  output, outputOffset + start, end - start, tile);
+            }
+            return;
+        }
+
+        long[] bitOffsets = new long[4];
+        int[] decoded = new int[4];
+        int[] tileStart = {0, TILE_SYMBOLS, 2 * TILE_SYMBOLS, 3 * TILE_SYMBOLS};
+        int[] tileEnd = new int[4];
+        boolean remaining = true;
+        while (remaining) {
+            for (int stream = 0; stream < 4; stream++) {
+                int length = segmentEnd(outputSize, segmentSize, 4, stream)
+                    - segmentStart(outputSize, segmentSize, 4, stream);
+                tileEnd[stream] = tileStart[stream] + Math.min(TILE_SYMBOLS, length - decoded[stream]);
+            }
+            decode4Streams(compressedData, streamStart, bitOffsets, tile, tileStart, tileEnd);
+
+            remaining = false;
+            for (int stream = 0; stream < 4; stream++) {
+                int count = tileEnd[stream] - tileStart[stream];
+                int start = segmentStart(outputSize, segmentSize, 4, stream);
+                output.put(outputOffset + start + decoded[stream], tile, tileStart[stream], count);
+                decoded[stream] += count;
+                remaining |= start + decoded[stream] < segmentEnd(outputSize, segmentSize, 4, stream);
             }
         }
-        return -1; // Decode error
     }
-    
+
     /**
-     * Get the lookup table (for GPU kernel use).
+     * Decode only output bytes {@code [from, to)} of a chunk into
+     * {@code output} starting at {@code outputOffset}, beginning at a known
+     * symbol boundary instead of the chunk start. Ranges that reach the end of
+     * a stream continue at the start of the next one, so checkpoint-bounded
+     * pieces of one chunk can be decoded by different threads.
+     *
+     * @param chunkSize Decoded size of the whole chunk
+     * @param streamCount 1 for the single-stream layout
+     * @param bitOffset Bit offset within the payload of the symbol at {@code from}
+     *                  (see {@link ChunkMetadata#checkpointBitOffset})
      */
-    public LookupEntry[] getLookupTable() {
-        return lookupTable;
+    public void decodeRange(byte[] compressedData, int compressedLength, int chunkSize, int streamCount,
+                            long bitOffset, int from, int to, byte[] output, int outputOffset) {
+        int[] streamStart = rangeStreamBounds(compressedData, compressedLength, streamCount);
+        decodeSpan(compressedData, streamStart, chunkSize, bitOffset, from, to, output, outputOffset);
+    }
+
+    /**
+     * Range decode into a buffer (absolute indices); direct and mapped
+     * buffers are filled a tile at a time.
+     *
+     * @see #decodeRange(byte[], int, int, int, long, int, int, byte[], int)
+     */
+    public void decodeRange(byte[] compressedData, int compressedLength, int chunkSize, int streamCount,
+                            long bitOffset, int from, int to, ByteBuffer output, int outputOffset) {
+        if (output.hasArray()) {
+            decodeRange(compressedData, compressedLength, chunkSize, streamCount, bitOffset, from, to,
+                        output.array(), output.arrayOffset() + outputOffset);
+            return;
+        }
+
+        int[] streamStart = rangeStreamBounds(compressedData, compressedLength, streamCount);
+        byte[] tile = TILE.get();
+        for (int pos = from; pos < to; ) {
+            int count = Math.min(tile.length, to - pos);
+            bitOffset = decodeSpan(compressedData, streamStart, chunkSize, bitOffset, pos, pos + count, tile, 0);
+            output.put(outputOffset + pos - from, tile, 0, count);
+            pos += count;
+        }
     }
-    
-    /**
-     * Fast bit reader with peek() support for table-based decoding.
-     * Reads bits MSB-first (most significant bit first) to match encoding.
-     */
-    public static class FastBitReader {
-        private final byte[] data;
-        private int bytePos;
-        private int bitPos; // 0-7, current bit within current byte
-        
-        public FastBitReader(byte[] data) {
-            this.data = data;
-            this.bytePos = 0;
-            this.bitPos = 0;
-        }
-        
-        /**
-         * Peek at next n bits without consuming them.
-         * Returns bits MSB-first (same order as encoding).
-         */
-        public int peek(int n) {
-            if (n > 24) {
-                throw new IllegalArgumentException("Can't peek more than 24 bits");
+
+    private static int[] rangeStreamBounds(byte[] compressedData, int compressedLength, int streamCount) {
+        return streamCount > 1 ? streamBounds(compressedData, compressedLength, streamCount)
+                               : new int[] {0, compressedLength};
+    }
+
+    /**
+     * Decode symbols {@code [from, to)}, the first at payload bit
+     * {@code bitOffset}, crossing stream boundaries as needed.
+     *
+     * @return Payload bit offset of the symbol at {@code to}
+     */
+    private long decodeSpan(byte[] src, int[] streamStart, int chunkSize, long bitOffset,
+                            int from, int to, byte[] output, int outputOffset) {
+        if (from < 0 || to > chunkSize || from > to) {
+            throw new IllegalArgumentException("Range [" + from + ", " + to + ") outside chunk of "
+                + chunkSize + " bytes");
+        }
+        int streamCount = streamStart.length - 1;
+        int segmentSize = streamCount > 1 ? HuffmanEncoder.streamSegmentSize(chunkSize, streamCount) : chunkSize;
+        int stream = segmentSize == 0 ? 0 : Math.min(streamCount - 1, from / segmentSize);
+        long bits = bitOffset - 8L * streamStart[stream];
+        if (bits < 0 || bits > 8L * (streamStart[stream + 1] - streamStart[stream])) {
+            throw new RuntimeException("Checkpoint " + bitOffset + " outside stream " + stream);
+        }
+
+        for (int pos = from; pos < to; ) {
+            int end = Math.min(to, segmentEnd(chunkSize, segmentSize, streamCount, stream));
+            bits = decodeStream(src, streamStart[stream], streamStart[stream + 1], bits,
+                                output, outputOffset + pos - from, end - pos);
+            pos = end;
+            if (pos == segmentEnd(chunkSize, segmentSize, streamCount, stream) && stream < streamCount - 1) {
+                stream++;
+                bits = 0;
             }
-            
-            int result = 0;
-            int bitsRead = 0;
-            int tempBytePos = bytePos;
-            int tempBitPos = bitPos;
-            
-            // Read bits MSB-first from each byte
-            while (bitsRead < n && tempBytePos < data.length) {
-                // Read one bit from position (7 - tempBitPos) in current byte
-                int bit = (data[tempBytePos] >> (7 - tempBitPos)) & 1;
-                result = (result << 1) | bit;
-                bitsRead++;
-                tempBitPos++;
-                
-                if (tempBitPos >= 8) {
-                    tempBitPos = 0;
-                    tempBytePos++;
+        }
+        return 8L * streamStart[stream] + bits;
+    }
+
+    /**
+     * Stream boundaries in a multi-stream payload, from its jump table.
+     */
+    private static int[] streamBounds(byte[] compressedData, int compressedLength, int streamCount) {
+        int jumpTableSize = 4 * (streamCount - 1);
+        if (streamCount < 2 || compressedLength < jumpTableSize) {
+            throw new RuntimeException("Corrupt multi-stream chunk: " + streamCount + " streams in "
+                + compressedLength + " bytes");
+        }
+
+        int[] streamStart = new int[streamCount + 1];
+        streamStart[0] = jumpTableSize;
+        for (int stream = 0; stream < streamCount - 1; stream++) {
+            int size = (int) INT_BE.get(compressedData, 4 * stream);
+            if (size < 0 || size > compressedLength - streamStart[stream]) {
+                throw new RuntimeException("Corrupt multi-stream chunk: bad size for stream " + stream);
+            }
+            streamStart[stream + 1] = streamStart[stream] + size;
+        }
+        streamStart[streamCount] = compressedLength;
+        return streamStart;
+    }
+
+    private static int segmentStart(int outputSize, int segmentSize, int streamCount, int stream) {
+        return Math.min(outputSize, stream * segmentSize);
+    }
+
+    private static int segmentEnd(int outputSize, int segmentSize, int streamCount, int stream) {
+        return stream == streamCount - 1
+            ? outputSize
+            : Math.min(outputSize, segmentStart(outputSize, segmentSize, streamCount, stream) + segmentSize);
+    }
+
+    /**
+     * Hand-interleaved decode of four streams. Stream k resumes
+     * {@code bitOffsets[k]} bits into its payload and fills
+     * {@code dst[dstStart[k], dstEnd[k])}; its new bit offset is stored back.
+     * Each round refills all four 64-bit buffers and then decodes as many
+     * symbols from each as one refill guarantees; the ends of the streams are
+     * finished by {@link #decodeStream}.
+     */
+    private void decode4Streams(byte[] src, int[] streamStart, long[] bitOffsets,
+                                byte[] dst, int[] dstStart, int[] dstEnd) {
+        final int[] table = lookupTable;
+        final int perRefill = Math.max(1, 56 / maxCodeLength);
+        final int shift = 64 - TABLE_BITS;
+
+        int i0 = dstStart[0], i1 = dstStart[1], i2 = dstStart[2], i3 = dstStart[3];
+        final int e0 = dstEnd[0], e1 = dstEnd[1], e2 = dstEnd[2], e3 = dstEnd[3];
+
+        int p0 = streamStart[0] + (int) (bitOffsets[0] >>> 3), p1 = streamStart[1] + (int) (bitOffsets[1] >>> 3);
+        int p2 = streamStart[2] + (int) (bitOffsets[2] >>> 3), p3 = streamStart[3] + (int) (bitOffsets[3] >>> 3);
+        final int l0 = streamStart[1] - Long.BYTES, l1 = streamStart[2] - Long.BYTES;
+        final int l2 = streamStart[3] - Long.BYTES, l3 = streamStart[4] - Long.BYTES;
+        long b0 = 0, b1 = 0, b2 = 0, b3 = 0;
+        int n0 = 0, n1 = 0, n2 = 0, n3 = 0;
+
+        // Resume mid-byte: keep only the unread low bits of the first byte
+        int k0 = (int) (bitOffsets[0] & 7), k1 = (int) (bitOffsets[1] & 7);
+        int k2 = (int) (bitOffsets[2] & 7), k3 = (int) (bitOffsets[3] & 7);
+        if (k0 != 0) { b0 = (src[p0++] & 0xFFL) << (56 + k0); n0 = 8 - k0; }
+        if (k1 != 0) { b1 = (src[p1++] & 0xFFL) << (56 + k1); n1 = 8 - k1; }
+        if (k2 != 0) { b2 = (src[p2++] & 0xFFL) << (56 + k2); n2 = 8 - k2; }
+        if (k3 != 0) { b3 = (src[p3++] & 0xFFL) << (56 + k3); n3 = 8 - k3; }
+
+        while (p0 <= l0 && p1 <= l1 && p2 <= l2 && p3 <= l3
+                && i0 + perRefill <= e0 && i1 + perRefill <= e1
+                && i2 + perRefill <= e2 && i3 + perRefill <= e3) {
+            b0 |= (long) LONG_BE.get(src, p0) >>> n0; p0 += (63 - n0) >>> 3; n0 |= 56;
+            b1 |= (long) LONG_BE.get(src, p1) >>> n1; p1 += (63 - n1) >>> 3; n1 |= 56;
+            b2 |= (long) LONG_BE.get(src, p2) >>> n2; p2 += (63 - n2) >>> 3; n2 |= 56;
+            b3 |= (long) LONG_BE.get(src, p3) >>> n3; p3 += (63 - n3) >>> 3; n3 |= 56;
+
+            for (int k = 0; k < perRefill; k++) {
+                int x0 = table[(int) (b0 >>> shift)];
+                int x1 = table[(int) (b1 >>> shift)];
+                int x2 = table[(int) (b2 >>> shift)];
+                int x3 = table[(int) (b3 >>> shift)];
+                if (x0 == LONG_CODE) x0 = decodeLongCodeOrThrow(b0, n0, i0 - dstStart[0]);
+                if (x1 == LONG_CODE) x1 = decodeLongCodeOrThrow(b1, n1, i1 - dstStart[1]);
+                if (x2 == LONG_CODE) x2 = decodeLongCodeOrThrow(b2, n2, i2 - dstStart[2]);
+                if (x3 == LONG_CODE) x3 = decodeLongCodeOrThrow(b3, n3, i3 - dstStart[3]);
+
+                b0 <<= x0 & 0xFF; n0 -= x0 & 0xFF; dst[i0++] = (byte) (x0 >>> 8);
+                b1 <<= x1 & 0xFF; n1 -= x1 & 0xFF; dst[i1++] = (byte) (x1 >>> 8);
+                b2 <<= x2 & 0xFF; n2 -= x2 & 0xFF; dst[i2++] = (byte) (x2 >>> 8);
+                b3 <<= x3 & 0xFF; n3 -= x3 & 0xFF; dst[i3++] = (byte) (x3 >>> 8);
+            }
+        }
+
+        // Finish each stream from the bit it stopped at
+        bitOffsets[0] = decodeStream(src, streamStart[0], streamStart[1], consumedBits(p0, n0, streamStart[0]),
+                                     dst, i0, e0 - i0);
+        bitOffsets[1] = decodeStream(src, streamStart[1], streamStart[2], consumedBits(p1, n1, streamStart[1]),
+                                     dst, i1, e1 - i1);
+        bitOffsets[2] = decodeStream(src, streamStart[2], streamStart[3], consumedBits(p2, n2, streamStart[2]),
+                                     dst, i2, e2 - i2);
+        bitOffsets[3] = decodeStream(src, streamStart[3], streamStart[4], consumedBits(p3, n3, streamStart[3]),
+                                     dst, i3, e3 - i3);
+    }
+
+    private static long consumedBits(int pos, int bufferedBits, int streamStart) {
+        return 8L * (pos - streamStart) - bufferedBits;
+    }
+
+    /**
+     * Decode one bitstream stored in {@code src[srcStart, srcEnd)}, starting
+     * {@code bitOffset} bits into it.
+     *
+     * @return Bit offset just past the last decoded symbol
+     */
+    private long decodeStream(byte[] src, int srcStart, int srcEnd, long bitOffset,
+                              byte[] output, int outputOffset, int outputSize) {
+        if (outputSize <= 0) {
+            return bitOffset;
+        }
+        final int[] table = lookupTable;
+        final int maxLen = maxCodeLength;
+        final int bulkLimit = srcEnd - Long.BYTES; // Last position with 8 readable bytes
+        final int end = outputOffset + outputSize;
+
+        long buf = 0;   // Pending bits, left-aligned (MSB = next bit)
+        int bits = 0;   // Number of valid bits in buf
+        int pos = srcStart + (int) (bitOffset >>> 3);    // Next byte to load
+        int i = outputOffset;
+
+        // Resume mid-byte: keep only the unread low bits of the first byte
+        int skip = (int) (bitOffset & 7);
+        if (skip != 0 && pos < srcEnd && i < end) {
+            buf = (src[pos++] & 0xFFL) << (56 + skip);
+            bits = 8 - skip;
+        }
+
+        // Bulk loop: refill 8 bytes at a time, decode until fewer than maxLen bits remain
+        while (i < end && pos <= bulkLimit) {
+            buf |= (long) LONG_BE.get(src, pos) >>> bits;
+            pos += (63 - bits) >>> 3;
+            bits |= 56;
+
+            do {
+                int entry = table[(int) (buf >>> (64 - TABLE_BITS))];
+                if (entry == LONG_CODE) {
+                    entry = decodeLongCodeOrThrow(buf, bits, i - outputOffset);
                 }
+                int len = entry & 0xFF;
+                buf <<= len;
+                bits -= len;
+                output[i++] = (byte) (entry >>> 8);
+            } while (bits >= maxLen && i < end);
+        }
+
+        // Tail loop: refill byte by byte, zero bits past the end of the stream
+        while (i < end) {
+            while (bits <= 56 && pos < srcEnd) {
+                buf |= (src[pos++] & 0xFFL) << (56 - bits);
+                bits += 8;
             }
-            
-            // Pad with zeros if we ran out of data
-            while (bitsRead < n) {
-                result = (result << 1);
-                bitsRead++;
+
+            int entry = table[(int) (buf >>> (64 - TABLE_BITS))];
+            if (entry == LONG_CODE) {
+                entry = decodeLongCode(buf, bits);
             }
-            
-            return result;
-        }
-        
-        /**
-         * Read n bits and advance position.
-         */
-        public int read(int n) {
-            int result = peek(n);
-            advance(n);
-            return result;
-        }
-        
-        /**
-         * Advance position by n bits.
-         */
-        public void advance(int n) {
-            bitPos += n;
-            while (bitPos >= 8 && bytePos < data.length) {
-                bitPos -= 8;
-                bytePos++;
+            int len = entry & 0xFF;
+            if (entry == LONG_CODE || len > bits) {
+                throw new RuntimeException("Huffman decode error at position " + (i - outputOffset));
             }
+            buf <<= len;
+            bits -= len;
+            output[i++] = (byte) (entry >>> 8);
         }
+
+        return consumedBits(pos, bits, srcStart);
+    }
+
+    /**
+     * Decode one bitstream into a buffer a tile at a time.
+     */
+    private void decodeStreamTiled(byte[] src, int srcStart, int srcEnd,
+                                   ByteBuffer output, int outputOffset, int outputSize, byte[] tile) {
+        long bitOffset = 0;
+        for (int done = 0; done < outputSize; ) {
+            int count = Math.min(tile.length, outputSize - done);
+            bitOffset = decodeStream(src, srcStart, srcEnd, bitOffset, tile, 0, count);
+            output.put(outputOffset + done, tile, 0, count);
+            done += count;
+        }
+    }
+
+    private int decodeLongCodeOrThrow(long buf, int bits, int position) {
+        int entry = decodeLongCode(buf, bits);
+        if (entry == LONG_CODE) {
+            throw new RuntimeException("Huffman decode error at position " + position);
+        }
+        return entry;
+    }
+
+    /**
+     * Slow path for codes longer than TABLE_BITS (rare).
+     * Uses the canonical first-code/limit tables on the bits already in the buffer.
+     *
+     * @return Packed entry, or {@link #LONG_CODE} if no complete code matches
+     */
+    private int decodeLongCode(long buf, int bits) {
+        int entry = fallbackDecoder.decodeEntry(buf, TABLE_BITS + 1);
+        if (entry < 0 || (entry & 0xFF) > bits) {
+            return LONG_CODE;
+        }
+        return entry;
+    }
+
+    /**
+     * Get the packed lookup table (for GPU kernel use).
+     * Entries are {@code (symbol << 8) | codeLength}, or {@link #LONG_CODE}.
+     */
+    public int[] getLookupTable() {
+        return lookupTable;
+    }
+
+    public int getMaxCodeLength() {
+        return maxCodeLength;
     }
 }
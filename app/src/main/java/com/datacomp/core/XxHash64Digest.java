@@ -0,0 +1,174 @@
+package com.datacomp.core;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.MessageDigest;
+
+/**
+ * Streaming 64-bit xxHash (XXH64, seed 0) behind the {@link MessageDigest}
+ * interface. Input is consumed in 32-byte stripes across four independent
+ * accumulators; a partial stripe waits in a small buffer for the next
+ * update. The digest is the 8-byte hash, big-endian.
+ */
+final class XxHash64Digest extends MessageDigest {
+
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+    private static final int STRIPE = 32;
+
+    private static final VarHandle LONGS =
+        MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INTS =
+        MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final byte[] pending = new byte[STRIPE];
+    private int pendingLength;
+    private long totalLength;
+    private long v1;
+    private long v2;
+    private long v3;
+    private long v4;
+
+    XxHash64Digest() {
+        super("XXH64");
+        engineReset();
+    }
+
+    @Override
+    protected int engineGetDigestLength() {
+        return Long.BYTES;
+    }
+
+    @Override
+    protected void engineReset() {
+        v1 = PRIME1 + PRIME2;
+        v2 = PRIME2;
+        v3 = 0;
+        v4 = -PRIME1;
+        pendingLength = 0;
+        totalLength = 0;
+    }
+
+    @Override
+    protected void engineUpdate(byte input) {
+        engineUpdate(new byte[] {input}, 0, 1);
+    }
+
+    @Override
+    protected void engineUpdate(byte[] input, int offset, int length) {
+        totalLength += length;
+        int end = offset + length;
+        if (pendingLength > 0) {
+            int take = Math.min(STRIPE - pendingLength, length);
+            System.arraycopy(input, offset, pending, pendingLength, take);
+            pendingLength += take;
+            offset += take;
+            if (pendingLength < STRIPE) {
+                return;
+            }
+            stripe(pending, 0);
+            pendingLength = 0;
+        }
+        for (; offset + STRIPE <= end; offset += STRIPE) {
+            stripe(input, offset);
+        }
+        System.arraycopy(input, offset, pending, 0, end - offset);
+        pendingLength = end - offset;
+    }
+
+    @Override
+    protected void engineUpdate(ByteBuffer input) {
+        if (input.hasArray()) {
+            engineUpdate(input.array(), input.arrayOffset() + input.position(), input.remaining());
+            input.position(input.limit());
+            return;
+        }
+        // Direct or mapped buffers are read a long at a time, without copying
+        ByteBuffer data = input.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        totalLength += data.remaining();
+        if (pendingLength > 0) {
+            int take = Math.min(STRIPE - pendingLength, data.remaining());
+            data.get(pending, pendingLength, take);
+            pendingLength += take;
+            if (pendingLength < STRIPE) {
+                input.position(input.limit());
+                return;
+            }
+            stripe(pending, 0);
+            pendingLength = 0;
+        }
+        while (data.remaining() >= STRIPE) {
+            v1 = round(v1, data.getLong());
+            v2 = round(v2, data.getLong());
+            v3 = round(v3, data.getLong());
+            v4 = round(v4, data.getLong());
+        }
+        pendingLength = data.remaining();
+        data.get(pending, 0, pendingLength);
+        input.position(input.limit());
+    }
+
+    @Override
+    protected byte[] engineDigest() {
+        long hash;
+        if (totalLength >= STRIPE) {
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7)
+                 + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = merge(hash, v1);
+            hash = merge(hash, v2);
+            hash = merge(hash, v3);
+            hash = merge(hash, v4);
+        } else {
+            hash = PRIME5;
+        }
+        hash += totalLength;
+
+        int i = 0;
+        for (; i + Long.BYTES <= pendingLength; i += Long.BYTES) {
+            hash ^= round(0, (long) LONGS.get(pending, i));
+            hash = Long.rotateLeft(hash, 27) * PRIME1 + PRIME4;
+        }
+        if (i + Integer.BYTES <= pendingLength) {
+            hash ^= ((int) INTS.get(pending, i) & 0xFFFFFFFFL) * PRIME1;
+            hash = Long.rotateLeft(hash, 23) * PRIME2 + PRIME3;
+            i += Integer.BYTES;
+        }
+        for (; i < pendingLength; i++) {
+            hash ^= (pending[i] & 0xFFL) * PRIME5;
+            hash = Long.rotateLeft(hash, 11) * PRIME1;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME2;
+        hash ^= hash >>> 29;
+        hash *= PRIME3;
+        hash ^= hash >>> 32;
+
+        engineReset();
+        return ByteBuffer.allocate(Long.BYTES).putLong(hash).array();
+    }
+
+    private void stripe(byte[] input, int offset) {
+        v1 = round(v1, (long) LONGS.get(input, offset));
+        v2 = round(v2, (long) LONGS.get(input, offset + 8));
+        v3 = round(v3, (long) LONGS.get(input, offset + 16));
+        v4 = round(v4, (long) LONGS.get(input, offset + 24));
+    }
+
+    private static long round(long accumulator, long input) {
+        accumulator += input * PRIME2;
+        accumulator = Long.rotateLeft(accumulator, 31);
+        return accumulator * PRIME1;
+    }
+
+    private static long merge(long hash, long accumulator) {
+        hash ^= round(0, accumulator);
+        return hash * PRIME1 + PRIME4;
+    }
+}
@@ -9,6 +9,7 @@ import java.util.Map;
 public class StageMetrics {
     
     public enum Stage {
+        FUSED_SCAN("Read + Checksum + Histogram"),
         FREQUENCY_ANALYSIS("Frequency Analysis"),
         HUFFMAN_TREE_BUILD("Huffman Tree Build"),
         ENCODING("Encoding"),
@@ -32,6 +33,11 @@ public class StageMetrics {
     private final Map<Stage, Long> stageTimes; // in nanoseconds
     private final Map<Stage, Integer> stageCounts;
     private final Map<Stage, Long> stageDataSizes; // bytes processed
+    private long allocatedBytes = -1; // heap allocated by the whole operation
+    private long processedBytes;
+    private String checksumAlgorithm;  // null when the operation did not name one
+    private long checksumNanos;        // inside the fused scan or checksum verification
+    private long checksumBytes;
     
     public StageMetrics() {
         this.stageTimes = new HashMap<>();
@@ -48,6 +54,67 @@ public class StageMetrics {
         stageDataSizes.merge(stage, dataSize, Long::sum);
     }
     
+    /**
+     * Record heap allocated by a whole operation that processed
+     * {@code processedBytes} of input. A negative size means not measured.
+     */
+    public void recordAllocation(long allocatedBytes, long processedBytes) {
+        this.allocatedBytes = allocatedBytes;
+        this.processedBytes = processedBytes;
+    }
+    
+    /**
+     * Name the checksum algorithm the operation uses, so its cost can be
+     * told apart from other algorithms' in the summary.
+     */
+    public void setChecksumAlgorithm(String checksumAlgorithm) {
+        this.checksumAlgorithm = checksumAlgorithm;
+    }
+    
+    public String getChecksumAlgorithm() {
+        return checksumAlgorithm;
+    }
+    
+    /**
+     * Record time spent checksumming {@code dataSize} bytes. This is part of
+     * another stage's time (the fused scan or checksum verification), so it
+     * is kept apart from the stage totals.
+     */
+    public void recordChecksum(long nanoTime, long dataSize) {
+        checksumNanos += nanoTime;
+        checksumBytes += dataSize;
+    }
+    
+    /**
+     * Get total checksum time in milliseconds.
+     */
+    public double getChecksumTimeMs() {
+        return checksumNanos / 1_000_000.0;
+    }
+    
+    /**
+     * Get checksum throughput in MB/s, or 0 if nothing was checksummed.
+     */
+    public double getChecksumThroughputMBps() {
+        if (checksumNanos == 0) return 0;
+        return (checksumBytes / 1_000_000.0) / (checksumNanos / 1_000_000_000.0);
+    }
+    
+    /**
+     * Get heap allocated by the operation, or -1 if not measured.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+    
+    /**
+     * Get heap allocation rate in bytes per MB processed, or -1 if not measured.
+     */
+    public double getAllocatedBytesPerMB() {
+        if (allocatedBytes < 0 || processedBytes == 0) return -1;
+        return allocatedBytes / (processedBytes / 1_000_000.0);
+    }
+    
     /**
      * Get total time for a stage in milliseconds.
      */
@@ -124,6 +191,20 @@ public class StageMetrics {
             }
         }
         
+        if (checksumNanos > 0) {
+            sb.append(String.format("%-25s: %8.2f ms (%.1f MB/s)\n",
+                "Checksum (" + (checksumAlgorithm != null ? checksumAlgorithm : "unknown") + ")",
+                getChecksumTimeMs(),
+                getChecksumThroughputMBps()));
+        }
+        
+        if (getAllocatedBytesPerMB() >= 0) {
+            sb.append(String.format("%-25s: %8.2f MB (%.1f KB per MB processed)\n",
+                "Heap Allocated",
+                allocatedBytes / 1_000_000.0,
+                getAllocatedBytesPerMB() / 1000.0));
+        }
+        
         return sb.toString();
     }
     
@@ -134,5 +215,10 @@ public class StageMetrics {
         stageTimes.clear();
         stageCounts.clear();
         stageDataSizes.clear();
+        allocatedBytes = -1;
+        processedBytes = 0;
+        checksumAlgorithm = null;
+        checksumNanos = 0;
+        checksumBytes = 0;
     }
 }
@@ -2,6 +2,7 @@ package com.datacomp.service;
 
 import com.datacomp.core.ChunkMetadata;
 import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Path;
 import java.util.function.Consumer;
 
@@ -32,6 +33,20 @@ public interface CompressionService {
     void decompress(Path inputPath, Path outputPath,
                    Consumer<Double> progressCallback) throws IOException;
     
+    /**
+     * Decompress only original bytes {@code [offset, offset + length)} of a
+     * compressed file, decoding just the chunks that overlap the range.
+     * 
+     * @param inputPath Compressed file path
+     * @param offset First original byte to extract
+     * @param length Number of bytes; the range is clipped at the end of the file
+     * @param output Destination for the extracted bytes
+     * @return Number of bytes written
+     * @throws IOException If I/O error occurs
+     */
+    long decompressRange(Path inputPath, long offset, long length,
+                         WritableByteChannel output) throws IOException;
+    
     /**
      * Resume compression from a checkpoint.
      * 
@@ -0,0 +1,120 @@
+package com.datacomp.service;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+/**
+ * Windowed chunk pipeline with in-order hand-off.
+ *
+ * At most {@code maxInFlight} chunks are submitted but not yet consumed,
+ * counting both running tasks and finished results waiting in the reorder
+ * buffer. Results are handed to the sink in index order as soon as they are
+ * contiguous, and a new chunk is submitted only after one has been consumed,
+ * so memory stays bounded by the window regardless of file size. The caller
+ * blocks on task completion; there is no polling.
+ *
+ * @param <T> Per-chunk result
+ */
+public final class OrderedChunkPipeline<T> {
+
+    /**
+     * Work for one chunk, run on the executor. Must not return null.
+     */
+    @FunctionalInterface
+    public interface ChunkTask<T> {
+        T process(int index) throws Exception;
+    }
+
+    /**
+     * Consumer of results, called on the submitting thread in index order.
+     */
+    @FunctionalInterface
+    public interface ChunkSink<T> {
+        void accept(int index, T result) throws IOException;
+    }
+
+    private final Executor executor;
+    private final int maxInFlight;
+
+    public OrderedChunkPipeline(Executor executor, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("In-flight window must be at least 1: " + maxInFlight);
+        }
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Process chunks {@code 0 .. numChunks-1} and feed their results to the sink in order.
+     *
+     * @throws IOException If a task fails (remaining tasks are cancelled), the sink fails,
+     *                     or the calling thread is interrupted
+     */
+    public void run(int numChunks, ChunkTask<T> task, ChunkSink<T> sink) throws IOException {
+        CompletionService<Completed<T>> completion = new ExecutorCompletionService<>(executor);
+        Map<Integer, Future<Completed<T>>> running = new HashMap<>();
+        Map<Integer, T> reorder = new HashMap<>();
+        int nextToSubmit = 0;
+        int nextToConsume = 0;
+
+        try {
+            while (nextToConsume < numChunks) {
+                // Backpressure: refill only up to the window
+                while (nextToSubmit < numChunks && nextToSubmit - nextToConsume < maxInFlight) {
+                    final int index = nextToSubmit++;
+                    running.put(index, completion.submit(() -> new Completed<>(index, task.process(index))));
+                }
+
+                Completed<T> done = completion.take().get();
+                running.remove(done.index);
+                reorder.put(done.index, done.result);
+
+                T next;
+                while ((next = reorder.remove(nextToConsume)) != null) {
+                    sink.accept(nextToConsume, next);
+                    nextToConsume++;
+                }
+            }
+        } catch (ExecutionException e) {
+            cancel(running);
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Chunk processing failed", cause);
+        } catch (InterruptedException e) {
+            cancel(running);
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for chunks", e);
+        } catch (IOException | RuntimeException e) {
+            cancel(running);
+            throw e;
+        }
+    }
+
+    private static void cancel(Map<Integer, ? extends Future<?>> running) {
+        for (Future<?> future : running.values()) {
+            future.cancel(true);
+        }
+    }
+
+    private static final class Completed<T> {
+        final int index;
+        final T result;
+
+        Completed(int index, T result) {
+            this.index = index;
+            this.result = result;
+        }
+    }
+}
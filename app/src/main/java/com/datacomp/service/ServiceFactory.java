@@ -1,10 +1,9 @@
 package com.datacomp.service;
 
 import com.datacomp.config.AppConfig;
+import com.datacomp.config.CompressionOptions;
 import com.datacomp.service.cpu.CpuCompressionService;
-import com.datacomp.service.cpu.CpuFrequencyService;
 import com.datacomp.service.gpu.GpuCompressionService;
-import com.datacomp.service.gpu.GpuFrequencyService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -23,7 +22,7 @@ public class ServiceFactory {
         
         if (config.isForceCpu()) {
             logger.info("CPU mode forced by configuration");
-            return new CpuCompressionService(chunkSizeMB);
+            return new CpuCompressionService(CompressionOptions.fromConfig(config));
         }
         
         if (config.isGpuAutoDetect()) {
@@ -36,37 +35,14 @@ public class ServiceFactory {
                     return gpuService;
                 } else {
                     logger.info("GPU not available, using CPU service");
-                    return new CpuCompressionService(chunkSizeMB);
+                    return new CpuCompressionService(CompressionOptions.fromConfig(config));
                 }
             } catch (Exception e) {
                 logger.warn("Failed to create GPU service, using CPU", e);
-                return new CpuCompressionService(chunkSizeMB);
+                return new CpuCompressionService(CompressionOptions.fromConfig(config));
             }
         }
         
-        return new CpuCompressionService(chunkSizeMB);
-    }
-    
-    /**
-     * Create frequency service based on configuration.
-     */
-    public static FrequencyService createFrequencyService(AppConfig config) {
-        if (config.isForceCpu()) {
-            return new CpuFrequencyService();
-        }
-        
-        if (config.isGpuAutoDetect()) {
-            try {
-                GpuFrequencyService gpuService = new GpuFrequencyService();
-                if (gpuService.isAvailable()) {
-                    return gpuService;
-                }
-            } catch (Exception e) {
-                logger.warn("GPU frequency service unavailable", e);
-            }
-        }
-        
-        return new CpuFrequencyService();
+        return new CpuCompressionService(CompressionOptions.fromConfig(config));
     }
 }
-
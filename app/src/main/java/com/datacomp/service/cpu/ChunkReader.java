@@ -0,0 +1,157 @@
+package com.datacomp.service.cpu;
+
+import com.datacomp.core.ChecksumAlgorithm;
+import com.datacomp.util.BufferPool;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lock-free source of input chunks for parallel compression.
+ *
+ * Workers call {@link #read} concurrently; neither mode touches the shared
+ * channel position, so no lock is needed. The mapped mode hands out a
+ * read-only window over each chunk range that is scanned and encoded in
+ * place. The positional mode reads each chunk into a buffer taken from
+ * the shared {@link BufferPool}; the caller owns it until it hands the
+ * result to {@link #release}, which returns the buffer to the pool. Every
+ * result must be released exactly once, after its data is last used
+ * (releasing a mapped result is a no-op).
+ */
+public abstract class ChunkReader implements Closeable {
+
+    protected final FileChannel channel;
+    protected final long fileSize;
+    protected final ChecksumAlgorithm checksum;
+
+    private ChunkReader(Path path, ChecksumAlgorithm checksum) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        this.checksum = checksum;
+    }
+
+    /**
+     * Open a reader over a file.
+     *
+     * @param path Input file
+     * @param memoryMapped Map chunk windows instead of reading into buffers
+     * @param pool Source of read buffers in positional mode
+     */
+    public static ChunkReader open(Path path, boolean memoryMapped, BufferPool pool) throws IOException {
+        return open(path, memoryMapped, pool, ChecksumAlgorithm.SHA256);
+    }
+
+    /**
+     * Open a reader whose chunks are checksummed with {@code checksum}.
+     */
+    public static ChunkReader open(Path path, boolean memoryMapped, BufferPool pool,
+                                   ChecksumAlgorithm checksum) throws IOException {
+        return memoryMapped ? new Mapped(path, checksum) : new Positional(path, pool, checksum);
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public abstract boolean isMemoryMapped();
+
+    /**
+     * Read one chunk, computing its checksum and the requested histogram in
+     * the same pass. The result's data stays valid until it is passed to
+     * {@link #release}.
+     *
+     * @param offset File offset of the chunk
+     * @param length Chunk length (clamped to the end of the file)
+     * @param histogram Which histogram to build
+     */
+    public abstract ChunkScanner.Result read(long offset, int length, ChunkScanner.Histogram histogram)
+            throws IOException;
+
+    /**
+     * Copy {@code length} bytes at {@code offset} of the input to
+     * {@code target}, at its current position, without passing them
+     * through the heap (for chunks stored as-is).
+     */
+    public void transferTo(long offset, long length, WritableByteChannel target) throws IOException {
+        long done = 0;
+        while (done < length) {
+            long moved = channel.transferTo(offset + done, length - done, target);
+            if (moved <= 0) {
+                throw new EOFException("Input ended at " + (offset + done) + " while copying a stored chunk");
+            }
+            done += moved;
+        }
+    }
+
+    /**
+     * Hand back the buffer behind a result from {@link #read}. The result's
+     * data must not be used afterwards.
+     */
+    public void release(ChunkScanner.Result result) {
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * One read-only mapping per chunk range. Windows are unmapped by the
+     * garbage collector once the chunk's encoder has dropped them.
+     */
+    private static final class Mapped extends ChunkReader {
+
+        Mapped(Path path, ChecksumAlgorithm checksum) throws IOException {
+            super(path, checksum);
+        }
+
+        @Override
+        public boolean isMemoryMapped() {
+            return true;
+        }
+
+        @Override
+        public ChunkScanner.Result read(long offset, int length, ChunkScanner.Histogram histogram)
+                throws IOException {
+            int windowLength = (int) Math.min(length, fileSize - offset);
+            return ChunkScanner.scan(channel.map(FileChannel.MapMode.READ_ONLY, offset, windowLength),
+                                     histogram, checksum);
+        }
+    }
+
+    /**
+     * Positional reads into pooled buffers.
+     */
+    private static final class Positional extends ChunkReader {
+
+        private final BufferPool pool;
+
+        Positional(Path path, BufferPool pool, ChecksumAlgorithm checksum) throws IOException {
+            super(path, checksum);
+            this.pool = pool;
+        }
+
+        @Override
+        public boolean isMemoryMapped() {
+            return false;
+        }
+
+        @Override
+        public ChunkScanner.Result read(long offset, int length, ChunkScanner.Histogram histogram)
+                throws IOException {
+            long end = Math.min(fileSize, offset + length);
+            byte[] buffer = pool.acquire((int) Math.max(0, end - offset));
+            return ChunkScanner.scan(channel, offset, end, buffer, histogram, checksum);
+        }
+
+        @Override
+        public void release(ChunkScanner.Result result) {
+            pool.release(result.getData().array());
+        }
+    }
+}
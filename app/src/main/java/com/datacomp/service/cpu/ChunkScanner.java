@@ -0,0 +1,201 @@
+package com.datacomp.service.cpu;
+
+import com.datacomp.core.ChecksumAlgorithm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+
+/**
+ * Single-pass chunk reader that digests and counts while the data is hot.
+ *
+ * The chunk is read in cache-sized tiles with positional reads (no shared
+ * channel position, so no lock). Each tile is fed to the checksum (in the
+ * given {@link ChecksumAlgorithm}) and, when requested, to the
+ * histogram right after it lands, instead of walking the
+ * whole 16-32 MB chunk once per stage after it has left L2.
+ *
+ * Memory-mapped chunks are scanned the same way, straight from the mapping.
+ *
+ * A {@link Histogram#SAMPLED} scan counts the first tile only and stops
+ * counting when that sample is close to random (already compressed or
+ * encrypted input), so such chunks skip the histogram they would not use.
+ */
+public final class ChunkScanner {
+
+    /** Default tile size; fits in L2 alongside the histogram tables. */
+    public static final int DEFAULT_TILE_BYTES = 256 * 1024;
+
+    /**
+     * Sample entropy (bits per byte) at or above which a chunk is taken as
+     * incompressible: Huffman coding could save at most 0.25% of it.
+     */
+    public static final double INCOMPRESSIBLE_ENTROPY_BITS = 7.98;
+
+    /**
+     * How much of the byte histogram a scan builds.
+     */
+    public enum Histogram {
+        /** No histogram. */
+        NONE,
+        /** Count every byte. */
+        FULL,
+        /**
+         * Count the first tile, and the rest only if that tile is
+         * compressible; see {@link Result#isIncompressible()}.
+         */
+        SAMPLED
+    }
+
+    private ChunkScanner() {
+    }
+
+    /**
+     * Result of scanning one chunk.
+     */
+    public static final class Result {
+        private final int bytesRead;
+        private final byte[] checksum;
+        private final long[] frequencies;
+        private final ByteBuffer data;
+        private final boolean incompressible;
+        private final long checksumNanos;
+
+        Result(int bytesRead, byte[] checksum, long[] frequencies, ByteBuffer data, boolean incompressible,
+               long checksumNanos) {
+            this.bytesRead = bytesRead;
+            this.checksum = checksum;
+            this.frequencies = frequencies;
+            this.data = data;
+            this.incompressible = incompressible;
+            this.checksumNanos = checksumNanos;
+        }
+
+        public int getBytesRead() { return bytesRead; }
+        public byte[] getChecksum() { return checksum; }
+
+        /** Time spent in the checksum, part of the whole scan's time. */
+        public long getChecksumNanos() { return checksumNanos; }
+
+        /**
+         * The scanned bytes, indexed absolutely from 0 to {@link #getBytesRead()}.
+         * Either wraps the caller's buffer or is the mapped window itself.
+         */
+        public ByteBuffer getData() { return data; }
+
+        /**
+         * Byte frequencies, or null when the scan did not count them (or
+         * stopped counting because the chunk is incompressible).
+         */
+        public long[] getFrequencies() { return frequencies; }
+
+        /**
+         * True when a sampled scan found the chunk close to random and
+         * did not count the rest of it.
+         */
+        public boolean isIncompressible() { return incompressible; }
+    }
+
+    /**
+     * Read up to {@code buffer.length} bytes at {@code offset}, computing
+     * the checksum and the requested histogram tile by tile.
+     *
+     * @param channel Input channel, read with positional reads only
+     * @param offset File offset of the chunk
+     * @param fileSize Total file size
+     * @param buffer Destination for the chunk data
+     * @param histogram Which histogram to build in the same pass
+     * @param checksum Algorithm of the chunk checksum
+     */
+    public static Result scan(FileChannel channel, long offset, long fileSize, byte[] buffer,
+                              Histogram histogram, ChecksumAlgorithm checksum) throws IOException {
+        return scan(channel, offset, fileSize, buffer, histogram, checksum, DEFAULT_TILE_BYTES);
+    }
+
+    static Result scan(FileChannel channel, long offset, long fileSize, byte[] buffer,
+                       Histogram histogram, ChecksumAlgorithm checksum, int tileBytes) throws IOException {
+        int toRead = (int) Math.min(buffer.length, fileSize - offset);
+        MessageDigest digest = checksum.createDigest();
+        long checksumNanos = 0;
+        long[] frequencies = histogram != Histogram.NONE ? new long[256] : null;
+        boolean incompressible = false;
+
+        int position = 0;
+        while (position < toRead) {
+            int tileLength = readTile(channel, offset + position, buffer, position,
+                                      Math.min(tileBytes, toRead - position));
+            if (tileLength == 0) {
+                break; // File shrank underneath us
+            }
+            long digestStart = System.nanoTime();
+            digest.update(buffer, position, tileLength);
+            checksumNanos += System.nanoTime() - digestStart;
+            if (frequencies != null) {
+                HistogramEngine.accumulate(buffer, position, tileLength, frequencies);
+                if (histogram == Histogram.SAMPLED && position == 0 && tileLength < toRead
+                        && isRandom(frequencies)) {
+                    frequencies = null;
+                    incompressible = true;
+                }
+            }
+            position += tileLength;
+        }
+
+        return new Result(position, checksum.checksum(digest), frequencies,
+                          ByteBuffer.wrap(buffer, 0, position), incompressible, checksumNanos);
+    }
+
+    /**
+     * Scan a chunk that is already addressable, such as a mapped window,
+     * without copying it. Indices 0 to {@code data.limit()} are scanned.
+     *
+     * @param data Chunk contents
+     * @param histogram Which histogram to build in the same pass
+     * @param checksum Algorithm of the chunk checksum
+     */
+    public static Result scan(ByteBuffer data, Histogram histogram, ChecksumAlgorithm checksum) {
+        return scan(data, histogram, checksum, DEFAULT_TILE_BYTES);
+    }
+
+    static Result scan(ByteBuffer data, Histogram histogram, ChecksumAlgorithm checksum, int tileBytes) {
+        int length = data.limit();
+        MessageDigest digest = checksum.createDigest();
+        long checksumNanos = 0;
+        long[] frequencies = histogram != Histogram.NONE ? new long[256] : null;
+        boolean incompressible = false;
+
+        for (int position = 0; position < length; position += tileBytes) {
+            int tileLength = Math.min(tileBytes, length - position);
+            long digestStart = System.nanoTime();
+            digest.update(data.slice(position, tileLength));
+            checksumNanos += System.nanoTime() - digestStart;
+            if (frequencies != null) {
+                HistogramEngine.accumulate(data, position, tileLength, frequencies);
+                if (histogram == Histogram.SAMPLED && position == 0 && tileLength < length
+                        && isRandom(frequencies)) {
+                    frequencies = null;
+                    incompressible = true;
+                }
+            }
+        }
+
+        return new Result(length, checksum.checksum(digest), frequencies, data, incompressible, checksumNanos);
+    }
+
+    private static boolean isRandom(long[] sample) {
+        return HistogramEngine.entropyBits(sample) >= INCOMPRESSIBLE_ENTROPY_BITS;
+    }
+
+    private static int readTile(FileChannel channel, long filePosition, byte[] buffer,
+                                int bufferOffset, int length) throws IOException {
+        ByteBuffer target = ByteBuffer.wrap(buffer, bufferOffset, length);
+        int total = 0;
+        while (total < length) {
+            int read = channel.read(target, filePosition + total);
+            if (read == -1) break;
+            total += read;
+        }
+        return total;
+    }
+}
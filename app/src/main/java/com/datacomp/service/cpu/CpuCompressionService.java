@@ -1,23 +1,29 @@
 package com.datacomp.service.cpu;
 
+import com.datacomp.config.CompressionOptions;
 import com.datacomp.core.*;
 import com.datacomp.model.StageMetrics;
 import com.datacomp.service.CompressionService;
-import com.datacomp.service.FrequencyService;
+import com.datacomp.service.OrderedChunkPipeline;
+import com.datacomp.util.AllocationMeter;
+import com.datacomp.util.BufferPool;
 import com.datacomp.util.ChecksumUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 /**
@@ -27,23 +33,46 @@ public class CpuCompressionService implements CompressionService, AutoCloseable
     
     private static final Logger logger = LoggerFactory.getLogger(CpuCompressionService.class);
     
-    private final FrequencyService frequencyService;
+    /** Input bytes per segment when one chunk is encoded by several threads. */
+    static final int ENCODE_SEGMENT_BYTES = 256 * 1024;
+    
+    /**
+     * Checksums of constant chunks by algorithm and fill byte, at most 3 x 256
+     * entries. Each holds the largest chunk size seen, so a file's full chunks
+     * hit and its shorter last chunk is checksummed without evicting them.
+     */
+    private static final Map<Integer, ConstantChecksum> CONSTANT_CHECKSUMS = new ConcurrentHashMap<>();
+    
     private final int chunkSizeBytes;
+    private final CompressionOptions options;
     private StageMetrics lastStageMetrics;
     private final ExecutorService executorService;
+    private final ExecutorService ioExecutor;
+    private final ForkJoinPool splitPool;     // Pieces of one chunk: encode segments, decode ranges
     private final int parallelChunks;
+    private final int ioThreads;
+    private final BufferPool bufferPool;
     
     public CpuCompressionService(int chunkSizeMB) {
-        this.frequencyService = new CpuFrequencyService();
-        this.chunkSizeBytes = chunkSizeMB * 1024 * 1024;
+        this(CompressionOptions.defaults(chunkSizeMB));
+    }
+    
+    public CpuCompressionService(CompressionOptions options) {
+        this.chunkSizeBytes = options.getChunkSizeBytes();
+        this.options = options;
         this.lastStageMetrics = new StageMetrics();
+        this.bufferPool = BufferPool.shared();
         
-        // Determine number of parallel chunks based on available processors
-        int availableProcessors = Runtime.getRuntime().availableProcessors();
-        this.parallelChunks = Math.max(2, Math.min(availableProcessors, 8)); // 2-8 parallel chunks
+        // CPU-bound stages get one worker per configured thread (all cores by
+        // default); chunk writes run on their own small pool
+        this.parallelChunks = options.getCpuThreads();
+        this.ioThreads = options.getIoThreads();
         this.executorService = Executors.newFixedThreadPool(parallelChunks);
+        this.ioExecutor = Executors.newFixedThreadPool(ioThreads);
+        this.splitPool = new ForkJoinPool(parallelChunks);
         
-        logger.info("Initialized CPU compression service with {} parallel chunk workers", parallelChunks);
+        logger.info("Initialized CPU compression service with {} parallel chunk workers and {} I/O threads",
+                   parallelChunks, ioThreads);
     }
     
     /**
@@ -58,6 +87,8 @@ public class CpuCompressionService implements CompressionService, AutoCloseable
                         Consumer<Double> progressCallback) throws IOException {
         // Reset metrics for new operation
         lastStageMetrics = new StageMetrics();
+        lastStageMetrics.setChecksumAlgorithm(options.getChecksumAlgorithm().getName());
+        AllocationMeter allocation = AllocationMeter.start();
         
         long startTime = System.nanoTime();
         long fileSize = Files.size(inputPath);
@@ -72,118 +103,97 @@ public class CpuCompressionService implements CompressionService, AutoCloseable
             fileSize,
             Files.getLastModifiedTime(inputPath).toMillis(),
             new byte[32], // Global checksum computed later
-            chunkSizeBytes
+            chunkSizeBytes,
+            options.getChecksumAlgorithm()
         );
         
         MessageDigest globalDigest = ChecksumUtil.createSha256();
+        List<ChunkMetadata> chunkMetadata = new ArrayList<>(numChunks);
+        AtomicLong nextOffset = new AtomicLong();
+        boolean orderedWrites = options.isOrderedWrites();
+        PendingWrites pendingWrites = new PendingWrites(ioExecutor);
+        // Too few chunks to occupy every worker: split each chunk's encoding instead
+        boolean splitChunks = numChunks < parallelChunks;
         
-        // Store compressed chunks in order
-        Map<Integer, CompressedChunkData> compressedChunks = new ConcurrentHashMap<>();
-        AtomicInteger completedChunks = new AtomicInteger(0);
+        int window = compressionWindow();
+        if (window < Math.min(numChunks, options.inFlightChunks())) {
+            logger.warn("Memory budget of {} MB allows {} chunks in flight, fewer than the {} that keep "
+                       + "{} workers busy; raise compression.memory-budget-mb",
+                       options.getMemoryBudgetMB(), window, options.inFlightChunks(), parallelChunks);
+        }
+        OrderedChunkPipeline<CompressedChunkData> pipeline = new OrderedChunkPipeline<>(executorService, window);
         
-        try (RandomAccessFile inputFile = new RandomAccessFile(inputPath.toFile(), "r");
-             FileChannel inputChannel = inputFile.getChannel()) {
-            
-            // Read all chunks in parallel and compress them
-            List<Future<CompressedChunkData>> futures = new ArrayList<>();
-            
-            for (int chunkIndex = 0; chunkIndex < numChunks; chunkIndex++) {
-                final int index = chunkIndex;
-                final long offset = (long) chunkIndex * chunkSizeBytes;
-                
-                Future<CompressedChunkData> future = executorService.submit(() -> 
-                    processChunk(inputChannel, index, offset, fileSize)
-                );
-                futures.add(future);
-            }
+        // Chunks are compressed in a bounded window. By default each encoded chunk
+        // is handed to the I/O pool, which claims its output range and writes it
+        // with a positional write, so neither a slow chunk nor the disk holds back
+        // the CPU workers; ordered writes place chunks in index order instead.
+        // Only the small per-chunk metadata is kept until the footer
+        try (ChunkReader reader = ChunkReader.open(inputPath, options.isMemoryMappedIo(), bufferPool,
+                                                   options.getChecksumAlgorithm());
+             FileChannel outputChannel = FileChannel.open(outputPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
             
-            // Collect results and update progress
-            for (int i = 0; i < futures.size(); i++) {
-                try {
-                    CompressedChunkData chunkData = futures.get(i).get();
-                    compressedChunks.put(chunkData.index, chunkData);
-                    
-                    // Update global checksum
-                    synchronized (globalDigest) {
+            try {
+                pipeline.run(numChunks,
+                    index -> {
+                        CompressedChunkData chunkData = processChunk(reader, index, (long) index * chunkSizeBytes,
+                                                                     splitChunks);
+                        if (!orderedWrites) {
+                            chunkData.written = pendingWrites.submit(
+                                () -> writeChunk(outputChannel, outputPath, reader, chunkData, nextOffset),
+                                () -> releaseCompressed(chunkData));
+                        }
+                        return chunkData;
+                    },
+                    (index, chunkData) -> {
+                        if (orderedWrites) {
+                            writeChunk(outputChannel, outputPath, reader, chunkData, nextOffset);
+                        } else {
+                            pendingWrites.await(chunkData.written);
+                        }
                         globalDigest.update(chunkData.checksum);
-                    }
-                    
-                    int completed = completedChunks.incrementAndGet();
-                    if (progressCallback != null) {
-                        progressCallback.accept((double) completed / numChunks);
-                    }
-                    
-                    logger.debug("Chunk {} compressed: {} -> {} bytes (ratio: {:.2f}%)",
-                               chunkData.index, chunkData.originalSize, chunkData.compressedData.length,
-                               (chunkData.compressedData.length * 100.0 / chunkData.originalSize));
-                    
-                } catch (InterruptedException | ExecutionException e) {
-                    throw new IOException("Chunk compression failed", e);
-                }
+                        chunkMetadata.add(chunkData.toMetadata());
+                        
+                        if (progressCallback != null) {
+                            progressCallback.accept((double) (index + 1) / numChunks);
+                        }
+                        
+                        logger.debug("Chunk {} compressed: {} -> {} bytes at offset {}", 
+                                   chunkData.index, chunkData.originalSize, chunkData.compressedSize,
+                                   chunkData.compressedOffset);
+                    });
+            } catch (IOException | RuntimeException e) {
+                // Let started writes finish before the channels close under them
+                pendingWrites.abort();
+                throw e;
             }
             
-            // Compute global checksum
-            byte[] globalChecksum = globalDigest.digest();
-            
-            // Build final header with chunk metadata
+            // Build final header with the global checksum and the collected chunk metadata
             CompressionHeader finalHeader = new CompressionHeader(
                 header.getOriginalFileName(),
                 header.getOriginalFileSize(),
                 header.getOriginalTimestamp(),
-                globalChecksum,
-                header.getChunkSizeBytes()
+                globalDigest.digest(),
+                header.getChunkSizeBytes(),
+                header.getChecksumAlgorithm()
             );
-            
-            long compressedOffset = 0;
-            for (int i = 0; i < numChunks; i++) {
-                CompressedChunkData chunkData = compressedChunks.get(i);
-                ChunkMetadata chunkMeta = new ChunkMetadata(
-                    chunkData.index,
-                    chunkData.originalOffset,
-                    chunkData.originalSize,
-                    compressedOffset,
-                    chunkData.compressedData.length,
-                    chunkData.checksum,
-                    chunkData.codeLengths
-                );
+            for (ChunkMetadata chunkMeta : chunkMetadata) {
                 finalHeader.addChunk(chunkMeta);
-                compressedOffset += chunkData.compressedData.length;
             }
             
-            // Write compressed chunks and footer to output file
-            long writeStart = System.nanoTime();
-            try (DataOutputStream output = new DataOutputStream(
-                    new BufferedOutputStream(Files.newOutputStream(outputPath,
-                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)))) {
-                
-                // Write compressed chunks in order FIRST
-                for (int i = 0; i < numChunks; i++) {
-                    CompressedChunkData chunkData = compressedChunks.get(i);
-                    output.write(chunkData.compressedData);
-                }
-                
-                // Remember where footer starts
-                long footerStartPosition = compressedOffset;
-                
-                // Write footer at the end
-                long headerStart = System.nanoTime();
-                finalHeader.writeTo(output);
-                
-                // Write footer start pointer at the very end (last 8 bytes)
-                // This allows instant footer location regardless of file size
-                output.writeLong(footerStartPosition);
-                
-                output.flush(); // Ensure footer is written to disk
-                
-                lastStageMetrics.recordStage(StageMetrics.Stage.HEADER_WRITE, System.nanoTime() - headerStart, 0);
-                
-                logger.debug("Footer written at offset {}, file size: {} bytes", footerStartPosition, Files.size(outputPath));
-            }
-            long writeTime = System.nanoTime() - writeStart;
-            lastStageMetrics.recordStage(StageMetrics.Stage.FILE_IO, writeTime, Files.size(outputPath));
+            // Footer after the data, then its start position in the last 8 bytes
+            // so the footer can be located instantly regardless of file size
+            long headerStart = System.nanoTime();
+            long footerStartPosition = nextOffset.get();
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                Channels.newOutputStream(outputChannel.position(footerStartPosition)),
+                options.getIoBufferSizeBytes()));
+            finalHeader.writeTo(output);
+            output.writeLong(footerStartPosition);
+            output.flush();
             
-            // Clear all large data structures to free memory immediately
-            compressedChunks.clear();
+            lastStageMetrics.recordStage(StageMetrics.Stage.HEADER_WRITE, System.nanoTime() - headerStart, 0);
+            logger.debug("Footer written at offset {}", footerStartPosition);
         }
         
         long duration = System.nanoTime() - startTime;
@@ -194,11 +204,8 @@ public class CpuCompressionService implements CompressionService, AutoCloseable
         logger.info("✅ Parallel compression complete: {} -> {} bytes ({:.2f}%) in {:.2f}s ({:.2f} MB/s)",
                    fileSize, compressedSize, ratio * 100, duration / 1e9, throughputMBps);
         
-        // Aggressive memory cleanup
-        compressedChunks.clear();
-        System.gc();
-        logger.debug("🧹 Memory cleanup complete, suggested GC to free ~{} MB", 
-                    (fileSize / 1_000_000));
+        // Buffers went back to the pool as chunks were written; no forced GC
+        lastStageMetrics.recordAllocation(allocation.allocatedBytes(), fileSize);
         
         // Log stage metrics
         logger.info("\n{}", lastStageMetrics.getSummary());
@@ -207,39 +214,49 @@ public class CpuCompressionService implements CompressionService, AutoCloseable
     /**
      * Process a single chunk in parallel.
      */
-    private CompressedChunkData processChunk(FileChannel inputChannel, int chunkIndex, 
-                                             long offset, long fileSize) throws IOException {
-        byte[] chunkData = new byte[chunkSizeBytes];
-        
-        // Track file I/O time
-        long ioStart = System.nanoTime();
-        int bytesRead;
-        synchronized (inputChannel) {
-            bytesRead = readChunk(inputChannel, chunkData, offset, fileSize);
-        }
+    private CompressedChunkData processChunk(ChunkReader reader, int chunkIndex, long offset,
+                                             boolean splitChunk) throws IOException {
+        // Read (or map), checksum and count frequencies in one tiled pass; when
+        // storing is allowed, a random-looking first tile stops the counting
+        long scanStart = System.nanoTime();
+        ChunkScanner.Result scan = reader.read(offset, chunkSizeBytes, options.isStoreIncompressible()
+            ? ChunkScanner.Histogram.SAMPLED : ChunkScanner.Histogram.FULL);
         synchronized (lastStageMetrics) {
-            lastStageMetrics.recordStage(StageMetrics.Stage.FILE_IO, System.nanoTime() - ioStart, bytesRead);
+            lastStageMetrics.recordStage(StageMetrics.Stage.FUSED_SCAN, System.nanoTime() - scanStart,
+                scan.getBytesRead());
+            lastStageMetrics.recordChecksum(scan.getChecksumNanos(), scan.getBytesRead());
         }
         
-        // Track checksum computation
-        long checksumStart = System.nanoTime();
-        MessageDigest chunkDigest = ChecksumUtil.createSha256();
-        chunkDigest.update(chunkData, 0, bytesRead);
-        byte[] chunkChecksum = chunkDigest.digest();
-        synchronized (lastStageMetrics) {
-            lastStageMetrics.recordStage(StageMetrics.Stage.CHECKSUM_COMPUTE, System.nanoTime() - checksumStart, bytesRead);
+        // The input buffer goes back to the reader's pool once encoded
+        try {
+            if (scan.isIncompressible()) {
+                return storedChunk(chunkIndex, offset, scan);
+            }
+            return compressScanned(scan, chunkIndex, offset, splitChunk);
+        } finally {
+            reader.release(scan);
         }
+    }
+    
+    /**
+     * Build codes for a scanned chunk and encode it into a pooled buffer.
+     */
+    private CompressedChunkData compressScanned(ChunkScanner.Result scan, int chunkIndex, long offset,
+                                                boolean splitChunk) {
+        ByteBuffer chunkData = scan.getData();
+        int bytesRead = scan.getBytesRead();
+        byte[] chunkChecksum = scan.getChecksum();
+        long[] frequencies = scan.getFrequencies();
         
-        // Track frequency analysis
-        long freqStart = System.nanoTime();
-        long[] frequencies = frequencyService.computeHistogram(chunkData, 0, bytesRead);
-        synchronized (lastStageMetrics) {
-            lastStageMetrics.recordStage(StageMetrics.Stage.FREQUENCY_ANALYSIS, System.nanoTime() - freqStart, bytesRead);
+        // One byte value throughout: keep only that byte
+        int fill = bytesRead > 0 ? chunkData.get(0) & 0xFF : 0;
+        if (bytesRead > 0 && frequencies[fill] == bytesRead) {
+            return constantChunk(chunkIndex, offset, scan, fill);
         }
         
         // Track Huffman tree building
         long huffmanStart = System.nanoTime();
-        HuffmanCode[] codes = CanonicalHuffman.buildCanonicalCodes(frequencies);
+        HuffmanCode[] codes = CanonicalHuffman.buildCanonicalCodes(frequencies, options.getMaxCodeLength());
         synchronized (lastStageMetrics) {
             lastStageMetrics.recordStage(StageMetrics.Stage.HUFFMAN_TREE_BUILD, System.nanoTime() - huffmanStart, bytesRead);
         }
@@ -250,14 +267,53 @@ public class CpuCompressionService implements CompressionService, AutoCloseable
             codeLengths[i] = (codes[i] != null) ? codes[i].getCodeLength() : 0;
         }
         
-        // Track encoding
+        // Huffman output no smaller than the input (sized from the histogram):
+        // store the chunk instead of encoding it
+        HuffmanEncoder encoder = new HuffmanEncoder(codes);
+        long encodedBits = encoder.computeEncodedBits(frequencies);
+        int streamCount = options.streamCountFor(bytesRead);
+        if (options.isStoreIncompressible()
+                && HuffmanEncoder.maxEncodedBytes(encodedBits, streamCount) >= bytesRead) {
+            return storedChunk(chunkIndex, offset, scan);
+        }
+        
+        // Track encoding (pooled output sized from the histogram); checkpoints
+        // are recorded as the encoder passes them
         long encodeStart = System.nanoTime();
-        byte[] compressedData = encodeChunk(chunkData, bytesRead, codes);
+        int checkpointInterval = options.getCheckpointIntervalBytes();
+        long[] checkpoints = new long[HuffmanEncoder.checkpointCount(bytesRead, checkpointInterval)];
+        byte[] compressedData = bufferPool.acquire(HuffmanEncoder.maxEncodedBytes(encodedBits, streamCount));
+        int compressedSize = splitChunk && bytesRead >= 2 * ENCODE_SEGMENT_BYTES
+            ? encoder.encodeParallel(chunkData, 0, bytesRead, streamCount, compressedData,
+                                     splitPool, ENCODE_SEGMENT_BYTES, checkpointInterval, checkpoints)
+            : encodeChunk(chunkData, bytesRead, encoder, streamCount, compressedData,
+                          checkpointInterval, checkpoints);
         synchronized (lastStageMetrics) {
             lastStageMetrics.recordStage(StageMetrics.Stage.ENCODING, System.nanoTime() - encodeStart, bytesRead);
         }
         
-        return new CompressedChunkData(chunkIndex, offset, bytesRead, compressedData, chunkChecksum, codeLengths);
+        ChunkType chunkType = streamCount > 1 ? ChunkType.MULTI_STREAM : ChunkType.HUFFMAN;
+        return new CompressedChunkData(chunkIndex, offset, bytesRead, compressedData, compressedSize,
+                                       chunkChecksum, codeLengths, chunkType, streamCount,
+                                       checkpointInterval, checkpoints);
+    }
+    
+    /**
+     * A chunk kept as it is. Nothing is buffered: the writer copies it
+     * straight from the input file.
+     */
+    private static CompressedChunkData storedChunk(int chunkIndex, long offset, ChunkScanner.Result scan) {
+        return new CompressedChunkData(chunkIndex, offset, scan.getBytesRead(), null, scan.getBytesRead(),
+                                       scan.getChecksum(), new int[256], ChunkType.STORED, 1, 0, new long[0]);
+    }
+    
+    /**
+     * A chunk of one repeated byte, whose payload is that byte.
+     */
+    private static CompressedChunkData constantChunk(int chunkIndex, long offset, ChunkScanner.Result scan,
+                                                    int fill) {
+        return new CompressedChunkData(chunkIndex, offset, scan.getBytesRead(), new byte[] {(byte) fill}, 1,
+                                       scan.getChecksum(), new int[256], ChunkType.CONSTANT, 1, 0, new long[0]);
     }
     
     /**
@@ -267,51 +323,180 @@ public class CpuCompressionService implements CompressionService, AutoCloseable
         final int index;
         final long originalOffset;
         final int originalSize;
-        final byte[] compressedData;
+        final int compressedSize;
         final byte[] checksum;
         final int[] codeLengths;
+        final ChunkType chunkType;
+        final int streamCount;
+        final int checkpointInterval;
+        final long[] checkpoints;
+        byte[] compressedData;        // Pooled unless CONSTANT; returned once written (null when STORED)
+        long compressedOffset = -1;   // Claimed when written
+        CompletableFuture<Void> written;  // Pending write on the I/O pool
         
         CompressedChunkData(int index, long originalOffset, int originalSize, 
-                          byte[] compressedData, byte[] checksum, int[] codeLengths) {
+                          byte[] compressedData, int compressedSize, byte[] checksum, int[] codeLengths,
+                          ChunkType chunkType, int streamCount, int checkpointInterval, long[] checkpoints) {
             this.index = index;
             this.originalOffset = originalOffset;
             this.originalSize = originalSize;
+            this.compressedSize = compressedSize;
             this.compressedData = compressedData;
             this.checksum = checksum;
             this.codeLengths = codeLengths;
+            this.chunkType = chunkType;
+            this.streamCount = streamCount;
+            this.checkpointInterval = checkpointInterval;
+            this.checkpoints = checkpoints;
+        }
+        
+        ChunkMetadata toMetadata() {
+            return new ChunkMetadata(index, originalOffset, originalSize, compressedOffset, compressedSize,
+                                     checksum, codeLengths, chunkType, streamCount,
+                                     checkpointInterval, checkpoints);
         }
     }
     
-    private int readChunk(FileChannel channel, byte[] buffer, long offset, long fileSize) 
-            throws IOException {
-        long remaining = fileSize - offset;
-        int toRead = (int) Math.min(buffer.length, remaining);
+    /**
+     * Chunks in flight during compression: enough to keep every CPU worker
+     * busy while the I/O threads write, capped by the memory budget
+     * (each chunk holds its input and compressed buffers).
+     */
+    int compressionWindow() {
+        return Math.min(options.inFlightChunks(), options.chunksInBudget(2L * chunkSizeBytes));
+    }
+    
+    /**
+     * Wait for a chunk's write on the I/O pool, rethrowing its failure.
+     */
+    /**
+     * Chunk writes handed to the I/O pool. Each write is tracked before it
+     * can start, so a failed compression can skip the writes that have not
+     * started (handing their buffers back) and wait for the others.
+     */
+    private static final class PendingWrites {
+        
+        /** A chunk write, or the cleanup that replaces a skipped one. */
+        @FunctionalInterface
+        interface Write {
+            void run() throws IOException;
+        }
         
-        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, toRead);
-        channel.position(offset);
+        private final Executor executor;
+        private final Set<CompletableFuture<Void>> pending = ConcurrentHashMap.newKeySet();
+        private volatile boolean aborted;
         
-        int totalRead = 0;
-        while (totalRead < toRead) {
-            int read = channel.read(byteBuffer);
-            if (read == -1) break;
-            totalRead += read;
+        PendingWrites(Executor executor) {
+            this.executor = executor;
         }
         
-        return totalRead;
-    }
-    
-    private byte[] encodeChunk(byte[] data, int length, HuffmanCode[] codes) {
-        BitOutputStream bitOut = new BitOutputStream();
+        CompletableFuture<Void> submit(Write write, Write skip) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            pending.add(future);
+            try {
+                executor.execute(() -> {
+                    try {
+                        if (aborted) {
+                            skip.run();
+                        } else {
+                            write.run();
+                        }
+                        future.complete(null);
+                    } catch (Throwable e) {
+                        future.completeExceptionally(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                pending.remove(future);
+                throw e;
+            }
+            return future;
+        }
         
-        for (int i = 0; i < length; i++) {
-            int symbol = data[i] & 0xFF;
-            HuffmanCode code = codes[symbol];
-            if (code != null) {
-                bitOut.writeBits(code.getCodeword(), code.getCodeLength());
+        /**
+         * Wait for one write and stop tracking it.
+         */
+        void await(CompletableFuture<Void> written) throws IOException {
+            try {
+                written.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof IOException io) {
+                    throw io;
+                }
+                throw new IOException("Chunk write failed", e.getCause());
+            } finally {
+                pending.remove(written);
             }
         }
         
-        return bitOut.toByteArray();
+        /**
+         * Skip writes that have not started and wait for the rest; their
+         * outcome no longer matters.
+         */
+        void abort() {
+            aborted = true;
+            for (CompletableFuture<Void> future : pending) {
+                try {
+                    future.join();
+                } catch (CompletionException e) {
+                    // The compression already failed
+                }
+            }
+        }
+    }
+    
+    /**
+     * Hand a written (or abandoned) chunk's compressed buffer back to the pool.
+     */
+    private void releaseCompressed(CompressedChunkData chunkData) {
+        if (chunkData.compressedData != null && chunkData.chunkType != ChunkType.CONSTANT) {
+            bufferPool.release(chunkData.compressedData);
+        }
+        chunkData.compressedData = null;
+    }
+    
+    /**
+     * Claim the next output range for a chunk and write it there with
+     * positional writes (safe from any worker); a pooled compressed buffer
+     * goes back to the pool afterwards. A stored chunk is copied from the input
+     * with {@code transferTo} through its own output channel, whose position
+     * no other writer shares.
+     */
+    private void writeChunk(FileChannel channel, Path outputPath, ChunkReader reader,
+                            CompressedChunkData chunkData, AtomicLong nextOffset) throws IOException {
+        long writeStart = System.nanoTime();
+        long position = nextOffset.getAndAdd(chunkData.compressedSize);
+        if (chunkData.chunkType == ChunkType.STORED) {
+            try (FileChannel target = FileChannel.open(outputPath, StandardOpenOption.WRITE)) {
+                reader.transferTo(chunkData.originalOffset, chunkData.compressedSize, target.position(position));
+            }
+        } else {
+            ByteBuffer buffer = ByteBuffer.wrap(chunkData.compressedData, 0, chunkData.compressedSize);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, position + buffer.position());
+            }
+            releaseCompressed(chunkData);
+        }
+        chunkData.compressedOffset = position;
+        synchronized (lastStageMetrics) {
+            lastStageMetrics.recordStage(StageMetrics.Stage.FILE_IO, System.nanoTime() - writeStart,
+                chunkData.compressedSize);
+        }
+    }
+    
+    /**
+     * Word-at-a-time encoding into a caller-provided output array,
+     * split into interleaved streams when streamCount > 1, recording
+     * checkpoints along the way.
+     *
+     * @return Number of bytes written
+     */
+    private int encodeChunk(ByteBuffer data, int length, HuffmanEncoder encoder, int streamCount,
+                            byte[] output, int checkpointInterval, long[] checkpoints) {
+        if (streamCount > 1) {
+            return encoder.encodeStreams(data, 0, length, streamCount, output, checkpointInterval, checkpoints);
+        }
+        return encoder.encode(data, 0, length, output, checkpointInterval, checkpoints);
     }
     
     @Override
@@ -319,197 +504,310 @@ public class CpuCompressionService implements CompressionService, AutoCloseable
                           Consumer<Double> progressCallback) throws IOException {
         // Reset metrics for new operation
         lastStageMetrics = new StageMetrics();
+        AllocationMeter allocation = AllocationMeter.start();
         
         long startTime = System.nanoTime();
         
         logger.info("🚀 Parallel decompression: {} to {} using {} workers", 
                    inputPath.getFileName(), outputPath.getFileName(), parallelChunks);
         
-        // Read header - supports both old (header-first) and new (footer-last) formats
-        CompressionHeader header = null;
-        long compressedDataStart = 0;
-        boolean isFooterFormat = false;
-        
-        try (RandomAccessFile file = new RandomAccessFile(inputPath.toFile(), "r")) {
-            long headerStart = System.nanoTime();
-            long totalFileSize = file.length();
+        // Chunk table from the footer (or a legacy leading header), read once
+        try (DczFile file = openCompressed(inputPath)) {
+            CompressionHeader header = file.getHeader();
+            lastStageMetrics.setChecksumAlgorithm(header.getChecksumAlgorithm().getName());
+            logger.info("Decompressing {} chunks ({} format), original size: {} bytes",
+                       header.getNumChunks(), file.isFooterFormat() ? "footer-last" : "header-first",
+                       header.getOriginalFileSize());
             
-            // First, try reading header from beginning (old format)
-            file.seek(0);
-            try {
-                byte[] headerBuffer = new byte[Math.min(64 * 1024, (int) totalFileSize)];
-                file.readFully(headerBuffer, 0, Math.min(4096, headerBuffer.length));
-                ByteArrayInputStream headerStream = new ByteArrayInputStream(headerBuffer);
-                DataInputStream headerInput = new DataInputStream(headerStream);
-                
-                header = CompressionHeader.readFrom(headerInput);
-                
-                // If successful, this is old header-first format
-                // Calculate where compressed data starts
-                long totalCompressedSize = 0;
-                for (ChunkMetadata chunk : header.getChunks()) {
-                    totalCompressedSize += chunk.getCompressedSize();
-                }
-                compressedDataStart = totalFileSize - totalCompressedSize;
-                isFooterFormat = false;
-                
-                logger.info("Decompressing {} chunks (header-first format), original size: {} bytes",
-                           header.getNumChunks(), header.getOriginalFileSize());
-                
-            } catch (Exception e) {
-                // Old format failed, try new footer-last format
-                header = null;
-                
-                logger.debug("Header-first format failed, trying footer-last format");
-                
-                // NEW APPROACH: Read last 8 bytes to get footer start position
-                file.seek(totalFileSize - 8);
-                long footerStartPosition = file.readLong();
-                
-                logger.debug("Read footer pointer: footer starts at offset {}", footerStartPosition);
-                
-                // Validate footer position
-                if (footerStartPosition < 0 || footerStartPosition >= totalFileSize - 8) {
-                    throw new IOException("Invalid footer position: " + footerStartPosition);
+            if (options.isMemoryMappedIo()) {
+                decompressMapped(file, outputPath, progressCallback);
+            } else {
+                decompressStreaming(file, outputPath, progressCallback);
+            }
+        }
+        
+        long duration = System.nanoTime() - startTime;
+        long outputSize = Files.size(outputPath);
+        double throughputMBps = (outputSize / 1_000_000.0) / (duration / 1_000_000_000.0);
+        
+        logger.info("✅ Parallel decompression complete: {} bytes in {:.2f}s ({:.2f} MB/s)",
+                   outputSize, duration / 1e9, throughputMBps);
+        
+        lastStageMetrics.recordAllocation(allocation.allocatedBytes(), outputSize);
+        
+        // Log stage metrics
+        logger.info("\n{}", lastStageMetrics.getSummary());
+    }
+    
+    @Override
+    public long decompressRange(Path inputPath, long offset, long length,
+                                WritableByteChannel output) throws IOException {
+        lastStageMetrics = new StageMetrics();
+        try (DczFile file = openCompressed(inputPath)) {
+            lastStageMetrics.setChecksumAlgorithm(file.getHeader().getChecksumAlgorithm().getName());
+            return decompressRange(file, offset, length, output);
+        }
+    }
+    
+    /**
+     * Range extraction from an already open file, reusing its cached chunk
+     * table (open the file once to extract many ranges).
+     *
+     * @see #decompressRange(Path, long, long, WritableByteChannel)
+     */
+    public long decompressRange(DczFile file, long offset, long length,
+                                WritableByteChannel output) throws IOException {
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("Invalid range: offset " + offset + ", length " + length);
+        }
+        long fileSize = file.getOriginalSize();
+        if (offset >= fileSize || length == 0) {
+            return 0;
+        }
+        long end = offset + Math.min(length, fileSize - offset);
+        
+        // Only the chunks overlapping the range, found by binary search on their offsets
+        int first = file.chunkIndexAt(offset);
+        int last = file.chunkIndexAt(end - 1);
+        int numChunks = last - first + 1;
+        List<ChunkMetadata> chunks = file.getChunks();
+        ChecksumAlgorithm checksum = file.getHeader().getChecksumAlgorithm();
+        boolean splitChunks = numChunks < parallelChunks;
+        int window = options.chunksInBudget(2L * file.getHeader().getChunkSizeBytes());
+        OrderedChunkPipeline<DecodedChunkData> pipeline = new OrderedChunkPipeline<>(executorService, window);
+        long[] written = {0};
+        
+        logger.debug("Extracting bytes [{}, {}) from chunks {}..{} of {}", offset, end, first, last,
+                    file.getPath().getFileName());
+        
+        pipeline.run(numChunks,
+            index -> {
+                ChunkMetadata chunk = chunks.get(first + index);
+                int from = (int) Math.max(0, offset - chunk.getOriginalOffset());
+                int to = (int) Math.min(chunk.getOriginalSize(), end - chunk.getOriginalOffset());
+                byte[] compressedData = readCompressedChunk(file, chunk);
+                try {
+                    return decodeChunkRange(compressedData, chunk, from, to, splitChunks, checksum);
+                } finally {
+                    bufferPool.release(compressedData);
                 }
-                
-                // Seek to footer and read it
-                file.seek(footerStartPosition);
-                byte[] footerBuffer = new byte[(int)(totalFileSize - footerStartPosition - 8)]; // Exclude the 8-byte pointer
-                file.readFully(footerBuffer);
-                
-                ByteArrayInputStream footerStream = new ByteArrayInputStream(footerBuffer);
-                DataInputStream footerInput = new DataInputStream(footerStream);
-                
-                header = CompressionHeader.readFrom(footerInput);
-                compressedDataStart = 0; // Data starts at beginning in footer format
-                
-                logger.info("Decompressing {} chunks (footer-based format, footer at {}), original size: {} bytes",
-                           header.getNumChunks(), footerStartPosition, header.getOriginalFileSize());
-                
-                if (header == null) {
-                    throw new IOException("Could not find valid header in compressed file (tried both header-first and footer-last formats)");
+            },
+            (index, chunkData) -> {
+                ByteBuffer buffer = ByteBuffer.wrap(chunkData.decodedData, chunkData.offset, chunkData.length);
+                while (buffer.hasRemaining()) {
+                    output.write(buffer);
                 }
-            }
-            
-            lastStageMetrics.recordStage(StageMetrics.Stage.FILE_IO, System.nanoTime() - headerStart, 0);
+                bufferPool.release(chunkData.decodedData);
+                written[0] += chunkData.length;
+            });
+        return written[0];
+    }
+    
+    /**
+     * Decode bytes {@code [from, to)} of one chunk into a pooled buffer. A
+     * whole chunk is decoded and verified as usual; an edge chunk is decoded
+     * from the nearest checkpoint at or before {@code from} (its start if it
+     * has none) and trimmed, so its checksum, which covers the whole chunk,
+     * cannot be checked. A stored edge chunk is copied and a constant one filled.
+     */
+    private DecodedChunkData decodeChunkRange(byte[] compressedData, ChunkMetadata chunk, int from, int to,
+                                              boolean splitChunk, ChecksumAlgorithm checksum) throws IOException {
+        int index = chunk.getChunkIndex();
+        if (from == 0 && to == chunk.getOriginalSize()) {
+            byte[] decodedData = bufferPool.acquire(to);
+            decodeChunkInto(index, compressedData, chunk, ByteBuffer.wrap(decodedData), splitChunk, checksum);
+            return new DecodedChunkData(index, decodedData, to);
         }
         
-        // Process chunks in batches to avoid OOM (read batch -> decode parallel -> write -> free memory)
-        // Smaller batch size to reduce memory footprint
-        int batchSize = Math.max(parallelChunks, 4);  // Only keep 1x worker count in memory
-        AtomicInteger completedChunks = new AtomicInteger(0);
+        if (chunk.getChunkType() == ChunkType.STORED) {
+            byte[] decodedData = bufferPool.acquire(to - from);
+            System.arraycopy(compressedData, from, decodedData, 0, to - from);
+            return new DecodedChunkData(index, decodedData, to - from);
+        }
+        if (chunk.getChunkType() == ChunkType.CONSTANT) {
+            byte[] decodedData = bufferPool.acquire(to - from);
+            Arrays.fill(decodedData, 0, to - from, compressedData[0]);
+            return new DecodedChunkData(index, decodedData, to - from);
+        }
         
-        try (RandomAccessFile inputFile = new RandomAccessFile(inputPath.toFile(), "r");
-             FileChannel outputChannel = FileChannel.open(outputPath,
+        long decodeStart = System.nanoTime();
+        int start = chunk.checkpointAtOrBefore(from);
+        byte[] decodedData = bufferPool.acquire(to - start);
+        TableBasedHuffmanDecoder decoder = new TableBasedHuffmanDecoder(rebuildCodes(chunk.getCodeLengths()));
+        decodeRanges(decoder, compressedData, chunk, start, to, ByteBuffer.wrap(decodedData),
+                     splitChunk ? parallelChunks : 1);
+        synchronized (lastStageMetrics) {
+            lastStageMetrics.recordStage(StageMetrics.Stage.DECODING, System.nanoTime() - decodeStart, to - start);
+        }
+        return new DecodedChunkData(index, decodedData, from - start, to - from);
+    }
+    
+    /**
+     * Sliding-window decompression: workers read (positional, no lock) and decode
+     * chunks ahead while this thread writes finished ones in order. A slow chunk
+     * only delays its own write; the rest of the window keeps decoding behind it.
+     * Stored chunks are only verified (through a mapping) by the workers and
+     * copied from the compressed file with {@code transferTo} by the writer;
+     * zero-filled chunks are skipped over, leaving holes in the output.
+     */
+    private void decompressStreaming(DczFile file, Path outputPath,
+                                     Consumer<Double> progressCallback) throws IOException {
+        CompressionHeader header = file.getHeader();
+        int numChunks = header.getNumChunks();
+        long bytesPerChunk = 2L * header.getChunkSizeBytes(); // Compressed + decoded
+        int window = options.chunksInBudget(bytesPerChunk);
+        OrderedChunkPipeline<DecodedChunkData> pipeline = new OrderedChunkPipeline<>(executorService, window);
+        List<ChunkMetadata> chunks = header.getChunks();
+        ChecksumAlgorithm checksum = header.getChecksumAlgorithm();
+        long[] writeNanos = {0};
+        // Too few chunks to occupy every worker: split each one at its checkpoints
+        boolean splitChunks = numChunks < parallelChunks;
+        
+        logger.debug("Decompressing {} chunks with a window of {} ({} MB budget)", 
+                    numChunks, window, options.getMemoryBudgetMB());
+        
+        try (FileChannel outputChannel = FileChannel.open(outputPath,
                 StandardOpenOption.CREATE, StandardOpenOption.WRITE,
                 StandardOpenOption.TRUNCATE_EXISTING)) {
             
-            int numChunks = header.getNumChunks();
-            int numBatches = (numChunks + batchSize - 1) / batchSize;
-            
-            logger.debug("Processing {} chunks in {} batches of ~{} chunks (memory-efficient streaming)", 
-                        numChunks, numBatches, batchSize);
-            
-            for (int batchIdx = 0; batchIdx < numBatches; batchIdx++) {
-                int startChunk = batchIdx * batchSize;
-                int endChunk = Math.min(startChunk + batchSize, numChunks);
-                int batchChunkCount = endChunk - startChunk;
-                
-                // Read ONLY this batch's compressed data (streaming from disk)
-                Map<Integer, byte[]> compressedBatchData = new ConcurrentHashMap<>();
-                long readStart = System.nanoTime();
-                
-                synchronized (inputFile) {  // Synchronized file access
-                    for (int i = startChunk; i < endChunk; i++) {
-                        ChunkMetadata chunk = header.getChunks().get(i);
-                        byte[] compressedData = new byte[chunk.getCompressedSize()];
-                        
-                        // Seek to absolute position: header + chunk's compressed offset
-                        long absolutePosition = compressedDataStart + chunk.getCompressedOffset();
-                        
-                        logger.info("Reading chunk {}: offset={}, size={}, absolutePos={}, dataStart={}", 
-                                   i, chunk.getCompressedOffset(), chunk.getCompressedSize(), 
-                                   absolutePosition, compressedDataStart);
-                        
-                        inputFile.seek(absolutePosition);
-                        inputFile.readFully(compressedData);
-                        compressedBatchData.put(i, compressedData);
+            pipeline.run(numChunks,
+                index -> {
+                    ChunkMetadata chunk = chunks.get(index);
+                    if (chunk.getChunkType() == ChunkType.STORED) {
+                        verifyStored(file, chunk);
+                        return new DecodedChunkData(index, null, chunk.getOriginalSize());
                     }
-                }
-                lastStageMetrics.recordStage(StageMetrics.Stage.FILE_IO, System.nanoTime() - readStart, 
-                    batchChunkCount * (long)chunkSizeBytes);
-                
-                // Submit batch for parallel decoding
-                Map<Integer, byte[]> decodedChunks = new ConcurrentHashMap<>();
-                List<Future<DecodedChunkData>> futures = new ArrayList<>();
-                
-                for (int i = startChunk; i < endChunk; i++) {
-                    final int index = i;
-                    final ChunkMetadata chunk = header.getChunks().get(i);
-                    final byte[] compressedData = compressedBatchData.get(i);
-                    
-                    Future<DecodedChunkData> future = executorService.submit(() -> 
-                        decodeChunkParallel(index, compressedData, chunk)
-                    );
-                    futures.add(future);
-                }
-                
-                // Collect batch results
-                for (Future<DecodedChunkData> future : futures) {
+                    if (chunk.getChunkType() == ChunkType.CONSTANT) {
+                        byte fill = readFill(file, chunk);
+                        if (fill == 0) {
+                            return new DecodedChunkData(index, null, chunk.getOriginalSize());
+                        }
+                        byte[] decodedData = bufferPool.acquire(chunk.getOriginalSize());
+                        Arrays.fill(decodedData, 0, chunk.getOriginalSize(), fill);
+                        return new DecodedChunkData(index, decodedData, chunk.getOriginalSize());
+                    }
+                    byte[] compressedData = readCompressedChunk(file, chunk);
+                    byte[] decodedData = bufferPool.acquire(chunk.getOriginalSize());
                     try {
-                        DecodedChunkData chunkData = future.get();
-                        decodedChunks.put(chunkData.index, chunkData.decodedData);
-                        
-                        int completed = completedChunks.incrementAndGet();
-                        if (progressCallback != null) {
-                            progressCallback.accept((double) completed / numChunks);
+                        decodeChunkInto(index, compressedData, chunk, ByteBuffer.wrap(decodedData), splitChunks,
+                                        checksum);
+                    } finally {
+                        bufferPool.release(compressedData);
+                    }
+                    return new DecodedChunkData(index, decodedData, chunk.getOriginalSize());
+                },
+                (index, chunkData) -> {
+                    long writeStart = System.nanoTime();
+                    if (chunkData.decodedData == null && chunks.get(index).getChunkType() == ChunkType.STORED) {
+                        file.transferChunk(chunks.get(index), outputChannel);
+                    } else if (chunkData.decodedData == null) {
+                        outputChannel.position(outputChannel.position() + chunkData.length);
+                    } else {
+                        ByteBuffer buffer = ByteBuffer.wrap(chunkData.decodedData, 0, chunkData.length);
+                        while (buffer.hasRemaining()) {
+                            outputChannel.write(buffer);
                         }
-                        
-                    } catch (InterruptedException | ExecutionException e) {
-                        throw new IOException("Chunk decompression failed", e);
+                        bufferPool.release(chunkData.decodedData);
                     }
-                }
-                
-                // Write batch in order (this frees memory immediately)
-                long writeStart = System.nanoTime();
-                for (int i = startChunk; i < endChunk; i++) {
-                    byte[] decodedData = decodedChunks.get(i);
-                    outputChannel.write(ByteBuffer.wrap(decodedData));
-                }
-                lastStageMetrics.recordStage(StageMetrics.Stage.FILE_IO, System.nanoTime() - writeStart, 
-                    batchChunkCount * (long)chunkSizeBytes);
-                
-                // Clear batch data to free memory ASAP
-                compressedBatchData.clear();
-                decodedChunks.clear();
-                futures.clear();
-                
-                logger.debug("Batch {}/{} complete ({}-{}), memory freed", 
-                           batchIdx + 1, numBatches, startChunk, endChunk - 1);
+                    writeNanos[0] += System.nanoTime() - writeStart;
+                    
+                    if (progressCallback != null) {
+                        progressCallback.accept((double) (index + 1) / numChunks);
+                    }
+                });
+            
+            // A skipped zero chunk at the end leaves the file short: its last byte sets the length
+            long originalSize = header.getOriginalFileSize();
+            if (outputChannel.size() < originalSize) {
+                outputChannel.write(ByteBuffer.allocate(1), originalSize - 1);
             }
         }
+        lastStageMetrics.recordStage(StageMetrics.Stage.FILE_IO, writeNanos[0], header.getOriginalFileSize());
+    }
+    
+    /**
+     * Zero-copy decompression into a pre-sized, memory-mapped output file.
+     * The footer gives every chunk's original offset and size, so each worker
+     * maps its own slice and decodes straight into it: no intermediate array
+     * and no ordered write stage. Only compressed chunks are held on the heap,
+     * in pooled buffers; stored chunks are verified in place and copied with
+     * {@code transferTo}, constant chunks are filled and zero-filled ones left
+     * as holes.
+     */
+    private void decompressMapped(DczFile file, Path outputPath,
+                                  Consumer<Double> progressCallback) throws IOException {
+        CompressionHeader header = file.getHeader();
+        int numChunks = header.getNumChunks();
+        int window = options.chunksInBudget(header.getChunkSizeBytes());
+        OrderedChunkPipeline<Integer> pipeline = new OrderedChunkPipeline<>(executorService, window);
+        List<ChunkMetadata> chunks = header.getChunks();
+        ChecksumAlgorithm checksum = header.getChecksumAlgorithm();
+        boolean splitChunks = numChunks < parallelChunks;
         
-        long duration = System.nanoTime() - startTime;
-        long outputSize = Files.size(outputPath);
-        double throughputMBps = (outputSize / 1_000_000.0) / (duration / 1_000_000_000.0);
-        
-        logger.info("✅ Parallel decompression complete: {} bytes in {:.2f}s ({:.2f} MB/s)",
-                   outputSize, duration / 1e9, throughputMBps);
-        
-        // Aggressive memory cleanup
-        System.gc();
-        logger.debug("🧹 Memory cleanup complete after decompression");
+        logger.debug("Decompressing {} chunks into a mapped {} byte file, window of {}", 
+                    numChunks, header.getOriginalFileSize(), window);
         
-        // Log stage metrics
-        logger.info("\n{}", lastStageMetrics.getSummary());
+        try (RandomAccessFile outputFile = new RandomAccessFile(outputPath.toFile(), "rw")) {
+            // Truncate first so chunks that are never written read as zeros, not stale bytes
+            outputFile.setLength(0);
+            outputFile.setLength(header.getOriginalFileSize());
+            FileChannel outputChannel = outputFile.getChannel();
+            
+            pipeline.run(numChunks,
+                index -> {
+                    ChunkMetadata chunk = chunks.get(index);
+                    if (chunk.getChunkType() == ChunkType.STORED) {
+                        verifyStored(file, chunk);
+                        try (FileChannel target = FileChannel.open(outputPath, StandardOpenOption.WRITE)) {
+                            file.transferChunk(chunk, target.position(chunk.getOriginalOffset()));
+                        }
+                        return index;
+                    }
+                    if (chunk.getChunkType() == ChunkType.CONSTANT) {
+                        byte fill = readFill(file, chunk);
+                        if (fill != 0) {
+                            fill(outputChannel.map(FileChannel.MapMode.READ_WRITE,
+                                chunk.getOriginalOffset(), chunk.getOriginalSize()), chunk.getOriginalSize(), fill);
+                        }
+                        return index;
+                    }
+                    byte[] compressedData = readCompressedChunk(file, chunk);
+                    try {
+                        MappedByteBuffer slice = outputChannel.map(FileChannel.MapMode.READ_WRITE,
+                            chunk.getOriginalOffset(), chunk.getOriginalSize());
+                        decodeChunkInto(index, compressedData, chunk, slice, splitChunks, checksum);
+                    } finally {
+                        bufferPool.release(compressedData);
+                    }
+                    return index;
+                },
+                (index, chunkIndex) -> {
+                    // Progress only: chunks land in their slices as soon as they are decoded
+                    if (progressCallback != null) {
+                        progressCallback.accept((double) (index + 1) / numChunks);
+                    }
+                });
+        }
     }
     
     /**
-     * Decode a single chunk in parallel.
+     * Decode a single chunk into {@code output} (absolute indices from 0) and
+     * verify its checksum there.
      */
-    private DecodedChunkData decodeChunkParallel(int index, byte[] compressedData, 
-                                                 ChunkMetadata chunk) throws IOException {
+    private void decodeChunkInto(int index, byte[] compressedData, ChunkMetadata chunk,
+                                 ByteBuffer output, boolean splitChunk, ChecksumAlgorithm checksum)
+            throws IOException {
+        if (chunk.getChunkType() == ChunkType.STORED) {
+            output.put(0, compressedData, 0, chunk.getOriginalSize());
+            verifyChecksum(index, chunk, output, checksum);
+            return;
+        }
+        if (chunk.getChunkType() == ChunkType.CONSTANT) {
+            verifyConstant(chunk, compressedData[0], checksum);
+            fill(output, chunk.getOriginalSize(), compressedData[0]);
+            return;
+        }
+        
         // Track Huffman tree rebuild
         long huffmanStart = System.nanoTime();
         int[] codeLengths = chunk.getCodeLengths();
@@ -520,7 +818,8 @@ public class CpuCompressionService implements CompressionService, AutoCloseable
         
         // Track decoding (now using fast table-based decoder)
         long decodeStart = System.nanoTime();
-        byte[] decodedData = decodeChunkFast(compressedData, chunk.getOriginalSize(), codes);
+        decodeChunkFast(compressedData, chunk, codes, output, splitChunk);
+        int decodedLength = chunk.getOriginalSize();
         
         // Clear codes array to help GC (no longer needed)
         for (int i = 0; i < codes.length; i++) {
@@ -528,14 +827,129 @@ public class CpuCompressionService implements CompressionService, AutoCloseable
         }
         
         synchronized (lastStageMetrics) {
-            lastStageMetrics.recordStage(StageMetrics.Stage.DECODING, System.nanoTime() - decodeStart, decodedData.length);
+            lastStageMetrics.recordStage(StageMetrics.Stage.DECODING, System.nanoTime() - decodeStart, decodedLength);
         }
         
         // Track checksum verification
         long checksumStart = System.nanoTime();
-        byte[] checksum = ChecksumUtil.computeSha256(decodedData);
-        if (!MessageDigest.isEqual(checksum, chunk.getSha256Checksum())) {
-            String expectedHex = bytesToHex(chunk.getSha256Checksum());
+        verifyChecksum(index, chunk, output, checksum);
+        synchronized (lastStageMetrics) {
+            long checksumNanos = System.nanoTime() - checksumStart;
+            lastStageMetrics.recordStage(StageMetrics.Stage.CHECKSUM_VERIFY, checksumNanos, decodedLength);
+            lastStageMetrics.recordChecksum(checksumNanos, decodedLength);
+        }
+    }
+    
+    /**
+     * Decode one whole chunk on the calling thread and verify it, for
+     * readers outside the service's pipelines (no metrics, no splitting).
+     */
+    static void decodeVerified(byte[] compressedData, ChunkMetadata chunk, ByteBuffer output,
+                               ChecksumAlgorithm checksum) throws IOException {
+        if (chunk.getChunkType() == ChunkType.CONSTANT) {
+            verifyConstant(chunk, compressedData[0], checksum);
+            fill(output, chunk.getOriginalSize(), compressedData[0]);
+            return;
+        }
+        if (chunk.getChunkType() == ChunkType.STORED) {
+            output.put(0, compressedData, 0, chunk.getOriginalSize());
+        } else {
+            TableBasedHuffmanDecoder decoder = new TableBasedHuffmanDecoder(
+                CanonicalHuffman.generateCanonicalCodesFromLengths(chunk.getCodeLengths()));
+            decodeWhole(decoder, compressedData, chunk, output);
+        }
+        verifyChecksum(chunk.getChunkIndex(), chunk, output, checksum);
+    }
+    
+    /**
+     * Verify a stored chunk where it lies in the compressed file.
+     */
+    private void verifyStored(DczFile file, ChunkMetadata chunk) throws IOException {
+        long checksumStart = System.nanoTime();
+        verifyChecksum(chunk.getChunkIndex(), chunk, file.mapChunk(chunk), file.getHeader().getChecksumAlgorithm());
+        synchronized (lastStageMetrics) {
+            long checksumNanos = System.nanoTime() - checksumStart;
+            lastStageMetrics.recordStage(StageMetrics.Stage.CHECKSUM_VERIFY, checksumNanos, chunk.getOriginalSize());
+            lastStageMetrics.recordChecksum(checksumNanos, chunk.getOriginalSize());
+        }
+    }
+    
+    /**
+     * Read a constant chunk's fill byte.
+     */
+    private byte readFill(DczFile file, ChunkMetadata chunk) throws IOException {
+        byte[] compressedData = readCompressedChunk(file, chunk);
+        try {
+            verifyConstant(chunk, compressedData[0], file.getHeader().getChecksumAlgorithm());
+            return compressedData[0];
+        } finally {
+            bufferPool.release(compressedData);
+        }
+    }
+    
+    /**
+     * Fill {@code output} from index 0 with {@code size} copies of {@code value},
+     * eight bytes at a time when it is not backed by an array.
+     */
+    private static void fill(ByteBuffer output, int size, byte value) {
+        if (output.hasArray()) {
+            Arrays.fill(output.array(), output.arrayOffset(), output.arrayOffset() + size, value);
+            return;
+        }
+        long word = (value & 0xFFL) * 0x0101010101010101L;
+        int i = 0;
+        for (; i + Long.BYTES <= size; i += Long.BYTES) {
+            output.putLong(i, word);
+        }
+        for (; i < size; i++) {
+            output.put(i, value);
+        }
+    }
+    
+    /**
+     * Check a constant chunk against its stored checksum without expanding it.
+     */
+    private static void verifyConstant(ChunkMetadata chunk, byte value, ChecksumAlgorithm algorithm)
+            throws IOException {
+        int size = chunk.getOriginalSize();
+        int key = (algorithm.getId() << 8) | (value & 0xFF);
+        ConstantChecksum cached = CONSTANT_CHECKSUMS.get(key);
+        if (cached == null || cached.size != size) {
+            byte[] tile = new byte[Math.min(size, ChunkScanner.DEFAULT_TILE_BYTES)];
+            Arrays.fill(tile, value);
+            MessageDigest digest = algorithm.createDigest();
+            for (int done = 0; done < size; done += tile.length) {
+                digest.update(tile, 0, Math.min(tile.length, size - done));
+            }
+            ConstantChecksum computed = new ConstantChecksum(size, algorithm.checksum(digest));
+            CONSTANT_CHECKSUMS.merge(key, computed, (old, added) -> added.size > old.size ? added : old);
+            cached = computed;
+        }
+        checkChecksum(chunk.getChunkIndex(), chunk, cached.checksum);
+    }
+    
+    /** Checksum of a constant chunk of {@code size} bytes. */
+    private static final class ConstantChecksum {
+        final int size;
+        final byte[] checksum;
+        
+        ConstantChecksum(int size, byte[] checksum) {
+            this.size = size;
+            this.checksum = checksum;
+        }
+    }
+    
+    /**
+     * Check a decoded chunk (absolute indices from 0) against its stored checksum.
+     */
+    private static void verifyChecksum(int index, ChunkMetadata chunk, ByteBuffer output,
+                                       ChecksumAlgorithm algorithm) throws IOException {
+        checkChecksum(index, chunk, algorithm.compute(output.slice(0, chunk.getOriginalSize())));
+    }
+    
+    private static void checkChecksum(int index, ChunkMetadata chunk, byte[] checksum) throws IOException {
+        if (!MessageDigest.isEqual(checksum, chunk.getChecksum())) {
+            String expectedHex = bytesToHex(chunk.getChecksum());
             String actualHex = bytesToHex(checksum);
             throw new IOException(String.format(
                 "Checksum mismatch in chunk %d:\n" +
@@ -545,14 +959,9 @@ public class CpuCompressionService implements CompressionService, AutoCloseable
                 "  Compressed size: %d bytes\n" +
                 "  Compressed offset: %d",
                 index, expectedHex, actualHex, 
-                chunk.getOriginalSize(), compressedData.length, 
+                chunk.getOriginalSize(), chunk.getCompressedSize(), 
                 chunk.getCompressedOffset()));
         }
-        synchronized (lastStageMetrics) {
-            lastStageMetrics.recordStage(StageMetrics.Stage.CHECKSUM_VERIFY, System.nanoTime() - checksumStart, decodedData.length);
-        }
-        
-        return new DecodedChunkData(index, decodedData);
     }
     
     /**
@@ -567,15 +976,57 @@ public class CpuCompressionService implements CompressionService, AutoCloseable
     }
     
     /**
-     * Container for decoded chunk data.
+     * Open a compressed file, timing the chunk table read.
+     */
+    private DczFile openCompressed(Path inputPath) throws IOException {
+        long headerStart = System.nanoTime();
+        DczFile file = DczFile.open(inputPath);
+        synchronized (lastStageMetrics) {
+            lastStageMetrics.recordStage(StageMetrics.Stage.FILE_IO, System.nanoTime() - headerStart, 0);
+        }
+        return file;
+    }
+    
+    /**
+     * Read one chunk's compressed bytes into a pooled buffer with positional
+     * reads (safe to call concurrently on a shared channel). The buffer may be
+     * longer than the chunk; the caller releases it after decoding.
+     */
+    private byte[] readCompressedChunk(DczFile file, ChunkMetadata chunk) throws IOException {
+        long readStart = System.nanoTime();
+        byte[] compressedData = bufferPool.acquire(chunk.getCompressedSize());
+        try {
+            file.readChunk(chunk, compressedData);
+        } catch (IOException e) {
+            bufferPool.release(compressedData);
+            throw e;
+        }
+        synchronized (lastStageMetrics) {
+            lastStageMetrics.recordStage(StageMetrics.Stage.FILE_IO, System.nanoTime() - readStart,
+                chunk.getCompressedSize());
+        }
+        return compressedData;
+    }
+    
+    /**
+     * Container for decoded chunk data (a pooled buffer; the bytes to write
+     * are {@code [offset, offset + length)}).
      */
     private static class DecodedChunkData {
         final int index;
         final byte[] decodedData;
+        final int offset;
+        final int length;
         
-        DecodedChunkData(int index, byte[] decodedData) {
+        DecodedChunkData(int index, byte[] decodedData, int length) {
+            this(index, decodedData, 0, length);
+        }
+        
+        DecodedChunkData(int index, byte[] decodedData, int offset, int length) {
             this.index = index;
             this.decodedData = decodedData;
+            this.offset = offset;
+            this.length = length;
         }
     }
     
@@ -587,10 +1038,62 @@ public class CpuCompressionService implements CompressionService, AutoCloseable
     
     /**
      * Fast table-based chunk decoding (2-3× faster than tree traversal).
+     * When splitting, a chunk with checkpoints is cut at them into one range
+     * per worker and the ranges are decoded in parallel.
      */
-    private byte[] decodeChunkFast(byte[] compressedData, int originalSize, HuffmanCode[] codes) {
+    private void decodeChunkFast(byte[] compressedData, ChunkMetadata chunk, HuffmanCode[] codes,
+                                 ByteBuffer output, boolean splitChunk) {
         TableBasedHuffmanDecoder fastDecoder = new TableBasedHuffmanDecoder(codes);
-        return fastDecoder.decode(compressedData, originalSize);
+        int ranges = splitChunk ? Math.min(parallelChunks, chunk.getCheckpoints().length + 1) : 1;
+        if (ranges > 1) {
+            decodeRanges(fastDecoder, compressedData, chunk, 0, chunk.getOriginalSize(), output, ranges);
+            return;
+        }
+        decodeWhole(fastDecoder, compressedData, chunk, output);
+    }
+    
+    private static void decodeWhole(TableBasedHuffmanDecoder decoder, byte[] compressedData, ChunkMetadata chunk,
+                                    ByteBuffer output) {
+        int originalSize = chunk.getOriginalSize();
+        int compressedSize = chunk.getCompressedSize();
+        if (chunk.getChunkType() == ChunkType.MULTI_STREAM) {
+            decoder.decodeStreams(compressedData, compressedSize, output, 0, originalSize,
+                                  chunk.getStreamCount());
+        } else {
+            decoder.decode(compressedData, compressedSize, output, 0, originalSize);
+        }
+    }
+    
+    /**
+     * Decode chunk bytes {@code [from, to)} into {@code output} from index 0,
+     * cut at checkpoints into at most {@code ranges} pieces that run in
+     * parallel on the split pool. {@code from} must be a checkpoint position.
+     */
+    private void decodeRanges(TableBasedHuffmanDecoder decoder, byte[] compressedData, ChunkMetadata chunk,
+                              int from, int to, ByteBuffer output, int ranges) {
+        int size = chunk.getOriginalSize();
+        int[] bounds = new int[ranges + 1];
+        for (int range = 0; range < ranges; range++) {
+            int target = from + (int) ((long) (to - from) * range / ranges);
+            bounds[range] = Math.max(from, chunk.checkpointAtOrBefore(target));
+        }
+        bounds[ranges] = to;
+        
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(ranges);
+        for (int range = 0; range < ranges; range++) {
+            int start = bounds[range];
+            int end = bounds[range + 1];
+            if (start < end) {
+                tasks.add(ForkJoinTask.adapt(() -> decoder.decodeRange(
+                    compressedData, chunk.getCompressedSize(), size, chunk.getStreamCount(),
+                    chunk.checkpointBitOffset(start), start, end, output, start - from)));
+            }
+        }
+        if (tasks.size() == 1) {
+            tasks.get(0).invoke();
+        } else {
+            splitPool.invoke(ForkJoinTask.adapt(() -> { ForkJoinTask.invokeAll(tasks); }));
+        }
     }
     
     /**
@@ -642,49 +1145,21 @@ public class CpuCompressionService implements CompressionService, AutoCloseable
     
     @Override
     public boolean verifyIntegrity(Path compressedPath) throws IOException {
-        // Read footer from end of file
-        CompressionHeader header;
-        long compressedDataLength;
-        
-        try (RandomAccessFile file = new RandomAccessFile(compressedPath.toFile(), "r")) {
-            long totalFileSize = file.length();
-            
-            // Read footer from end - scan last 64KB to find it
-            int footerMaxSize = (int) Math.min(64 * 1024, totalFileSize);
-            byte[] buffer = new byte[footerMaxSize];
-            file.seek(totalFileSize - footerMaxSize);
-            file.readFully(buffer);
-            
-            // Try parsing from different positions to find valid header
-            header = null;
-            
-            for (int offset = 0; offset < footerMaxSize - 100; offset++) {
-                try {
-                    ByteArrayInputStream testStream = new ByteArrayInputStream(buffer, offset, footerMaxSize - offset);
-                    DataInputStream testInput = new DataInputStream(testStream);
-                    
-                    CompressionHeader testHeader = CompressionHeader.readFrom(testInput);
-                    
-                    if (testHeader.getChunks().size() > 0 && 
-                        testHeader.getOriginalFileSize() > 0) {
-                        header = testHeader;
-                        compressedDataLength = totalFileSize - footerMaxSize + offset;
-                        break;
-                    }
-                } catch (Exception e) {
-                    continue;
-                }
-            }
-            
-            if (header == null) {
+        // The footer pointer (or a legacy leading header) locates the chunk table directly
+        try (DczFile file = DczFile.open(compressedPath)) {
+            CompressionHeader header = file.getHeader();
+            if (header.getNumChunks() == 0 || header.getOriginalFileSize() <= 0) {
                 throw new IOException("Could not find valid header/footer in compressed file");
             }
             
-            // Read and verify chunks from start of file
-            file.seek(0);
-            for (ChunkMetadata chunk : header.getChunks()) {
-                byte[] compressedData = new byte[chunk.getCompressedSize()];
-                file.readFully(compressedData);
+            // Read every chunk to confirm the data section is complete
+            for (ChunkMetadata chunk : file.getChunks()) {
+                byte[] compressedData = bufferPool.acquire(chunk.getCompressedSize());
+                try {
+                    file.readChunk(chunk, compressedData);
+                } finally {
+                    bufferPool.release(compressedData);
+                }
                 
                 // For verify-only mode, we could skip full decompression
                 // and just verify the compressed data integrity
@@ -705,37 +1180,6 @@ public class CpuCompressionService implements CompressionService, AutoCloseable
         return true;
     }
     
-    /**
-     * Bit-level output stream for encoding.
-     */
-    private static class BitOutputStream {
-        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-        private int currentByte = 0;
-        private int numBitsInCurrentByte = 0;
-        
-        void writeBits(int bits, int numBits) {
-            for (int i = numBits - 1; i >= 0; i--) {
-                int bit = (bits >> i) & 1;
-                currentByte = (currentByte << 1) | bit;
-                numBitsInCurrentByte++;
-                
-                if (numBitsInCurrentByte == 8) {
-                    buffer.write(currentByte);
-                    currentByte = 0;
-                    numBitsInCurrentByte = 0;
-                }
-            }
-        }
-        
-        byte[] toByteArray() {
-            if (numBitsInCurrentByte > 0) {
-                currentByte <<= (8 - numBitsInCurrentByte);
-                buffer.write(currentByte);
-            }
-            return buffer.toByteArray();
-        }
-    }
-    
     /**
      * Bit-level input stream for decoding.
      */
@@ -770,6 +1214,8 @@ public class CpuCompressionService implements CompressionService, AutoCloseable
     @Override
     public void close() {
         logger.info("🛑 Shutting down CPU compression service with {} workers", parallelChunks);
+        ioExecutor.shutdown();
+        splitPool.shutdown();
         executorService.shutdown();
         try {
             // Wait up to 30 seconds for tasks to complete
@@ -781,10 +1227,15 @@ public class CpuCompressionService implements CompressionService, AutoCloseable
                     logger.error("Executor did not terminate after forced shutdown");
                 }
             }
+            if (!ioExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                ioExecutor.shutdownNow();
+            }
             logger.info("✅ CPU compression service shutdown complete");
         } catch (InterruptedException e) {
             logger.error("Shutdown interrupted, forcing immediate shutdown");
             executorService.shutdownNow();
+            ioExecutor.shutdownNow();
+            splitPool.shutdownNow();
             Thread.currentThread().interrupt();
         }
     }
@@ -4,8 +4,9 @@ import com.datacomp.service.FrequencyService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
 import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * CPU-based frequency histogram computation with parallel processing.
@@ -13,7 +14,10 @@ import java.util.concurrent.RecursiveTask;
 public class CpuFrequencyService implements FrequencyService {
     
     private static final Logger logger = LoggerFactory.getLogger(CpuFrequencyService.class);
-    private static final int PARALLEL_THRESHOLD = 64 * 1024; // 64KB
+    private static final int PARALLEL_THRESHOLD = 256 * 1024; // 256KB
+    
+    /** Per-worker leaf totals, reused across tasks. */
+    private static final ThreadLocal<long[]> LEAF_TOTALS = ThreadLocal.withInitial(() -> new long[256]);
     
     private final ForkJoinPool pool;
     
@@ -27,21 +31,12 @@ public class CpuFrequencyService implements FrequencyService {
     
     @Override
     public long[] computeHistogram(byte[] data, int offset, int length) {
+        long[] frequencies = new long[256];
         if (length < PARALLEL_THRESHOLD) {
-            return computeHistogramSequential(data, offset, length);
+            HistogramEngine.accumulate(data, offset, length, frequencies);
         } else {
-            return pool.invoke(new HistogramTask(data, offset, length));
+            pool.invoke(new HistogramTask(data, offset, length, frequencies));
         }
-    }
-    
-    private long[] computeHistogramSequential(byte[] data, int offset, int length) {
-        long[] frequencies = new long[256];
-        int end = offset + length;
-        
-        for (int i = offset; i < end; i++) {
-            frequencies[data[i] & 0xFF]++;
-        }
-        
         return frequencies;
     }
     
@@ -57,50 +52,40 @@ public class CpuFrequencyService implements FrequencyService {
     
     /**
      * Fork/Join task for parallel histogram computation.
+     * 
+     * Leaves count into their worker's scratch sub-tables and add the
+     * result to the shared totals, so splits allocate no histograms.
      */
-    private static class HistogramTask extends RecursiveTask<long[]> {
+    private static class HistogramTask extends RecursiveAction {
         private final byte[] data;
         private final int offset;
         private final int length;
+        private final long[] frequencies;
         
-        HistogramTask(byte[] data, int offset, int length) {
+        HistogramTask(byte[] data, int offset, int length, long[] frequencies) {
             this.data = data;
             this.offset = offset;
             this.length = length;
+            this.frequencies = frequencies;
         }
         
         @Override
-        protected long[] compute() {
+        protected void compute() {
             if (length < PARALLEL_THRESHOLD) {
-                return computeSequential();
+                long[] leaf = LEAF_TOTALS.get();
+                Arrays.fill(leaf, 0);
+                HistogramEngine.accumulate(data, offset, length, leaf);
+                synchronized (frequencies) {
+                    for (int i = 0; i < 256; i++) {
+                        frequencies[i] += leaf[i];
+                    }
+                }
+                return;
             }
             
             int mid = length / 2;
-            HistogramTask left = new HistogramTask(data, offset, mid);
-            HistogramTask right = new HistogramTask(data, offset + mid, length - mid);
-            
-            left.fork();
-            long[] rightResult = right.compute();
-            long[] leftResult = left.join();
-            
-            // Merge results
-            for (int i = 0; i < 256; i++) {
-                leftResult[i] += rightResult[i];
-            }
-            
-            return leftResult;
-        }
-        
-        private long[] computeSequential() {
-            long[] frequencies = new long[256];
-            int end = offset + length;
-            
-            for (int i = offset; i < end; i++) {
-                frequencies[data[i] & 0xFF]++;
-            }
-            
-            return frequencies;
+            invokeAll(new HistogramTask(data, offset, mid, frequencies),
+                      new HistogramTask(data, offset + mid, length - mid, frequencies));
         }
     }
 }
-
@@ -0,0 +1,260 @@
+package com.datacomp.service.cpu;
+
+import com.datacomp.core.ChunkMetadata;
+import com.datacomp.core.DczFile;
+import com.datacomp.util.BufferPool;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Read-only {@link SeekableByteChannel} over the original contents of a
+ * compressed file, without writing the decompressed file anywhere.
+ *
+ * Reads map the position to a chunk through the footer's chunk table and
+ * copy from that chunk's decoded bytes. Decoded chunks are kept in a small
+ * LRU cache, so random reads that revisit a chunk decode it only once. While
+ * reads move forward through the file, the next chunks are decoded ahead on
+ * the background pool so a sequential reader rarely waits. Every chunk is
+ * checksum-verified when it is decoded.
+ *
+ * Like other channels, reads and seeks are serialized on the channel.
+ */
+public final class DczSeekableChannel implements SeekableByteChannel {
+
+    /** Decoded chunks kept for reuse, besides the ones being read ahead. */
+    public static final int DEFAULT_CACHED_CHUNKS = 4;
+
+    /** Chunks decoded ahead of a sequential reader. */
+    public static final int DEFAULT_READ_AHEAD_CHUNKS = 2;
+
+    private final DczFile file;
+    private final List<ChunkMetadata> chunks;
+    private final ExecutorService decodePool;
+    private final boolean ownsPool;
+    private final int readAheadChunks;
+    private final BufferPool bufferPool;
+    private final Map<Integer, CompletableFuture<byte[]>> cache;
+
+    private long position;
+    private int lastChunk = -1;
+    private volatile boolean open = true;
+
+    /**
+     * View over an open file; decoding runs on {@code decodePool}, which the
+     * caller keeps ownership of. Closing the channel closes the file.
+     */
+    public DczSeekableChannel(DczFile file, ExecutorService decodePool, int cachedChunks, int readAheadChunks) {
+        this(file, decodePool, false, cachedChunks, readAheadChunks);
+    }
+
+    private DczSeekableChannel(DczFile file, ExecutorService decodePool, boolean ownsPool,
+                               int cachedChunks, int readAheadChunks) {
+        if (cachedChunks < 1 || readAheadChunks < 0) {
+            throw new IllegalArgumentException("Need at least one cached chunk and no negative read-ahead: "
+                + cachedChunks + ", " + readAheadChunks);
+        }
+        this.file = file;
+        this.chunks = file.getChunks();
+        this.decodePool = decodePool;
+        this.ownsPool = ownsPool;
+        this.readAheadChunks = readAheadChunks;
+        this.bufferPool = BufferPool.shared();
+
+        int capacity = cachedChunks + readAheadChunks;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CompletableFuture<byte[]>> eldest) {
+                if (size() <= capacity) {
+                    return false;
+                }
+                release(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Open a compressed file with the default cache and read-ahead, decoding
+     * on a small pool of its own.
+     */
+    public static DczSeekableChannel open(Path path) throws IOException {
+        DczFile file = DczFile.open(path);
+        int threads = Math.max(1, Math.min(DEFAULT_READ_AHEAD_CHUNKS, Runtime.getRuntime().availableProcessors()));
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "dcz-read-ahead");
+            thread.setDaemon(true);
+            return thread;
+        });
+        return new DczSeekableChannel(file, pool, true, DEFAULT_CACHED_CHUNKS, DEFAULT_READ_AHEAD_CHUNKS);
+    }
+
+    /**
+     * Open a compressed file as an {@link InputStream} of its original
+     * contents. {@code skip} seeks instead of decoding the skipped bytes.
+     */
+    public static InputStream newInputStream(Path path) throws IOException {
+        return Channels.newInputStream(open(path));
+    }
+
+    @Override
+    public synchronized int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        long size = size();
+        if (position >= size) {
+            return -1;
+        }
+
+        int total = 0;
+        while (dst.hasRemaining() && position < size) {
+            int index = file.chunkIndexAt(position);
+            ChunkMetadata chunk = chunks.get(index);
+            byte[] decoded = decodedChunk(index);
+
+            int from = (int) (position - chunk.getOriginalOffset());
+            int count = Math.min(dst.remaining(), chunk.getOriginalSize() - from);
+            dst.put(decoded, from, count);
+            position += count;
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Decoded bytes of a chunk, from the cache or decoded now. Reading the
+     * same or the next chunk as last time counts as sequential and starts
+     * decoding the following chunks in the background.
+     */
+    private byte[] decodedChunk(int index) throws IOException {
+        CompletableFuture<byte[]> decoded = submit(index);
+        if (index == lastChunk || index == lastChunk + 1) {
+            for (int ahead = 1; ahead <= readAheadChunks && index + ahead < chunks.size(); ahead++) {
+                submit(index + ahead);
+            }
+        }
+        lastChunk = index;
+
+        try {
+            return decoded.join();
+        } catch (CompletionException e) {
+            synchronized (cache) {
+                cache.remove(index);  // Let a later read retry
+            }
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw new IOException("Failed to decode chunk " + index, e.getCause());
+        }
+    }
+
+    private CompletableFuture<byte[]> submit(int index) {
+        synchronized (cache) {
+            return cache.computeIfAbsent(index, i -> CompletableFuture.supplyAsync(() -> decode(i), decodePool));
+        }
+    }
+
+    private byte[] decode(int index) {
+        ChunkMetadata chunk = chunks.get(index);
+        byte[] compressedData = bufferPool.acquire(chunk.getCompressedSize());
+        byte[] decodedData = bufferPool.acquire(chunk.getOriginalSize());
+        try {
+            file.readChunk(chunk, compressedData);
+            CpuCompressionService.decodeVerified(compressedData, chunk, ByteBuffer.wrap(decodedData),
+                                                 file.getHeader().getChecksumAlgorithm());
+            return decodedData;
+        } catch (IOException e) {
+            bufferPool.release(decodedData);
+            throw new UncheckedIOException(e);
+        } finally {
+            bufferPool.release(compressedData);
+        }
+    }
+
+    /**
+     * Hand an evicted chunk's buffer back to the pool once it is decoded.
+     * Evictions only happen inside a read, which never copies from the
+     * least recently used chunk, so no reader still holds it.
+     */
+    private void release(CompletableFuture<byte[]> decoded) {
+        decoded.thenAccept(bufferPool::release);
+    }
+
+    @Override
+    public synchronized long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public synchronized SeekableByteChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("Negative position: " + newPosition);
+        }
+        position = newPosition;
+        return this;
+    }
+
+    /**
+     * Size of the original (decompressed) file.
+     */
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return file.getOriginalSize();
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!open) {
+            return;
+        }
+        open = false;
+        List<CompletableFuture<byte[]>> pending;
+        synchronized (cache) {
+            pending = new ArrayList<>(cache.values());
+            cache.clear();
+        }
+        pending.forEach(this::release);
+        if (ownsPool) {
+            decodePool.shutdown();
+        }
+        file.close();
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.datacomp.service.cpu;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Scalar byte histogram with interleaved sub-tables.
+ *
+ * Incrementing a single counter array serializes on store-to-load
+ * forwarding when the same byte repeats (zero pages, padding): every
+ * increment waits for the previous one to the same slot. Here each of the
+ * eight bytes of a 64-bit word goes to its own int sub-table, so a run
+ * becomes eight independent dependency chains.
+ *
+ * Sub-tables are per-thread scratch reused across calls; only the
+ * caller's long[256] result is written.
+ */
+public final class HistogramEngine {
+
+    /** Number of interleaved sub-tables, one per byte of a word. */
+    static final int SUB_TABLES = 8;
+
+    private static final VarHandle LONG_LE =
+        MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final ThreadLocal<int[]> SCRATCH =
+        ThreadLocal.withInitial(() -> new int[SUB_TABLES * 256]);
+
+    private HistogramEngine() {
+    }
+
+    /**
+     * Add the byte counts of a range to a frequency array.
+     *
+     * @param data Input data
+     * @param offset Starting offset
+     * @param length Number of bytes to count
+     * @param frequencies Totals to add to (256 elements)
+     */
+    public static void accumulate(byte[] data, int offset, int length, long[] frequencies) {
+        int[] counts = SCRATCH.get();
+        count(data, offset, length, counts);
+        spill(counts, frequencies);
+    }
+
+    /**
+     * Add the byte counts of a buffer range (absolute indices) to a frequency
+     * array. Direct and mapped buffers are counted in place.
+     */
+    public static void accumulate(ByteBuffer data, int offset, int length, long[] frequencies) {
+        if (data.hasArray()) {
+            accumulate(data.array(), data.arrayOffset() + offset, length, frequencies);
+            return;
+        }
+        int[] counts = SCRATCH.get();
+        count(data.duplicate().order(ByteOrder.LITTLE_ENDIAN), offset, length, counts);
+        spill(counts, frequencies);
+    }
+
+    /**
+     * Shannon entropy of a histogram in bits per byte: a lower bound on the
+     * Huffman-coded size, and 8 for uniformly random bytes.
+     */
+    public static double entropyBits(long[] frequencies) {
+        long total = 0;
+        for (long count : frequencies) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        double bits = 0;
+        for (long count : frequencies) {
+            if (count > 0) {
+                double p = (double) count / total;
+                bits -= p * Math.log(p);
+            }
+        }
+        return bits / Math.log(2);
+    }
+
+    /**
+     * Count a range into the sub-tables. Each sub-table sees every eighth
+     * byte, so no int slot can exceed 2^28 for an int-sized range and the
+     * counts are spilled to long once per call.
+     */
+    private static void count(byte[] data, int offset, int length, int[] counts) {
+        int end = offset + length;
+        int i = offset;
+
+        for (; i <= end - 8; i += 8) {
+            long word = (long) LONG_LE.get(data, i);
+            // Int halves keep the shifts and masks in 32-bit registers
+            int low = (int) word;
+            int high = (int) (word >>> 32);
+            counts[low & 0xFF]++;
+            counts[256 + ((low >>> 8) & 0xFF)]++;
+            counts[512 + ((low >>> 16) & 0xFF)]++;
+            counts[768 + (low >>> 24)]++;
+            counts[1024 + (high & 0xFF)]++;
+            counts[1280 + ((high >>> 8) & 0xFF)]++;
+            counts[1536 + ((high >>> 16) & 0xFF)]++;
+            counts[1792 + (high >>> 24)]++;
+        }
+        for (; i < end; i++) {
+            counts[data[i] & 0xFF]++;
+        }
+    }
+
+    /**
+     * Buffer variant of {@link #count(byte[], int, int, int[])}; the buffer
+     * must be little-endian so sub-table k sees byte k of each word.
+     */
+    private static void count(ByteBuffer data, int offset, int length, int[] counts) {
+        int end = offset + length;
+        int i = offset;
+
+        for (; i <= end - 8; i += 8) {
+            long word = data.getLong(i);
+            int low = (int) word;
+            int high = (int) (word >>> 32);
+            counts[low & 0xFF]++;
+            counts[256 + ((low >>> 8) & 0xFF)]++;
+            counts[512 + ((low >>> 16) & 0xFF)]++;
+            counts[768 + (low >>> 24)]++;
+            counts[1024 + (high & 0xFF)]++;
+            counts[1280 + ((high >>> 8) & 0xFF)]++;
+            counts[1536 + ((high >>> 16) & 0xFF)]++;
+            counts[1792 + (high >>> 24)]++;
+        }
+        for (; i < end; i++) {
+            counts[data.get(i) & 0xFF]++;
+        }
+    }
+
+    /**
+     * Fold the sub-tables into the long totals and clear them for reuse.
+     */
+    private static void spill(int[] counts, long[] frequencies) {
+        for (int symbol = 0; symbol < 256; symbol++) {
+            long sum = 0;
+            for (int table = 0; table < SUB_TABLES; table++) {
+                sum += counts[table * 256 + symbol];
+            }
+            frequencies[symbol] += sum;
+        }
+        Arrays.fill(counts, 0);
+    }
+}
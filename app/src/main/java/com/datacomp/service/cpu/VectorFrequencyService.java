@@ -0,0 +1,165 @@
+package com.datacomp.service.cpu;
+
+import com.datacomp.service.FrequencyService;
+import com.datacomp.util.VectorSupport;
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorSpecies;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * CPU frequency histogram using the incubating Vector API.
+ *
+ * Each leaf counts into four interleaved int sub-histograms so that
+ * consecutive equal bytes increment different cache lines instead of
+ * serializing on one counter. Whole vectors of a single repeated byte
+ * (zero pages, padding) are detected with one compare and counted in a
+ * single add. Sub-histograms are merged with vector adds.
+ *
+ * Requires {@code --add-modules jdk.incubator.vector}; check
+ * {@link VectorSupport#isAvailable()} before constructing.
+ */
+public class VectorFrequencyService implements FrequencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VectorFrequencyService.class);
+    private static final int PARALLEL_THRESHOLD = 1024 * 1024; // 1MB
+
+    /** Number of interleaved sub-histograms per leaf. */
+    static final int SUB_HISTOGRAMS = 4;
+
+    /** Bytes counted between spills of the int sub-histograms to long. */
+    private static final int SPILL_BYTES = 1 << 28;
+
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+    private final ForkJoinPool pool;
+
+    public VectorFrequencyService() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public VectorFrequencyService(ForkJoinPool pool) {
+        this.pool = pool;
+        logger.debug("Vector histogram using {}-bit vectors", BYTES.vectorBitSize());
+    }
+
+    @Override
+    public long[] computeHistogram(byte[] data, int offset, int length) {
+        if (length < PARALLEL_THRESHOLD) {
+            return computeHistogramSequential(data, offset, length);
+        } else {
+            return pool.invoke(new HistogramTask(data, offset, length));
+        }
+    }
+
+    static long[] computeHistogramSequential(byte[] data, int offset, int length) {
+        long[] frequencies = new long[256];
+        int[] counts = new int[SUB_HISTOGRAMS * 256];
+        int end = offset + length;
+
+        for (int start = offset; start < end; start += SPILL_BYTES) {
+            int blockLength = Math.min(SPILL_BYTES, end - start);
+            countBlock(data, start, blockLength, counts);
+            spill(counts, frequencies);
+        }
+        return frequencies;
+    }
+
+    /**
+     * Count one block into the interleaved sub-histograms.
+     */
+    private static void countBlock(byte[] data, int offset, int length, int[] counts) {
+        int lanes = BYTES.length();
+        int end = offset + length;
+        int upper = offset + BYTES.loopBound(length);
+        int i = offset;
+
+        for (; i < upper; i += lanes) {
+            byte first = data[i];
+            if (ByteVector.fromArray(BYTES, data, i).eq(first).allTrue()) {
+                counts[first & 0xFF] += lanes;
+                continue;
+            }
+            // Lane count is a multiple of 8 for every byte species
+            for (int j = i; j < i + lanes; j += 4) {
+                counts[data[j] & 0xFF]++;
+                counts[256 + (data[j + 1] & 0xFF)]++;
+                counts[512 + (data[j + 2] & 0xFF)]++;
+                counts[768 + (data[j + 3] & 0xFF)]++;
+            }
+        }
+        for (; i < end; i++) {
+            counts[data[i] & 0xFF]++;
+        }
+    }
+
+    /**
+     * Fold the sub-histograms into the long totals and clear them.
+     */
+    private static void spill(int[] counts, long[] frequencies) {
+        int lanes = INTS.length();
+        for (int base = 0; base < 256; base += lanes) {
+            IntVector sum = IntVector.fromArray(INTS, counts, base);
+            for (int table = 1; table < SUB_HISTOGRAMS; table++) {
+                sum = sum.add(IntVector.fromArray(INTS, counts, table * 256 + base));
+            }
+            sum.intoArray(counts, base);
+        }
+        // A block holds at most 2^28 bytes, so the merged int counts cannot overflow
+        for (int i = 0; i < 256; i++) {
+            frequencies[i] += counts[i];
+        }
+        Arrays.fill(counts, 0);
+    }
+
+    @Override
+    public String getServiceName() {
+        return "CPU (Vector API)";
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return VectorSupport.isAvailable();
+    }
+
+    /**
+     * Fork/Join task for parallel histogram computation.
+     */
+    private static class HistogramTask extends RecursiveTask<long[]> {
+        private final byte[] data;
+        private final int offset;
+        private final int length;
+
+        HistogramTask(byte[] data, int offset, int length) {
+            this.data = data;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (length < PARALLEL_THRESHOLD) {
+                return computeHistogramSequential(data, offset, length);
+            }
+
+            int mid = length / 2;
+            HistogramTask left = new HistogramTask(data, offset, mid);
+            HistogramTask right = new HistogramTask(data, offset + mid, length - mid);
+
+            left.fork();
+            long[] rightResult = right.compute();
+            long[] leftResult = left.join();
+
+            for (int i = 0; i < 256; i++) {
+                leftResult[i] += rightResult[i];
+            }
+            return leftResult;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.datacomp.service.cpu;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API kernels for the encoder.
+ *
+ * Requires {@code --add-modules jdk.incubator.vector}; callers must check
+ * {@link com.datacomp.util.VectorSupport#isAvailable()} and keep a scalar
+ * path.
+ */
+public final class VectorKernels {
+
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+    /**
+     * Byte species loaded per step and widened with B2I, one int vector per
+     * part. At least 64 bits, the smallest byte shape, so 128-bit int species
+     * (NEON, SSE) widen two parts per load.
+     */
+    private static final VectorSpecies<Byte> SYMBOLS =
+        VectorSpecies.of(byte.class, VectorShape.forBitSize(Math.max(64, INTS.vectorBitSize() / 4)));
+
+    /** Int vectors per loaded byte vector. */
+    private static final int PARTS = SYMBOLS.length() / INTS.length();
+
+    /** Per-thread gather indices, so summing allocates nothing per call. */
+    private static final ThreadLocal<int[]> INDICES =
+        ThreadLocal.withInitial(() -> new int[SYMBOLS.length()]);
+
+    /** Vectors accumulated in int lanes before folding into the long total. */
+    private static final int FOLD_VECTORS = 1 << 20;
+
+    private VectorKernels() {
+    }
+
+    /**
+     * Total encoded bits of a range: code lengths are gathered a vector at a
+     * time and summed in independent lanes, so there is no serial dependency
+     * on a running total.
+     *
+     * @param data Input symbols
+     * @param offset Starting offset
+     * @param length Number of symbols
+     * @param codeLengths Code length per byte value (256 entries, at most 32)
+     * @return Total number of encoded bits
+     */
+    public static long sumCodeLengths(byte[] data, int offset, int length, int[] codeLengths) {
+        int lanes = SYMBOLS.length();
+        int upper = offset + SYMBOLS.loopBound(length);
+        int[] indices = INDICES.get();
+        long total = 0;
+        int i = offset;
+
+        while (i < upper) {
+            // Each lane gains at most 32 per part, so 2^20 loads of up to 4 parts cannot overflow
+            int foldEnd = (int) Math.min(upper, i + (long) FOLD_VECTORS * lanes);
+            IntVector sum = IntVector.zero(INTS);
+            for (; i < foldEnd; i += lanes) {
+                sum = sum.add(gather(data, i, codeLengths, indices));
+            }
+            total += sum.reduceLanesToLong(VectorOperators.ADD);
+        }
+
+        int end = offset + length;
+        for (; i < end; i++) {
+            total += codeLengths[data[i] & 0xFF];
+        }
+        return total;
+    }
+
+    /**
+     * Block-level bit-position prefix sum.
+     *
+     * Splits the range into blocks of {@code blockSize} symbols (the last one
+     * takes the remainder) and writes the exclusive start bit of each block,
+     * which is what a block-parallel encoder needs to place its output.
+     *
+     * @param blockOffsets Output, at least {@code ceil(length / blockSize)} entries
+     * @return Total number of encoded bits
+     */
+    public static long computeBlockBitOffsets(byte[] data, int offset, int length, int blockSize,
+                                              int[] codeLengths, long[] blockOffsets) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+
+        long position = 0;
+        int block = 0;
+        for (int start = 0; start < length; start += blockSize) {
+            blockOffsets[block++] = position;
+            position += sumCodeLengths(data, offset + start, Math.min(blockSize, length - start), codeLengths);
+        }
+        return position;
+    }
+
+    /**
+     * Widen one vector of symbols to indices and gather their code lengths,
+     * summed across the parts of the load.
+     */
+    private static IntVector gather(byte[] data, int offset, int[] codeLengths, int[] indices) {
+        ByteVector symbols = ByteVector.fromArray(SYMBOLS, data, offset);
+        IntVector sum = IntVector.zero(INTS);
+        for (int part = 0; part < PARTS; part++) {
+            int base = part * INTS.length();
+            ((IntVector) symbols.convertShape(VectorOperators.B2I, INTS, part)).and(0xFF)
+                .intoArray(indices, base);
+            sum = sum.add(IntVector.fromArray(INTS, codeLengths, 0, indices, base));
+        }
+        return sum;
+    }
+}
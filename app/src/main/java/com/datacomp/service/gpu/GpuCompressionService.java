@@ -4,7 +4,11 @@ import com.datacomp.core.*;
 import com.datacomp.model.StageMetrics;
 import com.datacomp.service.CompressionService;
 import com.datacomp.service.FrequencyService;
+import com.datacomp.service.OrderedChunkPipeline;
+import com.datacomp.service.cpu.ChunkScanner;
 import com.datacomp.service.cpu.CpuCompressionService;
+import com.datacomp.util.AllocationMeter;
+import com.datacomp.util.BufferPool;
 import com.datacomp.util.ChecksumUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,6 +22,7 @@ import uk.ac.manchester.tornado.api.annotations.Parallel;
 import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
@@ -26,6 +31,7 @@ import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 /**
  * GPU-accelerated compression service using TornadoVM with parallel chunk processing.
@@ -35,6 +41,9 @@ public class GpuCompressionService implements CompressionService, AutoCloseable
     
     private static final Logger logger = LoggerFactory.getLogger(GpuCompressionService.class);
     
+    /** Symbols per block of the CPU-side bit position prefix sum. */
+    private static final int PREFIX_BLOCK_SYMBOLS = 1 << 20;
+    
     private final FrequencyService frequencyService;
     private final CompressionService cpuFallback;
     private final boolean fallbackOnError;
@@ -42,12 +51,14 @@ public class GpuCompressionService implements CompressionService, AutoCloseable
     private StageMetrics lastStageMetrics;
     private final ExecutorService executorService;
     private final int parallelChunks;
+    private final BufferPool bufferPool;
     
     public GpuCompressionService(int chunkSizeMB, boolean fallbackOnError) {
         this.fallbackOnError = fallbackOnError;
         this.chunkSizeBytes = chunkSizeMB * 1024 * 1024;
         this.cpuFallback = new CpuCompressionService(chunkSizeMB);
         this.lastStageMetrics = new StageMetrics();
+        this.bufferPool = BufferPool.shared(); // Same pool as the CPU fallback
         
         try {
             this.frequencyService = new GpuFrequencyService();
@@ -171,6 +182,7 @@ public class GpuCompressionService implements CompressionService, AutoCloseable
                                          Consumer<Double> progressCallback) throws IOException {
         // Reset metrics for new operation
         lastStageMetrics = new StageMetrics();
+        AllocationMeter allocation = AllocationMeter.start();
         
         long startTime = System.nanoTime();
         long fileSize = Files.size(inputPath);
@@ -196,8 +208,6 @@ public class GpuCompressionService implements CompressionService, AutoCloseable
         
         MessageDigest globalDigest = ChecksumUtil.createSha256();
         
-        // Store compressed chunks in order (parallel processing)
-        Map<Integer, CompressedChunkData> compressedChunks = new ConcurrentHashMap<>();
         AtomicInteger completedChunks = new AtomicInteger(0);
         
         // STREAMING APPROACH: Write chunks as they complete instead of keeping all in memory
@@ -219,105 +229,53 @@ public class GpuCompressionService implements CompressionService, AutoCloseable
             // This eliminates: temp files, seeking, gap elimination, header size estimation
             // Pure sequential writes = fastest disk I/O
             
-            // Process chunks with limited parallelism (only 'parallelChunks' at a time)
-            List<Future<CompressedChunkData>> activeFutures = new ArrayList<>();
-            List<Integer> activeFutureIndices = new ArrayList<>();
-            int nextChunkToSubmit = 0;
-            int nextChunkToWrite = 0;
-            long compressedOffset = 0;
+            // Process chunks with limited parallelism (only 'parallelChunks' in flight,
+            // bounded by GPU memory) and write each one as soon as its predecessors are written
+            OrderedChunkPipeline<CompressedChunkData> pipeline =
+                new OrderedChunkPipeline<>(executorService, parallelChunks);
+            long[] compressedOffset = {0};
             
             logger.info("🎮 Starting streaming compression: {} chunks with {} parallel workers", 
                        numChunks, parallelChunks);
             
-            while (nextChunkToWrite < numChunks) {
-                // Submit new chunks up to parallelism limit
-                while (activeFutures.size() < parallelChunks && nextChunkToSubmit < numChunks) {
-                    final int index = nextChunkToSubmit;
-                    final long offset = (long) index * chunkSizeBytes;
+            pipeline.run(numChunks,
+                index -> processChunkGpu(inputChannel, index, (long) index * chunkSizeBytes, fileSize),
+                (index, chunkData) -> {
+                    globalDigest.update(chunkData.checksum);
+                    
+                    logger.info("Writing chunk {}: compressedOffset={}, compressedSize={}, originalOffset={}", 
+                               chunkData.index, compressedOffset[0], chunkData.compressedData.length, 
+                               chunkData.originalOffset);
                     
-                    Future<CompressedChunkData> future = executorService.submit(() -> 
-                        processChunkGpu(inputChannel, index, offset, fileSize)
+                    // Create metadata with offset from start of data section
+                    ChunkMetadata chunkMeta = new ChunkMetadata(
+                        chunkData.index,
+                        chunkData.originalOffset,
+                        chunkData.originalSize,
+                        compressedOffset[0],  // Offset from start of file (data section)
+                        chunkData.compressedData.length,
+                        chunkData.checksum,
+                        chunkData.codeLengths,
+                        chunkData.chunkType,
+                        1
                     );
-                    activeFutures.add(future);
-                    activeFutureIndices.add(index);
-                    nextChunkToSubmit++;
-                }
-                
-                // Check if the next chunk to write is ready
-                boolean foundNext = false;
-                for (int i = 0; i < activeFutureIndices.size(); i++) {
-                    if (activeFutureIndices.get(i) == nextChunkToWrite) {
-                        // This is the next chunk we need - wait for it
-                        try {
-                            CompressedChunkData chunkData = activeFutures.get(i).get();
-                            
-                            // Update global checksum
-                            synchronized (globalDigest) {
-                                globalDigest.update(chunkData.checksum);
-                            }
-                            
-                            logger.info("Writing chunk {}: compressedOffset={}, compressedSize={}, originalOffset={}", 
-                                       chunkData.index, compressedOffset, chunkData.compressedData.length, 
-                                       chunkData.originalOffset);
-                            
-                            // Create metadata with offset from start of data section
-                            ChunkMetadata chunkMeta = new ChunkMetadata(
-                                chunkData.index,
-                                chunkData.originalOffset,
-                                chunkData.originalSize,
-                                compressedOffset,  // Offset from start of file (data section)
-                                chunkData.compressedData.length,
-                                chunkData.checksum,
-                                chunkData.codeLengths
-                            );
-                            chunkMetadataList.set(chunkData.index, chunkMeta);
-                            
-                            // Write compressed data sequentially to file
-                            output.write(chunkData.compressedData);
-                            compressedOffset += chunkData.compressedData.length;
-                            // chunkData reference will be removed from list, allowing GC
-                            
-                            // Remove from active list
-                            activeFutures.remove(i);
-                            activeFutureIndices.remove(i);
-                            
-                            int completed = completedChunks.incrementAndGet();
-                            if (progressCallback != null) {
-                                progressCallback.accept((double) completed / numChunks);
-                            }
-                            
-                            // Only log every 50 chunks to reduce CPU overhead
-                            if (completed % 50 == 0 || completed == numChunks) {
-                                logger.info("🎮 Progress: {}/{} chunks completed ({:.1f}%)", 
-                                           completed, numChunks, (completed * 100.0 / numChunks));
-                            }
-                            
-                            nextChunkToWrite++;
-                            foundNext = true;
-                            
-                            // Memory cleanup every 20 chunks (less frequent GC)
-                            if (completed % 20 == 0) {
-                                System.gc();
-                            }
-                            
-                            break;
-                            
-                        } catch (InterruptedException | ExecutionException e) {
-                            throw new IOException("GPU chunk compression failed", e);
-                        }
+                    chunkMetadataList.set(chunkData.index, chunkMeta);
+                    
+                    // Write compressed data sequentially to file
+                    output.write(chunkData.compressedData);
+                    compressedOffset[0] += chunkData.compressedData.length;
+                    
+                    int completed = completedChunks.incrementAndGet();
+                    if (progressCallback != null) {
+                        progressCallback.accept((double) completed / numChunks);
                     }
-                }
-                
-                // If we didn't find the next chunk, wait a bit
-                if (!foundNext && !activeFutures.isEmpty()) {
-                    try {
-                        Thread.sleep(10);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        throw new IOException("Interrupted while waiting for chunks", e);
+                    
+                    // Only log every 50 chunks to reduce CPU overhead
+                    if (completed % 50 == 0 || completed == numChunks) {
+                        logger.info("🎮 Progress: {}/{} chunks completed ({:.1f}%)", 
+                                   completed, numChunks, (completed * 100.0 / numChunks));
                     }
-                }
-            }
+                });
             
             // Compute global checksum
             byte[] globalChecksum = globalDigest.digest();
@@ -341,7 +299,7 @@ public class GpuCompressionService implements CompressionService, AutoCloseable
             long headerStart = System.nanoTime();
             
             // Remember where footer starts
-            long footerStartPosition = compressedOffset;
+            long footerStartPosition = compressedOffset[0];
             
             finalHeader.writeTo(output);
             
@@ -361,9 +319,6 @@ public class GpuCompressionService implements CompressionService, AutoCloseable
             }
             
             logger.debug("Footer written at offset {}, file size: {} bytes", footerStartPosition, Files.size(outputPath));
-            
-            // Clear all large data structures to free memory immediately
-            compressedChunks.clear();
         }
         
         long duration = System.nanoTime() - startTime;
@@ -374,10 +329,8 @@ public class GpuCompressionService implements CompressionService, AutoCloseable
         logger.info("✅ GPU Parallel compression complete: {} -> {} bytes ({:.2f}%) in {:.2f}s ({:.2f} MB/s)",
                    fileSize, compressedSize, ratio * 100, duration / 1e9, throughputMBps);
         
-        // Suggest garbage collection to free memory
-        System.gc();
-        logger.debug("🧹 Memory cleanup complete, suggested GC to free ~{} MB", 
-                    (fileSize / 1_000_000));
+        // Input buffers are pooled and reused; no forced GC
+        lastStageMetrics.recordAllocation(allocation.allocatedBytes(), fileSize);
         
         // Log stage metrics
         logger.info("\n{}", lastStageMetrics.getSummary());
@@ -388,25 +341,26 @@ public class GpuCompressionService implements CompressionService, AutoCloseable
      */
     private CompressedChunkData processChunkGpu(FileChannel inputChannel, int chunkIndex, 
                                                 long offset, long fileSize) throws IOException {
-        byte[] chunkData = new byte[chunkSizeBytes];
-        
-        // Track file I/O time
-        long ioStart = System.nanoTime();
-        int bytesRead;
-        synchronized (inputChannel) {
-            bytesRead = readChunk(inputChannel, chunkData, offset, fileSize);
-        }
-        synchronized (lastStageMetrics) {
-            lastStageMetrics.recordStage(StageMetrics.Stage.FILE_IO, System.nanoTime() - ioStart, bytesRead);
+        // Pooled input sized to this chunk, so the tail chunk takes a smaller class
+        long chunkEnd = Math.min(fileSize, offset + chunkSizeBytes);
+        byte[] chunkData = bufferPool.acquire((int) (chunkEnd - offset));
+        try {
+            return processChunkGpu(inputChannel, chunkIndex, offset, chunkEnd, chunkData);
+        } finally {
+            bufferPool.release(chunkData);
         }
-        
-        // Track checksum computation
-        long checksumStart = System.nanoTime();
-        MessageDigest chunkDigest = ChecksumUtil.createSha256();
-        chunkDigest.update(chunkData, 0, bytesRead);
-        byte[] chunkChecksum = chunkDigest.digest();
+    }
+    
+    private CompressedChunkData processChunkGpu(FileChannel inputChannel, int chunkIndex, long offset,
+                                                long chunkEnd, byte[] chunkData) throws IOException {
+        // Read and checksum in one tiled pass; the histogram stays on the GPU
+        long scanStart = System.nanoTime();
+        ChunkScanner.Result scan = ChunkScanner.scan(inputChannel, offset, chunkEnd, chunkData,
+                                                       ChunkScanner.Histogram.NONE, ChecksumAlgorithm.SHA256);
+        int bytesRead = scan.getBytesRead();
+        byte[] chunkChecksum = scan.getChecksum();
         synchronized (lastStageMetrics) {
-            lastStageMetrics.recordStage(StageMetrics.Stage.CHECKSUM_COMPUTE, System.nanoTime() - checksumStart, bytesRead);
+            lastStageMetrics.recordStage(StageMetrics.Stage.FUSED_SCAN, System.nanoTime() - scanStart, bytesRead);
         }
         
         // 🎮 GPU frequency computation - THE KEY PARALLEL OPERATION!
@@ -424,6 +378,13 @@ public class GpuCompressionService implements CompressionService, AutoCloseable
             throw new IOException("GPU processing failed", e);
         }
         
+        // One byte value throughout: keep only that byte
+        if (bytesRead > 0 && frequencies[chunkData[0] & 0xFF] == bytesRead) {
+            logger.debug("Chunk {} constant: {} bytes of {}", chunkIndex, bytesRead, chunkData[0] & 0xFF);
+            return new CompressedChunkData(chunkIndex, offset, bytesRead, new byte[] {chunkData[0]},
+                                           chunkChecksum, new int[256], ChunkType.CONSTANT);
+        }
+        
         // Huffman tree building
         long huffmanStart = System.nanoTime();
         HuffmanCode[] codes = CanonicalHuffman.buildCanonicalCodes(frequencies);
@@ -445,6 +406,13 @@ public class GpuCompressionService implements CompressionService, AutoCloseable
         logger.debug("Chunk {}: expected compressed size = {} bytes ({:.1f}% of {})", 
                     chunkIndex, expectedBytes, (100.0 * expectedBytes / bytesRead), bytesRead);
         
+        // No gain from encoding: keep the chunk's bytes as they are
+        if (expectedBytes >= bytesRead) {
+            logger.debug("Chunk {} stored: {} bytes", chunkIndex, bytesRead);
+            return new CompressedChunkData(chunkIndex, offset, bytesRead, Arrays.copyOf(chunkData, bytesRead),
+                                           chunkChecksum, new int[256], ChunkType.STORED);
+        }
+        
         // Encode chunk using GPU reduction-based encoding
         long encodeStart = System.nanoTime();
         byte[] compressedData = encodeChunkGpu(chunkData, bytesRead, codes);
@@ -456,7 +424,8 @@ public class GpuCompressionService implements CompressionService, AutoCloseable
                    chunkIndex, bytesRead, compressedData.length, 
                    (100.0 * compressedData.length / bytesRead));
         
-        return new CompressedChunkData(chunkIndex, offset, bytesRead, compressedData, chunkChecksum, codeLengths);
+        return new CompressedChunkData(chunkIndex, offset, bytesRead, compressedData, chunkChecksum, codeLengths,
+                                       ChunkType.HUFFMAN);
     }
     
     /**
@@ -469,51 +438,26 @@ public class GpuCompressionService implements CompressionService, AutoCloseable
         final byte[] compressedData;
         final byte[] checksum;
         final int[] codeLengths;
+        final ChunkType chunkType;
         
         CompressedChunkData(int index, long originalOffset, int originalSize, 
-                          byte[] compressedData, byte[] checksum, int[] codeLengths) {
+                          byte[] compressedData, byte[] checksum, int[] codeLengths, ChunkType chunkType) {
             this.index = index;
             this.originalOffset = originalOffset;
             this.originalSize = originalSize;
             this.compressedData = compressedData;
             this.checksum = checksum;
             this.codeLengths = codeLengths;
+            this.chunkType = chunkType;
         }
     }
     
-    private int readChunk(FileChannel channel, byte[] buffer, long offset, long fileSize) 
-            throws IOException {
-        long remaining = fileSize - offset;
-        int toRead = (int) Math.min(buffer.length, remaining);
-        
-        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, toRead);
-        channel.position(offset);
-        
-        int totalRead = 0;
-        while (totalRead < toRead) {
-            int read = channel.read(byteBuffer);
-            if (read == -1) break;
-            totalRead += read;
-        }
-        
-        return totalRead;
-    }
-    
     private byte[] encodeChunk(byte[] data, int length, HuffmanCode[] codes) {
         // Always perform Huffman encoding, even for incompressible data
         // The decompressor expects Huffman-encoded data based on stored code lengths
         // Returning uncompressed data here causes checksum mismatches during decompression
         
-        BitOutputStream bitOut = new BitOutputStream();
-        for (int i = 0; i < length; i++) {
-            int symbol = data[i] & 0xFF;
-            HuffmanCode code = codes[symbol];
-            if (code != null) {
-                bitOut.writeBits(code.getCodeword(), code.getCodeLength());
-            }
-        }
-        
-        return bitOut.toByteArray();
+        return new HuffmanEncoder(codes).encode(data, 0, length);
     }
     
     /**
@@ -559,7 +503,7 @@ public class GpuCompressionService implements CompressionService, AutoCloseable
         
         // Step 2: Compute bit positions using parallel prefix sum
         int[] bitPositions = new int[length];
-        int totalBits = computeBitPositionsParallel(data, length, codeLengths, bitPositions);
+        int totalBits = (int) computeBitPositionsParallel(data, length, codeLengths, bitPositions);
         
         logger.debug("Computed {} total bits for {} input bytes (ratio: {:.2f}%)", 
                     totalBits, length, (100.0 * totalBits / (length * 8)));
@@ -583,17 +527,41 @@ public class GpuCompressionService implements CompressionService, AutoCloseable
     /**
      * Compute bit positions using parallel prefix sum.
      * This determines where each codeword should start in the output bit stream.
+     *
+     * Two passes over blocks on the common ForkJoinPool: block totals in
+     * parallel, a serial scan over the (few) totals, then every block fills
+     * its positions from its own base in parallel.
+     *
+     * @return Total bits needed
      */
-    private int computeBitPositionsParallel(byte[] data, int length, 
-                                           int[] codeLengths, int[] bitPositions) {
-        // Parallel prefix sum: position[i] = sum of all codeLengths before i
-        int currentPos = 0;
-        for (int i = 0; i < length; i++) {
-            int symbol = data[i] & 0xFF;
-            bitPositions[i] = currentPos;
-            currentPos += codeLengths[symbol];
+    static long computeBitPositionsParallel(byte[] data, int length,
+                                            int[] codeLengths, int[] bitPositions) {
+        int blocks = (length + PREFIX_BLOCK_SYMBOLS - 1) / PREFIX_BLOCK_SYMBOLS;
+        long[] blockBase = new long[blocks + 1];
+        
+        IntStream.range(0, blocks).parallel().forEach(block -> {
+            int start = block * PREFIX_BLOCK_SYMBOLS;
+            int end = Math.min(length, start + PREFIX_BLOCK_SYMBOLS);
+            long bits = 0;
+            for (int i = start; i < end; i++) {
+                bits += codeLengths[data[i] & 0xFF];
+            }
+            blockBase[block + 1] = bits;
+        });
+        for (int block = 0; block < blocks; block++) {
+            blockBase[block + 1] += blockBase[block];
         }
-        return currentPos; // Total bits needed
+        
+        IntStream.range(0, blocks).parallel().forEach(block -> {
+            int start = block * PREFIX_BLOCK_SYMBOLS;
+            int end = Math.min(length, start + PREFIX_BLOCK_SYMBOLS);
+            long position = blockBase[block];
+            for (int i = start; i < end; i++) {
+                bitPositions[i] = (int) position;
+                position += codeLengths[data[i] & 0xFF];
+            }
+        });
+        return blockBase[blocks];
     }
     
     /**
@@ -648,8 +616,6 @@ public class GpuCompressionService implements CompressionService, AutoCloseable
                     // Silent cleanup - logging too expensive for 364 chunks
                 }
             }
-            // Force garbage collection to reclaim Java heap
-            System.gc();
         }
     }
     
@@ -768,15 +734,9 @@ public class GpuCompressionService implements CompressionService, AutoCloseable
                 }
             }
 
-            // 2. Compute Bit Positions (Prefix Sum)
-            // We do this on CPU for simplicity and correctness (fast enough for 16MB)
+            // 2. Compute Bit Positions (block-parallel prefix sum on the CPU)
             int[] bitPositions = new int[length];
-            long totalBits = 0;
-            for (int i = 0; i < length; i++) {
-                bitPositions[i] = (int) totalBits;
-                int symbol = data[i] & 0xFF;
-                totalBits += codeLengths[symbol];
-            }
+            long totalBits = computeBitPositionsParallel(data, length, codeLengths, bitPositions);
             
             int totalBytes = (int)((totalBits + 7) / 8);
             int numOutputWords = (int)((totalBits + 31) / 32);
@@ -871,6 +831,7 @@ public class GpuCompressionService implements CompressionService, AutoCloseable
         
         // Reset metrics for new operation
         lastStageMetrics = new StageMetrics();
+        AllocationMeter allocation = AllocationMeter.start();
         
         long startTime = System.nanoTime();
         
@@ -965,9 +926,9 @@ public class GpuCompressionService implements CompressionService, AutoCloseable
                 synchronized (inputFile) {
                     for (int i = startChunk; i < endChunk; i++) {
                         ChunkMetadata chunk = header.getChunks().get(i);
-                        byte[] compressedData = new byte[chunk.getCompressedSize()];
+                        byte[] compressedData = bufferPool.acquire(chunk.getCompressedSize());
                         inputFile.seek(compressedDataStart + chunk.getCompressedOffset());
-                        inputFile.read(compressedData);
+                        inputFile.readFully(compressedData, 0, chunk.getCompressedSize());
                         compressedBatchData.put(i, compressedData);
                     }
                 }
@@ -977,7 +938,7 @@ public class GpuCompressionService implements CompressionService, AutoCloseable
                 }
                 
                 // Submit batch for parallel GPU decoding with progress updates
-                Map<Integer, byte[]> decodedChunks = new ConcurrentHashMap<>();
+                Map<Integer, DecodedChunkData> decodedChunks = new ConcurrentHashMap<>();
                 List<Future<DecodedChunkData>> futures = new ArrayList<>();
                 
                 // Submit all chunks in batch to executor
@@ -985,9 +946,10 @@ public class GpuCompressionService implements CompressionService, AutoCloseable
                     final int index = i;
                     final ChunkMetadata chunk = header.getChunks().get(i);
                     final byte[] compressedData = compressedBatchData.get(i);
+                    final ChecksumAlgorithm checksum = header.getChecksumAlgorithm();
                     
                     Future<DecodedChunkData> future = executorService.submit(() -> 
-                        decodeChunkGpu(index, compressedData, chunk)
+                        decodeChunkGpu(index, compressedData, chunk, checksum)
                     );
                     futures.add(future);
                 }
@@ -1027,7 +989,7 @@ public class GpuCompressionService implements CompressionService, AutoCloseable
                         }
                         
                         if (chunkData != null) {
-                            decodedChunks.put(chunkData.index, chunkData.decodedData);
+                            decodedChunks.put(chunkData.index, chunkData);
                             
                             int completedCount = completedChunks.incrementAndGet();
                             if (progressCallback != null) {
@@ -1044,8 +1006,12 @@ public class GpuCompressionService implements CompressionService, AutoCloseable
                 long writeStart = System.nanoTime();
                 synchronized (outputChannel) {
                     for (int i = startChunk; i < endChunk; i++) {
-                        byte[] decodedData = decodedChunks.get(i);
-                        outputChannel.write(ByteBuffer.wrap(decodedData));
+                        DecodedChunkData decoded = decodedChunks.get(i);
+                        ByteBuffer buffer = ByteBuffer.wrap(decoded.decodedData, 0, decoded.length);
+                        while (buffer.hasRemaining()) {
+                            outputChannel.write(buffer);
+                        }
+                        bufferPool.release(decoded.decodedData);
                     }
                 }
                 synchronized (lastStageMetrics) {
@@ -1053,7 +1019,8 @@ public class GpuCompressionService implements CompressionService, AutoCloseable
                         batchChunkCount * (long)chunkSizeBytes);
                 }
                 
-                // Clear batch data to free memory
+                // Return the batch's buffers to the pool
+                compressedBatchData.values().forEach(bufferPool::release);
                 compressedBatchData.clear();
                 decodedChunks.clear();
                 futures.clear();
@@ -1071,9 +1038,7 @@ public class GpuCompressionService implements CompressionService, AutoCloseable
         logger.info("✅ GPU parallel decompression complete: {} bytes in {:.2f}s ({:.2f} MB/s)",
                    outputSize, String.format("%.2f", durationSec), String.format("%.2f", throughputMBps));
         
-        // Suggest garbage collection to free memory
-        System.gc();
-        logger.debug("🧹 Memory cleanup complete after GPU decompression");
+        lastStageMetrics.recordAllocation(allocation.allocatedBytes(), outputSize);
         
         // Log stage metrics
         logger.info("\n{}", lastStageMetrics.getSummary());
@@ -1083,7 +1048,18 @@ public class GpuCompressionService implements CompressionService, AutoCloseable
      * Decode a single chunk - attempts GPU parallel decoding, falls back to CPU if needed.
      */
     private DecodedChunkData decodeChunkGpu(int index, byte[] compressedData, 
-                                           ChunkMetadata chunk) throws IOException {
+                                           ChunkMetadata chunk, ChecksumAlgorithm checksum) throws IOException {
+        if (chunk.getChunkType() == ChunkType.STORED || chunk.getChunkType() == ChunkType.CONSTANT) {
+            byte[] decodedData = bufferPool.acquire(chunk.getOriginalSize());
+            if (chunk.getChunkType() == ChunkType.CONSTANT) {
+                Arrays.fill(decodedData, 0, chunk.getOriginalSize(), compressedData[0]);
+            } else {
+                System.arraycopy(compressedData, 0, decodedData, 0, chunk.getOriginalSize());
+            }
+            verifyChecksum(index, decodedData, chunk, checksum);
+            return new DecodedChunkData(index, decodedData, chunk.getOriginalSize());
+        }
+        
         // Track Huffman tree rebuild
         long huffmanStart = System.nanoTime();
         int[] codeLengths = chunk.getCodeLengths();
@@ -1100,7 +1076,14 @@ public class GpuCompressionService implements CompressionService, AutoCloseable
         // 3. Branch prediction optimization
         long decodeStart = System.nanoTime();
         TableBasedHuffmanDecoder decoder = new TableBasedHuffmanDecoder(codes);
-        byte[] decodedData = decoder.decode(compressedData, chunk.getOriginalSize());
+        int decodedLength = chunk.getOriginalSize();
+        byte[] decodedData = bufferPool.acquire(decodedLength);
+        if (chunk.getChunkType() == ChunkType.MULTI_STREAM) {
+            decoder.decodeStreams(compressedData, chunk.getCompressedSize(), decodedData, 0,
+                                  decodedLength, chunk.getStreamCount());
+        } else {
+            decoder.decode(compressedData, chunk.getCompressedSize(), decodedData, 0, decodedLength);
+        }
         
         // Clear codes to help GC
         for (int i = 0; i < codes.length; i++) {
@@ -1108,14 +1091,27 @@ public class GpuCompressionService implements CompressionService, AutoCloseable
         }
         
         synchronized (lastStageMetrics) {
-            lastStageMetrics.recordStage(StageMetrics.Stage.DECODING, System.nanoTime() - decodeStart, decodedData.length);
+            lastStageMetrics.recordStage(StageMetrics.Stage.DECODING, System.nanoTime() - decodeStart, decodedLength);
         }
         
         // Track checksum verification
         long checksumStart = System.nanoTime();
-        byte[] checksum = ChecksumUtil.computeSha256(decodedData);
-        if (!MessageDigest.isEqual(checksum, chunk.getSha256Checksum())) {
-            String expectedHex = bytesToHex(chunk.getSha256Checksum());
+        verifyChecksum(index, decodedData, chunk, checksum);
+        synchronized (lastStageMetrics) {
+            lastStageMetrics.recordStage(StageMetrics.Stage.CHECKSUM_VERIFY, System.nanoTime() - checksumStart, decodedLength);
+        }
+        
+        return new DecodedChunkData(index, decodedData, decodedLength);
+    }
+    
+    /**
+     * Check a decoded chunk against its stored checksum.
+     */
+    private static void verifyChecksum(int index, byte[] decodedData, ChunkMetadata chunk,
+                                       ChecksumAlgorithm algorithm) throws IOException {
+        byte[] checksum = algorithm.compute(decodedData, 0, chunk.getOriginalSize());
+        if (!MessageDigest.isEqual(checksum, chunk.getChecksum())) {
+            String expectedHex = bytesToHex(chunk.getChecksum());
             String actualHex = bytesToHex(checksum);
             throw new IOException(String.format(
                 "Checksum mismatch in chunk %d:\n" +
@@ -1125,14 +1121,9 @@ public class GpuCompressionService implements CompressionService, AutoCloseable
                 "  Compressed size: %d bytes\n" +
                 "  Compressed offset: %d",
                 index, expectedHex, actualHex, 
-                chunk.getOriginalSize(), compressedData.length, 
+                chunk.getOriginalSize(), chunk.getCompressedSize(), 
                 chunk.getCompressedOffset()));
         }
-        synchronized (lastStageMetrics) {
-            lastStageMetrics.recordStage(StageMetrics.Stage.CHECKSUM_VERIFY, System.nanoTime() - checksumStart, decodedData.length);
-        }
-        
-        return new DecodedChunkData(index, decodedData);
     }
     
     /**
@@ -1473,11 +1464,13 @@ public class GpuCompressionService implements CompressionService, AutoCloseable
      */
     private static class DecodedChunkData {
         final int index;
-        final byte[] decodedData;
+        final byte[] decodedData;  // Pooled, valid up to length
+        final int length;
         
-        DecodedChunkData(int index, byte[] decodedData) {
+        DecodedChunkData(int index, byte[] decodedData, int length) {
             this.index = index;
             this.decodedData = decodedData;
+            this.length = length;
         }
     }
     
@@ -1485,6 +1478,13 @@ public class GpuCompressionService implements CompressionService, AutoCloseable
         return CanonicalHuffman.generateCanonicalCodesFromLengths(codeLengths);
     }
     
+    @Override
+    public long decompressRange(Path inputPath, long offset, long length,
+                                WritableByteChannel output) throws IOException {
+        // A range spans few chunks, too little work to pay for a device transfer
+        return cpuFallback.decompressRange(inputPath, offset, length, output);
+    }
+    
     @Override
     public void resumeCompression(Path inputPath, Path outputPath,
                                  int lastCompletedChunk,
@@ -1514,47 +1514,6 @@ public class GpuCompressionService implements CompressionService, AutoCloseable
         return null;
     }
     
-    /**
-     * Bit-level output stream for encoding.
-     */
-    private static class BitOutputStream {
-        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-        private int currentByte = 0;
-        private int numBitsInCurrentByte = 0;
-        
-        void writeBits(int bits, int numBits) {
-            for (int i = numBits - 1; i >= 0; i--) {
-                int bit = (bits >> i) & 1;
-                currentByte = (currentByte << 1) | bit;
-                numBitsInCurrentByte++;
-                
-                if (numBitsInCurrentByte == 8) {
-                    buffer.write(currentByte);
-                    currentByte = 0;
-                    numBitsInCurrentByte = 0;
-                }
-            }
-        }
-        
-        byte[] toByteArray() {
-            // Flush any remaining bits
-            if (numBitsInCurrentByte > 0) {
-                currentByte <<= (8 - numBitsInCurrentByte);
-                buffer.write(currentByte);
-            }
-            
-            byte[] result = buffer.toByteArray();
-            
-            // DEBUG: Check if buffer size is reasonable
-            if (result.length > 16_000_000) {
-                System.err.println("⚠️ BitOutputStream BUG: buffer returned " + result.length + " bytes (too large!)");
-                System.err.println("   Buffer wrote " + buffer.size() + " bytes total");
-            }
-            
-            return result;
-        }
-    }
-    
     /**
      * Shutdown the executor service and release all resources.
      * This MUST be called when the service is no longer needed to prevent memory leaks.
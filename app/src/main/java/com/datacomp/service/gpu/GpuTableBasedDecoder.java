@@ -16,8 +16,7 @@ import uk.ac.manchester.tornado.api.enums.DataTransferMode;
 public class GpuTableBasedDecoder {
     
     private static final Logger logger = LoggerFactory.getLogger(GpuTableBasedDecoder.class);
-    private static final int TABLE_BITS = 10;
-    private static final int TABLE_SIZE = 1 << TABLE_BITS;
+    private static final int TABLE_SIZE = TableBasedHuffmanDecoder.TABLE_SIZE;
     
     private final GpuFrequencyService gpuService;
     
@@ -30,11 +29,11 @@ public class GpuTableBasedDecoder {
      * 
      * @param compressedChunks Array of compressed chunk data
      * @param outputSizes Expected output size for each chunk
-     * @param lookupTables Lookup tables for each chunk (pre-built)
+     * @param lookupTables Packed lookup tables for each chunk (see {@link TableBasedHuffmanDecoder#getLookupTable()})
      * @return Array of decompressed chunks
      */
     public byte[][] decodeChunksParallel(byte[][] compressedChunks, int[] outputSizes,
-                                         TableBasedHuffmanDecoder.LookupEntry[][] lookupTables) {
+                                         int[][] lookupTables) {
         int numChunks = compressedChunks.length;
         byte[][] outputs = new byte[numChunks][];
         
@@ -51,7 +50,7 @@ public class GpuTableBasedDecoder {
      * Decode a single chunk on GPU using table lookup.
      */
     private byte[] decodeChunkGpu(byte[] compressedData, int outputSize,
-                                  TableBasedHuffmanDecoder.LookupEntry[] lookupTable) {
+                                  int[] lookupTable) {
         
         // Prepare output array
         byte[] outputData = new byte[outputSize];
@@ -61,8 +60,14 @@ public class GpuTableBasedDecoder {
         int[] tableCodeLengths = new int[TABLE_SIZE];
         
         for (int i = 0; i < TABLE_SIZE; i++) {
-            tableSymbols[i] = lookupTable[i].symbol;
-            tableCodeLengths[i] = lookupTable[i].codeLength;
+            int entry = lookupTable[i];
+            if (entry == TableBasedHuffmanDecoder.LONG_CODE) {
+                tableSymbols[i] = -1;
+                tableCodeLengths[i] = TableBasedHuffmanDecoder.TABLE_BITS;
+            } else {
+                tableSymbols[i] = entry >>> 8;
+                tableCodeLengths[i] = entry & 0xFF;
+            }
         }
         
         // Create shared state arrays
@@ -0,0 +1,56 @@
+package com.datacomp.util;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Heap allocated by the JVM while an operation runs, from the HotSpot
+ * per-thread allocation counters (all threads, including finished ones).
+ * Reports -1 where the counters are unavailable.
+ */
+public final class AllocationMeter {
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    private final long startBytes;
+
+    private AllocationMeter() {
+        this.startBytes = totalAllocatedBytes();
+    }
+
+    /**
+     * Start measuring from now.
+     */
+    public static AllocationMeter start() {
+        return new AllocationMeter();
+    }
+
+    /**
+     * Bytes allocated since {@link #start()}, or -1 if not measurable.
+     */
+    public long allocatedBytes() {
+        long now = totalAllocatedBytes();
+        return startBytes < 0 || now < 0 ? -1 : now - startBytes;
+    }
+
+    /**
+     * Total heap allocated since JVM start, or -1 if not measurable.
+     */
+    public static long totalAllocatedBytes() {
+        if (THREADS == null) {
+            return -1;
+        }
+        try {
+            return THREADS.getTotalThreadAllocatedBytes();
+        } catch (UnsupportedOperationException e) {
+            return -1;
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported()) {
+            return bean;
+        }
+        return null;
+    }
+}
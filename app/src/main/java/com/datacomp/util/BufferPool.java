@@ -0,0 +1,145 @@
+package com.datacomp.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reusable byte arrays in power-of-two size classes.
+ *
+ * Chunk input, encoded output and decoded output buffers are acquired here
+ * and explicitly released once written, so steady-state compression reuses
+ * the same few arrays instead of allocating one per chunk. A buffer may be
+ * larger than requested: callers track their own lengths. Released buffers
+ * are kept up to a retention limit; beyond it they are left to the GC.
+ * Safe for concurrent use.
+ */
+public final class BufferPool {
+
+    /** Smallest size class (64 KB); smaller requests share it. */
+    public static final int MIN_CLASS_BITS = 16;
+
+    /** Largest pooled size class (1 GB); larger requests are not pooled. */
+    public static final int MAX_CLASS_BITS = 30;
+
+    /** Retention limit of the shared pool. */
+    public static final long DEFAULT_MAX_RETAINED_BYTES = 512L * 1024 * 1024;
+
+    private static final BufferPool SHARED = new BufferPool(DEFAULT_MAX_RETAINED_BYTES);
+
+    private final Queue<byte[]>[] classes;
+    private final long maxRetainedBytes;
+    private final AtomicLong retainedBytes = new AtomicLong();
+    private final AtomicLong allocatedBytes = new AtomicLong();
+    private final AtomicLong allocations = new AtomicLong();
+    private final AtomicLong reuses = new AtomicLong();
+
+    @SuppressWarnings("unchecked")
+    public BufferPool(long maxRetainedBytes) {
+        if (maxRetainedBytes < 0) {
+            throw new IllegalArgumentException("Retention limit must not be negative: " + maxRetainedBytes);
+        }
+        this.maxRetainedBytes = maxRetainedBytes;
+        this.classes = new Queue[MAX_CLASS_BITS + 1];
+        for (int bits = MIN_CLASS_BITS; bits <= MAX_CLASS_BITS; bits++) {
+            classes[bits] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    /**
+     * Pool shared by the CPU and GPU compression services.
+     */
+    public static BufferPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Get a buffer of at least {@code minSize} bytes. Its contents are undefined.
+     */
+    public byte[] acquire(int minSize) {
+        if (minSize < 0) {
+            throw new IllegalArgumentException("Negative buffer size: " + minSize);
+        }
+        int bits = classBits(minSize);
+        if (bits > MAX_CLASS_BITS) {
+            return allocate(minSize);
+        }
+
+        byte[] buffer = classes[bits].poll();
+        if (buffer == null) {
+            return allocate(1 << bits);
+        }
+        retainedBytes.addAndGet(-buffer.length);
+        reuses.incrementAndGet();
+        return buffer;
+    }
+
+    /**
+     * Return a buffer from {@link #acquire}. The caller must not touch it
+     * afterwards. Null and foreign (non-class-sized) arrays are ignored.
+     */
+    public void release(byte[] buffer) {
+        if (buffer == null || !isClassSize(buffer.length)) {
+            return;
+        }
+        if (retainedBytes.addAndGet(buffer.length) > maxRetainedBytes) {
+            retainedBytes.addAndGet(-buffer.length);
+            return;
+        }
+        classes[Integer.numberOfTrailingZeros(buffer.length)].offer(buffer);
+    }
+
+    /**
+     * Drop all retained buffers (statistics are kept).
+     */
+    public void clear() {
+        for (int bits = MIN_CLASS_BITS; bits <= MAX_CLASS_BITS; bits++) {
+            byte[] buffer;
+            while ((buffer = classes[bits].poll()) != null) {
+                retainedBytes.addAndGet(-buffer.length);
+            }
+        }
+    }
+
+    /** Bytes of new arrays allocated because no pooled buffer fit. */
+    public long getAllocatedBytes() {
+        return allocatedBytes.get();
+    }
+
+    /** Number of new arrays allocated. */
+    public long getAllocations() {
+        return allocations.get();
+    }
+
+    /** Number of requests served from the pool. */
+    public long getReuses() {
+        return reuses.get();
+    }
+
+    /** Bytes currently held for reuse. */
+    public long getRetainedBytes() {
+        return retainedBytes.get();
+    }
+
+    /**
+     * Size class of a request: log2 of the smallest class size that fits it.
+     */
+    static int classBits(int size) {
+        if (size <= 1 << MIN_CLASS_BITS) {
+            return MIN_CLASS_BITS;
+        }
+        return 32 - Integer.numberOfLeadingZeros(size - 1);
+    }
+
+    private static boolean isClassSize(int length) {
+        return Integer.bitCount(length) == 1
+            && length >= 1 << MIN_CLASS_BITS
+            && length <= 1 << MAX_CLASS_BITS;
+    }
+
+    private byte[] allocate(int size) {
+        allocations.incrementAndGet();
+        allocatedBytes.addAndGet(size);
+        return new byte[size];
+    }
+}
@@ -1,5 +1,6 @@
 package com.datacomp.util;
 
+import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
@@ -26,6 +27,15 @@ public class ChecksumUtil {
         return digest.digest();
     }
     
+    /**
+     * Digest the remaining bytes of a buffer without moving its position.
+     */
+    public static byte[] computeSha256(ByteBuffer data) {
+        MessageDigest digest = createSha256();
+        digest.update(data.duplicate());
+        return digest.digest();
+    }
+    
     public static String toHexString(byte[] bytes) {
         StringBuilder sb = new StringBuilder(bytes.length * 2);
         for (byte b : bytes) {
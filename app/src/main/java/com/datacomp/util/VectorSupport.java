@@ -0,0 +1,21 @@
+package com.datacomp.util;
+
+/**
+ * Detects whether the incubating Vector API can be used.
+ *
+ * Classes that use {@code jdk.incubator.vector} fail to initialize when the
+ * JVM was started without {@code --add-modules jdk.incubator.vector}, so the
+ * check lives here, away from any vector types.
+ */
+public final class VectorSupport {
+
+    private static final boolean AVAILABLE =
+        ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private VectorSupport() {
+    }
+
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+}
@@ -106,5 +106,71 @@ class CanonicalHuffmanTest {
         assertNotNull(decoder);
         assertTrue(decoder.getMaxCodeLength() > 0);
     }
+    
+    @Test
+    void testDecoderResolvesEveryCodeword() {
+        long[] frequencies = new long[256];
+        long f = 1;
+        for (int i = 0; i < 20; i++) {
+            frequencies[i] = f;
+            f *= 2;  // Skewed: produces codes up to 19 bits
+        }
+        
+        HuffmanCode[] codes = CanonicalHuffman.buildCanonicalCodes(frequencies);
+        CanonicalHuffman.HuffmanDecoder decoder = CanonicalHuffman.buildDecoder(codes);
+        
+        for (HuffmanCode code : codes) {
+            if (code == null) continue;
+            int len = code.getCodeLength();
+            assertEquals(code.getSymbol(), decoder.decodeSymbol(code.getCodeword(), len));
+            
+            // Left-aligned window with arbitrary trailing bits
+            long window = ((code.getCodeword() & 0xFFFFFFFFL) << (64 - len)) | ((1L << (64 - len)) - 1);
+            int entry = decoder.decodeEntry(window, 1);
+            assertEquals(code.getSymbol(), entry >>> 8);
+            assertEquals(len, entry & 0xFF);
+        }
+    }
+    
+    @Test
+    void testDecoderRejectsUnknownCodes() {
+        long[] frequencies = new long[256];
+        frequencies['x'] = 10;
+        
+        HuffmanCode[] codes = CanonicalHuffman.buildCanonicalCodes(frequencies);
+        CanonicalHuffman.HuffmanDecoder decoder = CanonicalHuffman.buildDecoder(codes);
+        
+        // Single symbol gets code "0"; "1" is not a valid code
+        assertEquals('x', decoder.decodeSymbol(0, 1));
+        assertEquals(-1, decoder.decodeSymbol(1, 1));
+        assertEquals(-1, decoder.decodeSymbol(0, 2));
+        assertEquals(-1, decoder.decodeEntry(0x8000_0000_0000_0000L, 1));
+    }
+    
+    @Test
+    void testDecoderHandles32BitCodes() {
+        int[] codeLengths = new int[256];
+        for (int symbol = 0; symbol < 31; symbol++) {
+            codeLengths[symbol] = symbol + 1;
+        }
+        codeLengths[31] = 32;
+        codeLengths[32] = 32;
+        
+        HuffmanCode[] codes = CanonicalHuffman.generateCanonicalCodesFromLengths(codeLengths);
+        CanonicalHuffman.HuffmanDecoder decoder = CanonicalHuffman.buildDecoder(codes);
+        
+        assertEquals(32, decoder.getMaxCodeLength());
+        assertEquals(31, decoder.decodeEntry(0xFFFF_FFFE_0000_0000L, 11) >>> 8);
+        assertEquals(32, decoder.decodeEntry(0xFFFF_FFFF_0000_0000L, 11) >>> 8);
+        assertEquals(32, decoder.decode(0x0000_0000_FFFF_FFFFL, 32));
+    }
+    
+    @Test
+    void testDecoderRejectsNonCanonicalCodes() {
+        HuffmanCode[] codes = new HuffmanCode[256];
+        codes[0] = new HuffmanCode(0, 1, 0);
+        codes[1] = new HuffmanCode(1, 2, 3);  // Canonical form would assign "10"
+        
+        assertThrows(IllegalArgumentException.class, () -> CanonicalHuffman.buildDecoder(codes));
+    }
 }
-
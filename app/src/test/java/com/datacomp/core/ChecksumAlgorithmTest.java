@@ -0,0 +1,99 @@
+package com.datacomp.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the chunk checksum algorithms.
+ */
+class ChecksumAlgorithmTest {
+
+    @Test
+    void testKnownValues() {
+        assertEquals("e3069283", digest(ChecksumAlgorithm.CRC32C, "123456789"));
+        assertEquals("ef46db3751d8e999", digest(ChecksumAlgorithm.XXHASH64, ""));
+        assertEquals("44bc2cf5ad770999", digest(ChecksumAlgorithm.XXHASH64, "abc"));
+        // Longer than one 32-byte stripe
+        assertEquals("fbcea83c8a378bf1", digest(ChecksumAlgorithm.XXHASH64, "Nobody inspects the spammish repetition"));
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+                     digest(ChecksumAlgorithm.SHA256, "abc"));
+    }
+
+    @Test
+    void testChecksumsFillTheFixedField() {
+        byte[] data = "abc".getBytes(StandardCharsets.US_ASCII);
+        for (ChecksumAlgorithm algorithm : ChecksumAlgorithm.values()) {
+            byte[] checksum = algorithm.compute(data, 0, data.length);
+            assertEquals(ChecksumAlgorithm.CHECKSUM_SIZE, checksum.length);
+
+            MessageDigest digest = algorithm.createDigest();
+            digest.update(data);
+            byte[] value = digest.digest();
+            assertArrayEquals(value, Arrays.copyOf(checksum, value.length));
+            assertTrue(Arrays.equals(checksum, value.length, checksum.length,
+                                     new byte[ChecksumAlgorithm.CHECKSUM_SIZE], value.length, checksum.length));
+        }
+    }
+
+    @Test
+    void testStreamingMatchesOneShot() {
+        byte[] data = new byte[100_003];
+        new Random(1).nextBytes(data);
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length).put(data).flip();
+
+        for (ChecksumAlgorithm algorithm : ChecksumAlgorithm.values()) {
+            byte[] expected = algorithm.compute(data, 0, data.length);
+
+            // Uneven pieces, from arrays and from a direct buffer, crossing stripe boundaries
+            Random random = new Random(2);
+            MessageDigest fromArrays = algorithm.createDigest();
+            MessageDigest fromBuffer = algorithm.createDigest();
+            int position = 0;
+            while (position < data.length) {
+                int length = Math.min(random.nextInt(100), data.length - position);
+                if (length == 1) {
+                    fromArrays.update(data[position]);
+                } else {
+                    fromArrays.update(data, position, length);
+                }
+                fromBuffer.update(direct.slice(position, length));
+                position += length;
+            }
+            assertArrayEquals(expected, algorithm.checksum(fromArrays), algorithm.getName());
+            assertArrayEquals(expected, algorithm.checksum(fromBuffer), algorithm.getName());
+            assertArrayEquals(expected, algorithm.compute(direct), algorithm.getName());
+            assertEquals(0, direct.position());
+
+            // A digest is reset once finished
+            MessageDigest reused = algorithm.createDigest();
+            reused.update(data, 0, 10);
+            reused.digest();
+            reused.update(data, 0, data.length);
+            assertArrayEquals(expected, algorithm.checksum(reused), algorithm.getName());
+        }
+    }
+
+    @Test
+    void testLookup() {
+        for (ChecksumAlgorithm algorithm : ChecksumAlgorithm.values()) {
+            assertSame(algorithm, ChecksumAlgorithm.fromId(algorithm.getId()));
+            assertSame(algorithm, ChecksumAlgorithm.fromName(algorithm.getName().toUpperCase()));
+        }
+        assertThrows(IllegalArgumentException.class, () -> ChecksumAlgorithm.fromId(3));
+        assertThrows(IllegalArgumentException.class, () -> ChecksumAlgorithm.fromName("md5"));
+    }
+
+    private static String digest(ChecksumAlgorithm algorithm, String text) {
+        MessageDigest digest = algorithm.createDigest();
+        digest.update(text.getBytes(StandardCharsets.US_ASCII));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
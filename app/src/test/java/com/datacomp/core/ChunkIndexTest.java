@@ -0,0 +1,185 @@
+package com.datacomp.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the fixed-width chunk index of version 2 footers.
+ */
+class ChunkIndexTest {
+
+    private static final int CHUNKS = 100_000;
+    private static final int CHUNK_SIZE = 1000;
+    private static final int DATA_BYTES = 64;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testMappedIndexLooksUpChunks() throws IOException {
+        Path path = writeFile(tempDir.resolve("many.dcz"));
+
+        try (DczFile file = DczFile.open(path)) {
+            assertTrue(file.isFooterFormat());
+            assertInstanceOf(ChunkIndex.class, file.getChunks());
+            assertEquals(CHUNKS, file.getChunks().size());
+            assertEquals((long) CHUNKS * CHUNK_SIZE - 1, file.getOriginalSize());
+
+            for (int index : new int[] {0, 1, 4321, 77_777, CHUNKS - 1}) {
+                long start = (long) index * CHUNK_SIZE;
+                assertEquals(index, file.chunkIndexAt(start));
+                assertEquals(index, file.chunkIndexAt(start + CHUNK_SIZE / 2));
+                assertChunkEquals(chunk(index), file.getChunks().get(index));
+            }
+            assertThrows(IndexOutOfBoundsException.class, () -> file.chunkIndexAt(file.getOriginalSize()));
+
+            // Chunks with equal code lengths share one decoded table
+            assertSame(file.getChunks().get(2).getCodeLengths(), file.getChunks().get(4).getCodeLengths());
+        }
+    }
+
+    @Test
+    void testMappedHeaderIsReadOnlyAndSerializesItsChunks() throws Exception {
+        Path path = writeFile(tempDir.resolve("serial.dcz"));
+
+        try (DczFile file = DczFile.open(path)) {
+            CompressionHeader header = file.getHeader();
+            assertThrows(IllegalStateException.class, () -> header.addChunk(chunk(CHUNKS)));
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(header);
+            }
+            CompressionHeader copy;
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                copy = (CompressionHeader) in.readObject();
+            }
+
+            assertFalse(copy.getChunks() instanceof ChunkIndex);
+            assertEquals(CHUNKS, copy.getNumChunks());
+            assertEquals(header.getOriginalFileSize(), copy.getOriginalFileSize());
+            for (int index : new int[] {0, 4321, CHUNKS - 1}) {
+                assertChunkEquals(chunk(index), copy.getChunks().get(index));
+            }
+        }
+    }
+
+    @Test
+    void testStreamedAndMappedIndexAgree() throws IOException {
+        Path path = writeFile(tempDir.resolve("agree.dcz"));
+        byte[] bytes = Files.readAllBytes(path);
+        long footerStart = ByteBuffer.wrap(bytes, bytes.length - Long.BYTES, Long.BYTES).getLong();
+
+        CompressionHeader streamed = CompressionHeader.readFrom(new DataInputStream(new ByteArrayInputStream(
+            bytes, (int) footerStart, bytes.length - Long.BYTES - (int) footerStart)));
+
+        try (DczFile file = DczFile.open(path)) {
+            assertEquals(file.getHeader().getOriginalFileName(), streamed.getOriginalFileName());
+            assertEquals(CHUNKS, streamed.getNumChunks());
+            for (int index = 0; index < CHUNKS; index += 9_999) {
+                assertChunkEquals(streamed.getChunks().get(index), file.getChunks().get(index));
+            }
+        }
+    }
+
+    @Test
+    void testRejectsIndexNotFillingFooter() throws IOException {
+        Path path = writeFile(tempDir.resolve("short.dcz"));
+        long size = Files.size(path);
+        long footerStart;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer pointer = ByteBuffer.allocate(Long.BYTES);
+            channel.read(pointer, size - Long.BYTES);
+            footerStart = pointer.flip().getLong();
+            // Drop the last tables byte, keeping the footer pointer last
+            channel.truncate(size - 1);
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, footerStart), size - 1 - Long.BYTES);
+        }
+
+        assertThrows(IOException.class, () -> DczFile.open(path));
+    }
+
+    @Test
+    void testMalformedRecordFailsOnLookup() throws IOException {
+        CompressionHeader header = new CompressionHeader("bad.bin", CHUNK_SIZE, 0L, new byte[32], CHUNK_SIZE);
+        header.addChunk(chunk(0));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        header.writeTo(new DataOutputStream(bytes));
+        byte[] footer = bytes.toByteArray();
+
+        // Point the chunk's tables entry past the tables section
+        int record = footer.length - tablesLength(footer) - ChunkIndex.RECORD_SIZE;
+        ByteBuffer.wrap(footer).putInt(record + 46, Integer.MAX_VALUE);
+
+        assertThrows(IOException.class, () -> CompressionHeader.readFrom(
+            new DataInputStream(new ByteArrayInputStream(footer))));
+    }
+
+    private static int tablesLength(byte[] footer) {
+        // A single-chunk version 2 footer: prefix, tables length, one record, tables
+        String name = "bad.bin";
+        int lengthAt = 12 + name.length() + 8 + 8 + 4 + 1 + 32 + 4;
+        return (int) ByteBuffer.wrap(footer).getLong(lengthAt);
+    }
+
+    private static Path writeFile(Path path) throws IOException {
+        CompressionHeader header = new CompressionHeader("many.bin", (long) CHUNKS * CHUNK_SIZE - 1, 42L,
+                                                         new byte[32], CHUNK_SIZE);
+        for (int i = 0; i < CHUNKS; i++) {
+            header.addChunk(chunk(i));
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.write(new byte[DATA_BYTES]);  // Data section, so the file does not start with a header
+            header.writeTo(out);
+            out.writeLong(DATA_BYTES);
+        }
+        return path;
+    }
+
+    private static ChunkMetadata chunk(int index) {
+        int originalSize = index == CHUNKS - 1 ? CHUNK_SIZE - 1 : CHUNK_SIZE;
+        int[] lengths = new int[256];
+        Arrays.fill(lengths, 'a', 'a' + 16, 4 + index % 2);
+        lengths[index % 2] = 12;
+        byte[] checksum = new byte[32];
+        ByteBuffer.wrap(checksum).putInt(index);
+        boolean checkpointed = index % 3 == 0;
+        return new ChunkMetadata(index, (long) index * CHUNK_SIZE, originalSize,
+                                 index % 16, 500, checksum, lengths,
+                                 checkpointed ? ChunkType.MULTI_STREAM : ChunkType.HUFFMAN, checkpointed ? 2 : 1,
+                                 checkpointed ? 256 : 0,
+                                 checkpointed ? checkpoints(originalSize, index) : new long[0]);
+    }
+
+    private static long[] checkpoints(int originalSize, int index) {
+        long[] checkpoints = new long[HuffmanEncoder.checkpointCount(originalSize, 256)];
+        for (int j = 0; j < checkpoints.length; j++) {
+            checkpoints[j] = 32 + (j + 1) * 1000L + index % 7;
+        }
+        return checkpoints;
+    }
+
+    private static void assertChunkEquals(ChunkMetadata expected, ChunkMetadata actual) {
+        assertEquals(expected.getChunkIndex(), actual.getChunkIndex());
+        assertEquals(expected.getOriginalOffset(), actual.getOriginalOffset());
+        assertEquals(expected.getOriginalSize(), actual.getOriginalSize());
+        assertEquals(expected.getCompressedOffset(), actual.getCompressedOffset());
+        assertEquals(expected.getCompressedSize(), actual.getCompressedSize());
+        assertArrayEquals(expected.getChecksum(), actual.getChecksum());
+        assertEquals(expected.getChunkType(), actual.getChunkType());
+        assertEquals(expected.getStreamCount(), actual.getStreamCount());
+        assertEquals(expected.getCheckpointInterval(), actual.getCheckpointInterval());
+        assertArrayEquals(expected.getCheckpoints(), actual.getCheckpoints());
+        assertArrayEquals(expected.getCodeLengths(), actual.getCodeLengths());
+    }
+}
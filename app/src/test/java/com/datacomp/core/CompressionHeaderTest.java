@@ -0,0 +1,222 @@
+package com.datacomp.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the footer/header serialization.
+ */
+class CompressionHeaderTest {
+
+    @Test
+    void testRoundTripWithChunkTypes() throws IOException {
+        CompressionHeader header = new CompressionHeader("file.bin", 3000, 1234L, filled(32, 7), 1024);
+        header.addChunk(new ChunkMetadata(0, 0, 1024, 0, 700, filled(32, 1), lengths(8)));
+        header.addChunk(new ChunkMetadata(1, 1024, 1024, 700, 650, filled(32, 2), lengths(8),
+                                          ChunkType.MULTI_STREAM, 4));
+
+        CompressionHeader read = CompressionHeader.readFrom(roundTrip(header));
+
+        assertEquals("file.bin", read.getOriginalFileName());
+        assertEquals(2, read.getNumChunks());
+        assertEquals(ChunkType.HUFFMAN, read.getChunks().get(0).getChunkType());
+        assertEquals(1, read.getChunks().get(0).getStreamCount());
+        assertEquals(ChunkType.MULTI_STREAM, read.getChunks().get(1).getChunkType());
+        assertEquals(4, read.getChunks().get(1).getStreamCount());
+        assertEquals(650, read.getChunks().get(1).getCompressedSize());
+        assertArrayEquals(lengths(8), read.getChunks().get(1).getCodeLengths());
+    }
+
+    @Test
+    void testRoundTripWithChecksumAlgorithm() throws IOException {
+        CompressionHeader header = new CompressionHeader("file.bin", 1024, 0L, filled(32, 7), 1024,
+                                                         ChecksumAlgorithm.CRC32C);
+        header.addChunk(new ChunkMetadata(0, 0, 1024, 0, 700, filled(32, 1), lengths(8)));
+
+        CompressionHeader read = CompressionHeader.readFrom(roundTrip(header));
+
+        assertEquals(ChecksumAlgorithm.CRC32C, read.getChecksumAlgorithm());
+        assertEquals(700, read.getChunks().get(0).getCompressedSize());
+    }
+
+    @Test
+    void testRejectsUnknownChecksumAlgorithm() throws IOException {
+        CompressionHeader header = new CompressionHeader("file.bin", 1024, 0L, filled(32, 7), 1024);
+        header.addChunk(new ChunkMetadata(0, 0, 1024, 0, 700, filled(32, 1), lengths(8)));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        header.writeTo(new DataOutputStream(bytes));
+        byte[] footer = bytes.toByteArray();
+        // The algorithm id follows magic, version, name and the three sizes
+        footer[12 + "file.bin".length() + 8 + 8 + 4] = 9;
+
+        assertThrows(IOException.class, () -> CompressionHeader.readFrom(
+            new DataInputStream(new ByteArrayInputStream(footer))));
+    }
+
+    @Test
+    void testRoundTripWithCheckpoints() throws IOException {
+        long[] checkpoints = {96, 500_000, 500_001, 1L << 32};
+        CompressionHeader header = new CompressionHeader("file.bin", 5000, 1234L, filled(32, 7), 5000);
+        header.addChunk(new ChunkMetadata(0, 0, 5000, 0, 1 << 30, filled(32, 1), lengths(8),
+                                          ChunkType.MULTI_STREAM, 4, 1000, checkpoints));
+
+        ChunkMetadata read = CompressionHeader.readFrom(roundTrip(header)).getChunks().get(0);
+
+        assertEquals(1000, read.getCheckpointInterval());
+        assertArrayEquals(checkpoints, read.getCheckpoints());
+        assertEquals(4, read.getStreamCount());
+        assertArrayEquals(lengths(8), read.getCodeLengths());
+    }
+
+    @Test
+    void testRejectsCheckpointPastChunk() throws IOException {
+        CompressionHeader header = new CompressionHeader("file.bin", 2000, 0L, filled(32, 7), 2000);
+        header.addChunk(new ChunkMetadata(0, 0, 2000, 0, 100, filled(32, 1), lengths(8),
+                                          ChunkType.HUFFMAN, 1, 1000, new long[] {801}));
+
+        assertThrows(IOException.class, () -> CompressionHeader.readFrom(roundTrip(header)));
+    }
+
+    @Test
+    void testCompactCodeLengthsRoundTrip() throws IOException {
+        int[] text = new int[256];
+        for (int i = 0; i < 256; i++) {
+            text[i] = i < 9 || (i > 13 && i < 32) ? 0 : i >= 'a' && i <= 'z' ? 4 + i % 3 : 7 + i % 5;
+        }
+        text[255] = 32;
+        int[] sparse = new int[256];
+        sparse['x'] = 1;
+        sparse['y'] = 1;
+
+        for (int[] lengths : new int[][] {text, sparse, new int[256], lengths(8), lengths(12)}) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            CodeLengthTable.write(new DataOutputStream(bytes), lengths);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+
+            assertArrayEquals(lengths, CodeLengthTable.read(in));
+            assertEquals(0, in.available(), "table must be self-delimiting");
+            assertTrue(bytes.size() < 256, "table of " + bytes.size() + " bytes");
+        }
+    }
+
+    @Test
+    void testRepeatedCodeLengthsAreReferenced() throws IOException {
+        int[] other = lengths(8);
+        other[0] = 9;
+        other[1] = 7;
+        CompressionHeader header = new CompressionHeader("file.bin", 1000, 0L, filled(32, 7), 100);
+        for (int i = 0; i < 10; i++) {
+            int[] lengths = i % 3 == 1 ? other.clone() : lengths(8);
+            header.addChunk(new ChunkMetadata(i, i * 100L, 100, i * 80L, 80, filled(32, i), lengths));
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        header.writeTo(new DataOutputStream(bytes));
+        // 572 bytes per chunk in version 1; now a fixed record per chunk and two shared tables
+        assertTrue(bytes.size() < 10 * 100, "footer of " + bytes.size() + " bytes");
+
+        CompressionHeader read = CompressionHeader.readFrom(
+            new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        for (int i = 0; i < 10; i++) {
+            assertArrayEquals(i % 3 == 1 ? other : lengths(8), read.getChunks().get(i).getCodeLengths());
+        }
+        assertSame(read.getChunks().get(1).getCodeLengths(), read.getChunks().get(7).getCodeLengths());
+    }
+
+    @Test
+    void testRejectsMalformedCodeLengths() {
+        // Repeat with nothing to repeat
+        assertThrows(IOException.class, () -> CodeLengthTable.read(stream(0xC0)));
+        // Zero runs past symbol 255
+        assertThrows(IOException.class, () -> CodeLengthTable.read(stream(0xEF, 0xFE, 0xFF)));
+        // Escaped length above the maximum
+        assertThrows(IOException.class, () -> CodeLengthTable.read(stream(0xF4, 0x00)));
+        // Table cut short
+        assertThrows(IOException.class, () -> CodeLengthTable.read(stream(0x88)));
+    }
+
+    @Test
+    void testReadsVersion1() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        byte[] name = "old.bin".getBytes(StandardCharsets.UTF_8);
+        out.writeInt(CompressionHeader.MAGIC_NUMBER);
+        out.writeInt(1);
+        out.writeInt(name.length);
+        out.write(name);
+        out.writeLong(100);
+        out.writeLong(0);
+        out.writeInt(1024);
+        out.write(new byte[32]);
+        out.writeInt(1);
+        out.writeInt(0);
+        out.writeLong(0);
+        out.writeInt(100);
+        out.writeLong(0);
+        out.writeInt(90);
+        out.write(new byte[32]);
+        for (int len : lengths(8)) {
+            out.writeShort(len);
+        }
+
+        CompressionHeader read = CompressionHeader.readFrom(
+            new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(ChecksumAlgorithm.SHA256, read.getChecksumAlgorithm());
+        ChunkMetadata chunk = read.getChunks().get(0);
+        assertEquals(ChunkType.HUFFMAN, chunk.getChunkType());
+        assertEquals(1, chunk.getStreamCount());
+        assertEquals(90, chunk.getCompressedSize());
+        assertArrayEquals(lengths(8), chunk.getCodeLengths());
+    }
+
+    @Test
+    void testRejectsChunksOutsideTheirSlots() {
+        CompressionHeader header = new CompressionHeader("file.bin", 3000, 0L, filled(32, 7), 1024);
+        header.addChunk(new ChunkMetadata(0, 0, 1000, 0, 700, filled(32, 1), lengths(8)));
+        
+        assertThrows(IOException.class, () -> header.writeTo(new DataOutputStream(new ByteArrayOutputStream())));
+    }
+    
+    @Test
+    void testRejectsUnknownVersion() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(CompressionHeader.MAGIC_NUMBER);
+        out.writeInt(CompressionHeader.VERSION + 1);
+
+        assertThrows(IOException.class, () -> CompressionHeader.readFrom(
+            new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+    }
+
+    private static DataInputStream roundTrip(CompressionHeader header) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        header.writeTo(new DataOutputStream(bytes));
+        return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    private static DataInputStream stream(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    private static byte[] filled(int size, int value) {
+        byte[] bytes = new byte[size];
+        Arrays.fill(bytes, (byte) value);
+        return bytes;
+    }
+
+    private static int[] lengths(int length) {
+        int[] lengths = new int[256];
+        Arrays.fill(lengths, length);
+        return lengths;
+    }
+}
@@ -0,0 +1,313 @@
+package com.datacomp.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the word-at-a-time Huffman encoder.
+ */
+class HuffmanEncoderTest {
+
+    @Test
+    void testMatchesBitByBitEncodingOnRandomData() {
+        byte[] data = new byte[100_000];
+        new Random(1).nextBytes(data);
+
+        assertMatchesReference(data, buildCodes(data));
+    }
+
+    @Test
+    void testMatchesBitByBitEncodingOnSkewedData() {
+        Random random = new Random(2);
+        byte[] data = new byte[50_000];
+        for (int i = 0; i < data.length; i++) {
+            // Geometric-like distribution produces a wide spread of code lengths
+            data[i] = (byte) Math.min(255, (int) (-Math.log(1 - random.nextDouble()) * 3));
+        }
+
+        assertMatchesReference(data, buildCodes(data));
+    }
+
+    @Test
+    void testLongCodewords() {
+        // Lengths 1..31 plus two 32-bit codes form a complete prefix code
+        int[] codeLengths = new int[256];
+        for (int symbol = 0; symbol < 31; symbol++) {
+            codeLengths[symbol] = symbol + 1;
+        }
+        codeLengths[31] = 32;
+        codeLengths[32] = 32;
+        HuffmanCode[] codes = CanonicalHuffman.generateCanonicalCodesFromLengths(codeLengths);
+
+        Random random = new Random(3);
+        byte[] data = new byte[10_000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) random.nextInt(33);
+        }
+
+        assertMatchesReference(data, codes);
+    }
+
+    @Test
+    void testSingleSymbol() {
+        byte[] data = new byte[1001];
+        Arrays.fill(data, (byte) 42);
+
+        HuffmanCode[] codes = buildCodes(data);
+        byte[] encoded = new HuffmanEncoder(codes).encode(data, 0, data.length);
+
+        assertEquals((1001 + 7) / 8, encoded.length);
+        assertMatchesReference(data, codes);
+    }
+
+    @Test
+    void testEmptyInput() {
+        HuffmanCode[] codes = buildCodes(new byte[] {1, 2, 3});
+        byte[] encoded = new HuffmanEncoder(codes).encode(new byte[0], 0, 0);
+
+        assertEquals(0, encoded.length);
+    }
+
+    @Test
+    void testOffsetAndExactSizeFromFrequencies() {
+        byte[] data = new byte[20_000];
+        new Random(4).nextBytes(data);
+        int offset = 123;
+        int length = 15_000;
+
+        long[] frequencies = new long[256];
+        for (int i = offset; i < offset + length; i++) {
+            frequencies[data[i] & 0xFF]++;
+        }
+        HuffmanCode[] codes = CanonicalHuffman.buildCanonicalCodes(frequencies);
+        HuffmanEncoder encoder = new HuffmanEncoder(codes);
+
+        long bits = encoder.computeEncodedBits(frequencies);
+        assertEquals(bits, encoder.computeEncodedBits(data, offset, length));
+
+        byte[] encoded = encoder.encode(data, offset, length, bits);
+        assertEquals((bits + 7) / 8, encoded.length);
+        assertArrayEquals(referenceEncode(data, offset, length, codes), encoded);
+    }
+
+    @Test
+    void testEncodeIntoCallerBuffer() {
+        byte[] data = "the quick brown fox jumps over the lazy dog".getBytes();
+        HuffmanCode[] codes = buildCodes(data);
+        byte[] expected = referenceEncode(data, 0, data.length, codes);
+
+        byte[] output = new byte[expected.length + 10];
+        int written = new HuffmanEncoder(codes).encode(data, 0, data.length, output, 5);
+
+        assertEquals(expected.length, written);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], output[5 + i], "Byte " + i);
+        }
+    }
+
+    @Test
+    void testMultiStreamLayout() {
+        byte[] data = new byte[10_001];
+        new Random(5).nextBytes(data);
+        HuffmanCode[] codes = buildCodes(data);
+        HuffmanEncoder encoder = new HuffmanEncoder(codes);
+
+        byte[] encoded = encoder.encodeStreams(data, 0, data.length, 4, encoder.computeEncodedBits(data, 0, data.length));
+
+        // Jump table of 3 sizes, then each segment encoded exactly like a single stream
+        int segment = HuffmanEncoder.streamSegmentSize(data.length, 4);
+        assertEquals(2501, segment);
+        ByteBuffer buffer = ByteBuffer.wrap(encoded);
+        int pos = 12;
+        for (int stream = 0; stream < 4; stream++) {
+            int start = stream * segment;
+            int length = Math.min(segment, data.length - start);
+            byte[] expected = referenceEncode(data, start, length, codes);
+            if (stream < 3) {
+                assertEquals(expected.length, buffer.getInt(4 * stream));
+            }
+            assertArrayEquals(expected, Arrays.copyOfRange(encoded, pos, pos + expected.length));
+            pos += expected.length;
+        }
+        assertEquals(encoded.length, pos);
+    }
+
+    @Test
+    void testDirectBufferMatchesArray() {
+        byte[] data = new byte[70_007];
+        Random random = new Random(6);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (random.nextGaussian() * 30);
+        }
+        HuffmanCode[] codes = buildCodes(data);
+        HuffmanEncoder encoder = new HuffmanEncoder(codes);
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length).put(data);
+
+        // Unaligned start and a length that leaves a sub-word tail
+        long bits = encoder.computeEncodedBits(data, 3, 50_005);
+        assertArrayEquals(encoder.encode(data, 3, 50_005, bits), encoder.encode(direct, 3, 50_005, bits));
+
+        long allBits = encoder.computeEncodedBits(data, 0, data.length);
+        assertArrayEquals(encoder.encodeStreams(data, 0, data.length, 4, allBits),
+                          encoder.encodeStreams(direct, 0, data.length, 4, allBits));
+    }
+
+    @Test
+    void testMultiStreamIntoDirtyPooledBuffer() {
+        byte[] data = new byte[40_003];
+        new Random(7).nextBytes(data);
+        HuffmanEncoder encoder = new HuffmanEncoder(buildCodes(data));
+        long bits = encoder.computeEncodedBits(data, 0, data.length);
+        byte[] expected = encoder.encodeStreams(data, 0, data.length, 3, bits);
+
+        // Reused buffers are larger than needed and hold stale bytes
+        byte[] output = new byte[HuffmanEncoder.maxEncodedBytes(bits, 3) + 1000];
+        Arrays.fill(output, (byte) 0xA5);
+        int written = encoder.encodeStreams(ByteBuffer.wrap(data), 0, data.length, 3, output);
+
+        assertEquals(expected.length, written);
+        assertArrayEquals(expected, Arrays.copyOf(output, written));
+        assertTrue(written <= HuffmanEncoder.maxEncodedBytes(bits, 3));
+    }
+
+    @Test
+    void testParallelEncodingMatchesSequential() {
+        Random random = new Random(8);
+        byte[] skewed = new byte[300_001];
+        for (int i = 0; i < skewed.length; i++) {
+            skewed[i] = (byte) Math.min(255, (int) (-Math.log(1 - random.nextDouble()) * 2));
+        }
+        byte[] uniform = new byte[100_000];
+        random.nextBytes(uniform);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (byte[] data : new byte[][] {skewed, uniform}) {
+                HuffmanEncoder encoder = new HuffmanEncoder(buildCodes(data));
+                long bits = encoder.computeEncodedBits(data, 0, data.length);
+                ByteBuffer direct = ByteBuffer.allocateDirect(data.length).put(data);
+                for (int streams : new int[] {1, 3, 4}) {
+                    byte[] expected = streams == 1 ? encoder.encode(data, 0, data.length, bits)
+                                                   : encoder.encodeStreams(data, 0, data.length, streams, bits);
+                    // Segment sizes with odd bit boundaries, and one larger than a stream
+                    for (int segmentSize : new int[] {8, 1001, 65_536, 1 << 20}) {
+                        for (ByteBuffer input : new ByteBuffer[] {ByteBuffer.wrap(data), direct}) {
+                            byte[] output = new byte[HuffmanEncoder.maxEncodedBytes(bits, streams) + 64];
+                            Arrays.fill(output, (byte) 0x5A);
+                            int written = encoder.encodeParallel(input, 0, data.length, streams, output,
+                                                                 pool, segmentSize);
+                            assertArrayEquals(expected, Arrays.copyOf(output, written),
+                                streams + " streams, " + segmentSize + " byte segments");
+                        }
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testCheckpointsAgreeAcrossEncoders() {
+        Random random = new Random(9);
+        byte[] data = new byte[250_003];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) Math.min(255, (int) (-Math.log(1 - random.nextDouble()) * 2));
+        }
+        HuffmanCode[] codes = buildCodes(data);
+        HuffmanEncoder encoder = new HuffmanEncoder(codes);
+        long bits = encoder.computeEncodedBits(data, 0, data.length);
+        int interval = 10_000;
+        int count = HuffmanEncoder.checkpointCount(data.length, interval);
+        assertEquals(25, count);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int streams : new int[] {1, 4}) {
+                byte[] expected = streams == 1 ? encoder.encode(data, 0, data.length, bits)
+                                               : encoder.encodeStreams(data, 0, data.length, streams, bits);
+                byte[] output = new byte[HuffmanEncoder.maxEncodedBytes(bits, streams)];
+                long[] checkpoints = new long[count];
+                int written = streams == 1
+                    ? encoder.encode(ByteBuffer.wrap(data), 0, data.length, output, interval, checkpoints)
+                    : encoder.encodeStreams(ByteBuffer.wrap(data), 0, data.length, streams, output,
+                                            interval, checkpoints);
+                assertArrayEquals(expected, Arrays.copyOf(output, written), streams + " streams");
+
+                // Single stream: the offset is the size of everything before the checkpoint
+                if (streams == 1) {
+                    for (int j = 1; j <= count; j++) {
+                        assertEquals(encoder.computeEncodedBits(data, 0, j * interval), checkpoints[j - 1]);
+                    }
+                }
+
+                // Segments that straddle checkpoints and ones that start on them
+                for (int segmentSize : new int[] {4_999, 10_000}) {
+                    long[] parallel = new long[count];
+                    encoder.encodeParallel(ByteBuffer.wrap(data), 0, data.length, streams,
+                                           new byte[output.length], pool, segmentSize, interval, parallel);
+                    assertArrayEquals(checkpoints, parallel, streams + " streams, " + segmentSize);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(0, HuffmanEncoder.checkpointCount(interval, interval));
+        assertEquals(1, HuffmanEncoder.checkpointCount(interval + 1, interval));
+        assertEquals(0, HuffmanEncoder.checkpointCount(data.length, 0));
+    }
+
+    @Test
+    void testParallelEncodingRejectsTinySegments() {
+        HuffmanEncoder encoder = new HuffmanEncoder(buildCodes(new byte[] {1, 2, 3}));
+        ByteBuffer data = ByteBuffer.wrap(new byte[100]);
+        assertThrows(IllegalArgumentException.class,
+            () -> encoder.encodeParallel(data, 0, 100, 1, new byte[1000], ForkJoinPool.commonPool(), 7));
+    }
+
+    private static void assertMatchesReference(byte[] data, HuffmanCode[] codes) {
+        byte[] expected = referenceEncode(data, 0, data.length, codes);
+        byte[] actual = new HuffmanEncoder(codes).encode(data, 0, data.length);
+        assertArrayEquals(expected, actual);
+    }
+
+    private static HuffmanCode[] buildCodes(byte[] data) {
+        long[] frequencies = new long[256];
+        for (byte b : data) {
+            frequencies[b & 0xFF]++;
+        }
+        return CanonicalHuffman.buildCanonicalCodes(frequencies);
+    }
+
+    /**
+     * Reference MSB-first bit-by-bit writer (the original encoding loop).
+     */
+    private static byte[] referenceEncode(byte[] data, int offset, int length, HuffmanCode[] codes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int currentByte = 0;
+        int numBits = 0;
+
+        for (int i = offset; i < offset + length; i++) {
+            HuffmanCode code = codes[data[i] & 0xFF];
+            for (int b = code.getCodeLength() - 1; b >= 0; b--) {
+                currentByte = (currentByte << 1) | ((code.getCodeword() >>> b) & 1);
+                if (++numBits == 8) {
+                    out.write(currentByte);
+                    currentByte = 0;
+                    numBits = 0;
+                }
+            }
+        }
+        if (numBits > 0) {
+            out.write(currentByte << (8 - numBits));
+        }
+        return out.toByteArray();
+    }
+}
@@ -1,6 +1,9 @@
 package com.datacomp.core;
 
 import net.jqwik.api.*;
+
+import java.util.PriorityQueue;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -77,6 +80,216 @@ class HuffmanPropertyTest {
         }
     }
     
+    @Property
+    void limitedCodesShouldRespectLimitAndFormCompletePrefixCode(@ForAll("skewedFrequencies") long[] frequencies) {
+        for (int maxLength = 9; maxLength <= 16; maxLength++) {
+            HuffmanCode[] codes = CanonicalHuffman.buildCanonicalCodes(frequencies, maxLength);
+            
+            double kraft = 0;
+            int numCodes = 0;
+            for (HuffmanCode code : codes) {
+                if (code == null) continue;
+                assertTrue(code.getCodeLength() <= maxLength,
+                    "Code length " + code.getCodeLength() + " exceeds limit " + maxLength);
+                kraft += Math.pow(2, -code.getCodeLength());
+                numCodes++;
+            }
+            if (numCodes > 1) {
+                assertEquals(1.0, kraft, 1e-12, "Length-limited code should be complete");
+            }
+        }
+    }
+    
+    @Property
+    void limitedCodesShouldMatchHuffmanWhenTreeFits(@ForAll("skewedFrequencies") long[] frequencies) {
+        HuffmanCode[] unlimited = CanonicalHuffman.buildCanonicalCodes(frequencies, 32);
+        long unlimitedCost = cost(frequencies, unlimited);
+        int unlimitedMax = maxLength(unlimited);
+        
+        for (int maxLength = 9; maxLength <= 16; maxLength++) {
+            long limitedCost = cost(frequencies, CanonicalHuffman.buildCanonicalCodes(frequencies, maxLength));
+            if (unlimitedMax <= maxLength) {
+                assertEquals(unlimitedCost, limitedCost, "Limit not reached: cost must equal Huffman");
+            } else {
+                assertTrue(limitedCost >= unlimitedCost, "Limited code cannot beat Huffman");
+            }
+        }
+    }
+    
+    @Property
+    void limitedCodesShouldBeOptimalWithinLimit(@ForAll("smallAlphabets") long[] frequencies) {
+        long[] nonZero = java.util.Arrays.stream(frequencies).filter(f -> f > 0).toArray();
+        
+        for (int maxLength = 3; maxLength <= 5; maxLength++) {
+            if (nonZero.length < 2 || nonZero.length > (1 << maxLength)) continue;
+            
+            long actual = cost(frequencies, CanonicalHuffman.buildCanonicalCodes(frequencies, maxLength));
+            long expected = bruteForceOptimalCost(nonZero, maxLength);
+            assertEquals(expected, actual, "Package-merge should be optimal for limit " + maxLength);
+        }
+    }
+    
+    @Property
+    void defaultLimitShouldApplyToDeepTrees(@ForAll("skewedFrequencies") long[] frequencies) {
+        HuffmanCode[] codes = CanonicalHuffman.buildCanonicalCodes(frequencies);
+        assertTrue(maxLength(codes) <= CanonicalHuffman.DEFAULT_MAX_CODE_LENGTH);
+    }
+    
+    @Property
+    void lengthBuilderShouldMatchTreeBuilderCost(@ForAll("frequencies") long[] frequencies) {
+        assertSameCostAsTreeBuilder(frequencies);
+    }
+    
+    @Property
+    void lengthBuilderShouldMatchTreeBuilderCostOnDeepTrees(@ForAll("skewedFrequencies") long[] frequencies) {
+        assertSameCostAsTreeBuilder(frequencies);
+    }
+    
+    @Property
+    void lengthBuilderShouldMatchTreeBuilderWithoutTies(@ForAll("distinctFrequencies") long[] frequencies) {
+        int[] expected = buildCodeLengthsWithTree(frequencies);
+        int[] actual = new int[256];
+        new HuffmanLengthBuilder().build(frequencies, actual);
+        
+        assertArrayEquals(expected, actual, "Without weight ties both builders give identical lengths");
+    }
+    
+    private static void assertSameCostAsTreeBuilder(long[] frequencies) {
+        int numSymbols = 0;
+        for (long f : frequencies) {
+            if (f > 0) numSymbols++;
+        }
+        if (numSymbols < 2) return; // Tree builder gives length 0 for a single symbol
+        
+        int[] expected = buildCodeLengthsWithTree(frequencies);
+        int[] actual = new int[256];
+        int longest = new HuffmanLengthBuilder().build(frequencies, actual);
+        
+        long expectedCost = 0;
+        long actualCost = 0;
+        int actualMax = 0;
+        for (int i = 0; i < 256; i++) {
+            expectedCost += frequencies[i] * expected[i];
+            actualCost += frequencies[i] * actual[i];
+            actualMax = Math.max(actualMax, actual[i]);
+            assertEquals(frequencies[i] > 0, actual[i] > 0);
+        }
+        assertEquals(expectedCost, actualCost);
+        assertEquals(actualMax, longest);
+    }
+    
+    private static long cost(long[] frequencies, HuffmanCode[] codes) {
+        long cost = 0;
+        for (int i = 0; i < frequencies.length; i++) {
+            if (frequencies[i] > 0) {
+                cost += frequencies[i] * codes[i].getCodeLength();
+            }
+        }
+        return cost;
+    }
+    
+    private static int maxLength(HuffmanCode[] codes) {
+        int max = 0;
+        for (HuffmanCode code : codes) {
+            if (code != null) max = Math.max(max, code.getCodeLength());
+        }
+        return max;
+    }
+    
+    /**
+     * Reference code lengths from a PriorityQueue of HuffmanNode objects, the
+     * original builder replaced by the allocation-free {@link HuffmanLengthBuilder}.
+     */
+    private static int[] buildCodeLengthsWithTree(long[] frequencies) {
+        PriorityQueue<HuffmanNode> queue = new PriorityQueue<>();
+        for (int i = 0; i < 256; i++) {
+            if (frequencies[i] > 0) {
+                queue.offer(new HuffmanNode(i, frequencies[i]));
+            }
+        }
+        while (queue.size() > 1) {
+            HuffmanNode left = queue.poll();
+            HuffmanNode right = queue.poll();
+            queue.offer(new HuffmanNode(left, right));
+        }
+        
+        int[] codeLengths = new int[256];
+        if (!queue.isEmpty()) {
+            extractLengths(queue.poll(), 0, codeLengths);
+        }
+        return codeLengths;
+    }
+    
+    private static void extractLengths(HuffmanNode node, int depth, int[] lengths) {
+        if (node.isLeaf()) {
+            lengths[node.getSymbol()] = depth;
+        } else {
+            extractLengths(node.getLeft(), depth + 1, lengths);
+            extractLengths(node.getRight(), depth + 1, lengths);
+        }
+    }
+    
+    /**
+     * Minimum cost over all length assignments satisfying Kraft's inequality.
+     * Optimal codes give non-increasing frequencies non-decreasing lengths,
+     * so only monotone assignments need to be enumerated.
+     */
+    private static long bruteForceOptimalCost(long[] frequencies, int maxLength) {
+        long[] sorted = frequencies.clone();
+        java.util.Arrays.sort(sorted);
+        // Descending order
+        for (int i = 0, j = sorted.length - 1; i < j; i++, j--) {
+            long tmp = sorted[i];
+            sorted[i] = sorted[j];
+            sorted[j] = tmp;
+        }
+        return enumerate(sorted, 0, 1, maxLength, 0.0, 0);
+    }
+    
+    private static long enumerate(long[] sorted, int index, int minLength, int maxLength,
+                                  double kraft, long cost) {
+        if (index == sorted.length) {
+            return kraft <= 1.0 + 1e-12 ? cost : Long.MAX_VALUE;
+        }
+        long best = Long.MAX_VALUE;
+        for (int len = minLength; len <= maxLength; len++) {
+            double k = kraft + Math.pow(2, -len);
+            if (k > 1.0 + 1e-12) continue;
+            best = Math.min(best, enumerate(sorted, index + 1, len, maxLength, k, cost + sorted[index] * len));
+        }
+        return best;
+    }
+    
+    @Provide
+    Arbitrary<long[]> skewedFrequencies() {
+        // Power-of-two weights spanning many magnitudes produce trees deeper than 16
+        return Arbitraries.integers().between(-8, 40)
+            .list().ofSize(256)
+            .map(list -> list.stream().mapToLong(e -> e < 0 ? 0 : 1L << e).toArray());
+    }
+    
+    @Provide
+    Arbitrary<long[]> distinctFrequencies() {
+        // Large random weights: ties between leaves or subtree sums are practically impossible
+        return Arbitraries.longs().between(-(1L << 40), 1L << 40)
+            .list().ofSize(256)
+            .map(list -> list.stream().mapToLong(f -> f <= 0 ? 0 : f + (1L << 30)).toArray());
+    }
+    
+    @Provide
+    Arbitrary<long[]> smallAlphabets() {
+        return Arbitraries.integers().between(0, 12)
+            .list().ofSize(8)
+            .map(list -> {
+                long[] frequencies = new long[256];
+                for (int i = 0; i < list.size(); i++) {
+                    int e = list.get(i);
+                    frequencies[i * 31] = e == 0 ? 0 : (1L << e) + i;
+                }
+                return frequencies;
+            });
+    }
+    
     @Provide
     Arbitrary<long[]> frequencies() {
         return Arbitraries.integers().between(0, 1000)
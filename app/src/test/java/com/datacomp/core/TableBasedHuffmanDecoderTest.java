@@ -0,0 +1,293 @@
+package com.datacomp.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the table-based Huffman decoder.
+ */
+class TableBasedHuffmanDecoderTest {
+
+    @Test
+    void testRoundTripRandomData() {
+        byte[] data = new byte[100_000];
+        new Random(1).nextBytes(data);
+
+        assertRoundTrip(data);
+    }
+
+    @Test
+    void testRoundTripSkewedDataWithLongCodes() {
+        Random random = new Random(2);
+        byte[] data = new byte[200_000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) Math.min(255, (int) (-Math.log(1 - random.nextDouble()) * 2));
+        }
+
+        HuffmanCode[] codes = buildCodes(data);
+        assertTrue(maxLength(codes) > TableBasedHuffmanDecoder.TABLE_BITS,
+                  "Data should produce codes longer than the table width");
+        assertRoundTrip(data);
+    }
+
+    @Test
+    void testCodesUpTo32Bits() {
+        int[] codeLengths = new int[256];
+        for (int symbol = 0; symbol < 31; symbol++) {
+            codeLengths[symbol] = symbol + 1;
+        }
+        codeLengths[31] = 32;
+        codeLengths[32] = 32;
+        HuffmanCode[] codes = CanonicalHuffman.generateCanonicalCodesFromLengths(codeLengths);
+
+        Random random = new Random(3);
+        byte[] data = new byte[5_000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) random.nextInt(33);
+        }
+        // Make sure both 32-bit codes appear near the end (tail loop)
+        data[data.length - 2] = 31;
+        data[data.length - 1] = 32;
+
+        byte[] encoded = new HuffmanEncoder(codes).encode(data, 0, data.length);
+        byte[] decoded = new TableBasedHuffmanDecoder(codes).decode(encoded, data.length);
+        assertArrayEquals(data, decoded);
+
+        // Direct buffers take the tiled path
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length + 5);
+        new TableBasedHuffmanDecoder(codes).decode(encoded, encoded.length, direct, 5, data.length);
+        assertArrayEquals(data, contents(direct, 5, data.length));
+    }
+
+    @Test
+    void testShortInputsUseTailLoop() {
+        for (int length = 0; length < 40; length++) {
+            byte[] data = Arrays.copyOf("abracadabra, the quick brown fox!!!!!!!!!".getBytes(), length);
+            if (length == 0) {
+                byte[] decoded = new TableBasedHuffmanDecoder(buildCodes(new byte[] {1})).decode(new byte[0], 0);
+                assertEquals(0, decoded.length);
+            } else {
+                assertRoundTrip(data);
+            }
+        }
+    }
+
+    @Test
+    void testSingleSymbol() {
+        byte[] data = new byte[12_345];
+        Arrays.fill(data, (byte) 7);
+
+        assertRoundTrip(data);
+    }
+
+    @Test
+    void testDecodeIntoOffset() {
+        byte[] data = new byte[50_000];
+        new Random(4).nextBytes(data);
+        HuffmanCode[] codes = buildCodes(data);
+        byte[] encoded = new HuffmanEncoder(codes).encode(data, 0, data.length);
+
+        // Extra trailing bytes beyond compressedLength must be ignored
+        byte[] padded = Arrays.copyOf(encoded, encoded.length + 16);
+        Arrays.fill(padded, encoded.length, padded.length, (byte) 0xFF);
+
+        byte[] output = new byte[data.length + 10];
+        new TableBasedHuffmanDecoder(codes).decode(padded, encoded.length, output, 10, data.length);
+        assertArrayEquals(data, Arrays.copyOfRange(output, 10, output.length));
+    }
+
+    @Test
+    void testTruncatedStreamFails() {
+        byte[] data = new byte[10_000];
+        new Random(5).nextBytes(data);
+        HuffmanCode[] codes = buildCodes(data);
+        byte[] encoded = new HuffmanEncoder(codes).encode(data, 0, data.length);
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length / 2);
+
+        assertThrows(RuntimeException.class,
+            () -> new TableBasedHuffmanDecoder(codes).decode(truncated, data.length));
+    }
+
+    @Test
+    void testLookupTablePacking() {
+        byte[] data = "aaaabbc".getBytes();
+        HuffmanCode[] codes = buildCodes(data);
+        int[] table = new TableBasedHuffmanDecoder(codes).getLookupTable();
+
+        assertEquals(TableBasedHuffmanDecoder.TABLE_SIZE, table.length);
+        HuffmanCode a = codes['a'];
+        int index = a.getCodeword() << (TableBasedHuffmanDecoder.TABLE_BITS - a.getCodeLength());
+        assertEquals(('a' << 8) | a.getCodeLength(), table[index]);
+    }
+
+    @Test
+    void testMultiStreamRoundTrip() {
+        byte[] data = new byte[100_003];  // Not a multiple of the stream count
+        new Random(6).nextBytes(data);
+
+        for (int streams = 2; streams <= 8; streams++) {
+            assertMultiStreamRoundTrip(data, streams);
+        }
+    }
+
+    @Test
+    void testMultiStreamSkewedDataWithLongCodes() {
+        Random random = new Random(7);
+        byte[] data = new byte[150_000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) Math.min(255, (int) (-Math.log(1 - random.nextDouble()) * 2));
+        }
+
+        assertMultiStreamRoundTrip(data, 4);
+        assertMultiStreamRoundTrip(data, 3);
+    }
+
+    @Test
+    void testDirectBufferSpansManyTiles() {
+        // Several tiles per stream, with segments that end mid-tile
+        Random random = new Random(9);
+        byte[] data = new byte[10 * TableBasedHuffmanDecoder.TILE_SYMBOLS + 4099];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) Math.min(255, (int) (-Math.log(1 - random.nextDouble()) * 2));
+        }
+
+        assertRoundTrip(data);
+        assertMultiStreamRoundTrip(data, 4);
+        assertMultiStreamRoundTrip(data, 6);
+    }
+
+    @Test
+    void testMultiStreamShortInputs() {
+        byte[] text = "interleaved streams decode the same bytes".getBytes();
+        for (int length = 1; length <= text.length; length++) {
+            assertMultiStreamRoundTrip(Arrays.copyOf(text, length), 4);
+            assertMultiStreamRoundTrip(Arrays.copyOf(text, length), 5);
+        }
+    }
+
+    @Test
+    void testMultiStreamRejectsCorruptJumpTable() {
+        byte[] data = new byte[10_000];
+        new Random(8).nextBytes(data);
+        HuffmanCode[] codes = buildCodes(data);
+        HuffmanEncoder encoder = new HuffmanEncoder(codes);
+        byte[] encoded = encoder.encodeStreams(data, 0, data.length, 4, encoder.computeEncodedBits(data, 0, data.length));
+        encoded[0] = 0x7F;  // First stream size now exceeds the payload
+
+        assertThrows(RuntimeException.class, () -> new TableBasedHuffmanDecoder(codes)
+            .decodeStreams(encoded, encoded.length, new byte[data.length], 0, data.length, 4));
+    }
+
+    @Test
+    void testDecodeRangesFromCheckpoints() {
+        Random random = new Random(10);
+        byte[] data = new byte[4 * TableBasedHuffmanDecoder.TILE_SYMBOLS + 70_001];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) Math.min(255, (int) (-Math.log(1 - random.nextDouble()) * 2));
+        }
+        HuffmanCode[] codes = buildCodes(data);
+        HuffmanEncoder encoder = new HuffmanEncoder(codes);
+        TableBasedHuffmanDecoder decoder = new TableBasedHuffmanDecoder(codes);
+        long bits = encoder.computeEncodedBits(data, 0, data.length);
+        int interval = 7_000;
+
+        for (int streams : new int[] {1, 3, 4}) {
+            byte[] encoded = new byte[HuffmanEncoder.maxEncodedBytes(bits, streams)];
+            long[] checkpoints = new long[HuffmanEncoder.checkpointCount(data.length, interval)];
+            int length = streams == 1
+                ? encoder.encode(ByteBuffer.wrap(data), 0, data.length, encoded, interval, checkpoints)
+                : encoder.encodeStreams(ByteBuffer.wrap(data), 0, data.length, streams, encoded,
+                                        interval, checkpoints);
+            ChunkMetadata chunk = new ChunkMetadata(0, 0, data.length, 0, length, new byte[32],
+                new int[256], streams == 1 ? ChunkType.HUFFMAN : ChunkType.MULTI_STREAM, streams,
+                interval, checkpoints);
+
+            // Ranges between checkpoints, crossing stream boundaries, and to the end
+            int[][] ranges = {{0, 100}, {7_000, 21_000}, {14_000, 14_001}, {63_000, data.length}, {0, data.length}};
+            for (int[] range : ranges) {
+                int from = chunk.checkpointAtOrBefore(range[0]);
+                long bitOffset = chunk.checkpointBitOffset(from);
+                int size = range[1] - from;
+                String label = streams + " streams from " + from;
+
+                byte[] decoded = new byte[size + 2];
+                decoder.decodeRange(encoded, length, data.length, streams, bitOffset, from, range[1], decoded, 2);
+                assertArrayEquals(Arrays.copyOfRange(data, from, range[1]),
+                                  Arrays.copyOfRange(decoded, 2, decoded.length), label);
+
+                ByteBuffer direct = ByteBuffer.allocateDirect(size);
+                decoder.decodeRange(encoded, length, data.length, streams, bitOffset, from, range[1], direct, 0);
+                assertArrayEquals(Arrays.copyOfRange(data, from, range[1]), contents(direct, 0, size),
+                                  label + ", direct buffer");
+            }
+        }
+    }
+
+    @Test
+    void testCheckpointLookup() {
+        ChunkMetadata chunk = new ChunkMetadata(0, 0, 25, 0, 40, new byte[32], new int[256],
+                                                ChunkType.MULTI_STREAM, 4, 10, new long[] {130, 210});
+        assertEquals(0, chunk.checkpointAtOrBefore(9));
+        assertEquals(10, chunk.checkpointAtOrBefore(19));
+        assertEquals(20, chunk.checkpointAtOrBefore(24));
+        assertEquals(96, chunk.checkpointBitOffset(0));  // Past the 3-entry jump table
+        assertEquals(210, chunk.checkpointBitOffset(20));
+        assertThrows(IllegalArgumentException.class, () -> chunk.checkpointBitOffset(15));
+        assertThrows(IllegalArgumentException.class, () -> new ChunkMetadata(0, 0, 25, 0, 40, new byte[32],
+            new int[256], ChunkType.HUFFMAN, 1, 10, new long[1]));
+    }
+
+    private static void assertMultiStreamRoundTrip(byte[] data, int streams) {
+        HuffmanCode[] codes = buildCodes(data);
+        HuffmanEncoder encoder = new HuffmanEncoder(codes);
+        byte[] encoded = encoder.encodeStreams(data, 0, data.length, streams,
+                                               encoder.computeEncodedBits(data, 0, data.length));
+
+        byte[] decoded = new byte[data.length + 3];
+        new TableBasedHuffmanDecoder(codes).decodeStreams(encoded, encoded.length, decoded, 3, data.length, streams);
+        assertArrayEquals(data, Arrays.copyOfRange(decoded, 3, decoded.length), streams + " streams");
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length + 3);
+        new TableBasedHuffmanDecoder(codes).decodeStreams(encoded, encoded.length, direct, 3, data.length, streams);
+        assertArrayEquals(data, contents(direct, 3, data.length), streams + " streams, direct buffer");
+    }
+
+    private static void assertRoundTrip(byte[] data) {
+        HuffmanCode[] codes = buildCodes(data);
+        byte[] encoded = new HuffmanEncoder(codes).encode(data, 0, data.length);
+        byte[] decoded = new TableBasedHuffmanDecoder(codes).decode(encoded, data.length);
+        assertArrayEquals(data, decoded);
+
+        // Direct buffers take the tiled path
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length + 5);
+        new TableBasedHuffmanDecoder(codes).decode(encoded, encoded.length, direct, 5, data.length);
+        assertArrayEquals(data, contents(direct, 5, data.length));
+    }
+
+    private static byte[] contents(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return bytes;
+    }
+
+    private static HuffmanCode[] buildCodes(byte[] data) {
+        long[] frequencies = new long[256];
+        for (byte b : data) {
+            frequencies[b & 0xFF]++;
+        }
+        return CanonicalHuffman.buildCanonicalCodes(frequencies);
+    }
+
+    private static int maxLength(HuffmanCode[] codes) {
+        int max = 0;
+        for (HuffmanCode code : codes) {
+            if (code != null) max = Math.max(max, code.getCodeLength());
+        }
+        return max;
+    }
+}
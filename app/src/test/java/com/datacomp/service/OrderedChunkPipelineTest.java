@@ -0,0 +1,94 @@
+package com.datacomp.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the windowed, in-order chunk pipeline.
+ */
+class OrderedChunkPipelineTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testDeliversInOrderWithinWindow() throws IOException {
+        OrderedChunkPipeline<Integer> pipeline = new OrderedChunkPipeline<>(executor, 6);
+        AtomicInteger outstanding = new AtomicInteger();
+        AtomicInteger maxOutstanding = new AtomicInteger();
+        List<Integer> delivered = new ArrayList<>();
+
+        pipeline.run(200, index -> {
+            maxOutstanding.accumulateAndGet(outstanding.incrementAndGet(), Math::max);
+            // Uneven task times make later chunks finish first
+            Thread.sleep(new Random(index).nextInt(3));
+            return index * 10;
+        }, (index, result) -> {
+            assertEquals(index * 10, (int) result);
+            delivered.add(index);
+            outstanding.decrementAndGet();
+        });
+
+        assertEquals(200, delivered.size());
+        for (int i = 0; i < delivered.size(); i++) {
+            assertEquals(i, (int) delivered.get(i));
+        }
+        assertTrue(maxOutstanding.get() <= 6, "Window exceeded: " + maxOutstanding.get());
+    }
+
+    @Test
+    void testNoChunks() throws IOException {
+        new OrderedChunkPipeline<Integer>(executor, 2).run(0, index -> index,
+            (index, result) -> fail("Sink called for an empty run"));
+    }
+
+    @Test
+    void testTaskFailureStopsPipeline() {
+        OrderedChunkPipeline<Integer> pipeline = new OrderedChunkPipeline<>(executor, 3);
+        AtomicInteger submitted = new AtomicInteger();
+        List<Integer> delivered = new ArrayList<>();
+
+        IOException error = assertThrows(IOException.class, () -> pipeline.run(100, index -> {
+            submitted.incrementAndGet();
+            if (index == 5) {
+                throw new IllegalStateException("boom");
+            }
+            return index;
+        }, (index, result) -> delivered.add(index)));
+
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        assertTrue(delivered.size() <= 5);
+        assertTrue(submitted.get() < 100, "Submission should stop at the failure");
+    }
+
+    @Test
+    void testIoExceptionPassesThrough() {
+        OrderedChunkPipeline<Integer> pipeline = new OrderedChunkPipeline<>(executor, 2);
+        IOException cause = new IOException("disk full");
+
+        IOException error = assertThrows(IOException.class, () -> pipeline.run(4, index -> index,
+            (index, result) -> {
+                if (index == 2) throw cause;
+            }));
+        assertSame(cause, error);
+    }
+
+    @Test
+    void testRejectsEmptyWindow() {
+        assertThrows(IllegalArgumentException.class, () -> new OrderedChunkPipeline<Integer>(executor, 0));
+    }
+}
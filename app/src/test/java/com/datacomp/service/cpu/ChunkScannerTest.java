@@ -0,0 +1,184 @@
+package com.datacomp.service.cpu;
+
+import com.datacomp.core.ChecksumAlgorithm;
+import com.datacomp.util.BufferPool;
+import com.datacomp.util.ChecksumUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the fused read + checksum + histogram pass.
+ */
+class ChunkScannerTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void testMatchesSeparatePasses() throws IOException {
+        byte[] content = new byte[1_000_003];
+        new Random(1).nextBytes(content);
+        Path file = write(content);
+        
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (int tile : new int[] {4096, 100_000, ChunkScanner.DEFAULT_TILE_BYTES, 2_000_000}) {
+                byte[] buffer = new byte[300_000];
+                ChunkScanner.Result result = ChunkScanner.scan(channel, 250_000, content.length, buffer,
+                                                               ChunkScanner.Histogram.FULL,
+                                                               ChecksumAlgorithm.SHA256, tile);
+                
+                assertEquals(300_000, result.getBytesRead());
+                assertArrayEquals(Arrays.copyOfRange(content, 250_000, 550_000), buffer);
+                assertArrayEquals(ChecksumUtil.computeSha256(content, 250_000, 300_000), result.getChecksum());
+                assertArrayEquals(histogram(content, 250_000, 300_000), result.getFrequencies());
+            }
+        }
+    }
+    
+    @Test
+    void testLastPartialChunk() throws IOException {
+        byte[] content = new byte[70_000];
+        new Random(2).nextBytes(content);
+        Path file = write(content);
+        
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            byte[] buffer = new byte[64 * 1024];
+            ChunkScanner.Result result = ChunkScanner.scan(channel, 65_536, content.length, buffer,
+                                                           ChunkScanner.Histogram.FULL, ChecksumAlgorithm.SHA256);
+            
+            assertEquals(70_000 - 65_536, result.getBytesRead());
+            assertArrayEquals(ChecksumUtil.computeSha256(content, 65_536, 70_000 - 65_536), result.getChecksum());
+            assertArrayEquals(histogram(content, 65_536, 70_000 - 65_536), result.getFrequencies());
+        }
+    }
+    
+    @Test
+    void testChecksumOnly() throws IOException {
+        byte[] content = "digest without counting".getBytes();
+        Path file = write(content);
+        
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ChunkScanner.Result result = ChunkScanner.scan(channel, 0, content.length, new byte[1024],
+                                                           ChunkScanner.Histogram.NONE, ChecksumAlgorithm.SHA256);
+            
+            assertEquals(content.length, result.getBytesRead());
+            assertArrayEquals(ChecksumUtil.computeSha256(content), result.getChecksum());
+            assertNull(result.getFrequencies());
+        }
+    }
+    
+    @Test
+    void testMappedWindowMatchesPositionalScan() throws IOException {
+        byte[] content = new byte[600_001];
+        new Random(3).nextBytes(content);
+        Path file = write(content);
+        
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ChunkScanner.Result mapped = ChunkScanner.scan(
+                channel.map(FileChannel.MapMode.READ_ONLY, 100_000, 500_001),
+                ChunkScanner.Histogram.FULL, ChecksumAlgorithm.SHA256, 4096);
+            ChunkScanner.Result positional = ChunkScanner.scan(channel, 100_000, content.length, new byte[500_001],
+                                                               ChunkScanner.Histogram.FULL, ChecksumAlgorithm.SHA256);
+            
+            assertEquals(500_001, mapped.getBytesRead());
+            assertArrayEquals(positional.getChecksum(), mapped.getChecksum());
+            assertArrayEquals(positional.getFrequencies(), mapped.getFrequencies());
+            assertEquals(content[100_000], mapped.getData().get(0));
+        }
+    }
+    
+    @Test
+    void testSampledHistogramBailsOutOnRandomData() throws IOException {
+        byte[] content = new byte[1_000_000];
+        new Random(5).nextBytes(content);
+        Path file = write(content);
+        
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            byte[] buffer = new byte[content.length];
+            ChunkScanner.Result result = ChunkScanner.scan(channel, 0, content.length, buffer,
+                                                           ChunkScanner.Histogram.SAMPLED, ChecksumAlgorithm.SHA256);
+            
+            assertTrue(result.isIncompressible());
+            assertNull(result.getFrequencies());
+            assertEquals(content.length, result.getBytesRead());
+            assertArrayEquals(content, buffer);
+            assertArrayEquals(ChecksumUtil.computeSha256(content, 0, content.length), result.getChecksum());
+        }
+    }
+    
+    @Test
+    void testSampledHistogramCountsCompressibleData() throws IOException {
+        byte[] content = new byte[1_000_000];
+        Random random = new Random(6);
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (random.nextGaussian() * 20);
+        }
+        Path file = write(content);
+        
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ChunkScanner.Result result = ChunkScanner.scan(channel, 0, content.length, new byte[content.length],
+                                                           ChunkScanner.Histogram.SAMPLED, ChecksumAlgorithm.SHA256);
+            
+            assertFalse(result.isIncompressible());
+            assertArrayEquals(histogram(content, 0, content.length), result.getFrequencies());
+        }
+        
+        // A chunk that fits in the sampled tile is counted in full, even when random
+        byte[] noise = new byte[100_000];
+        new Random(7).nextBytes(noise);
+        ChunkScanner.Result whole = ChunkScanner.scan(ByteBuffer.wrap(noise), ChunkScanner.Histogram.SAMPLED,
+                                                      ChecksumAlgorithm.SHA256);
+        assertFalse(whole.isIncompressible());
+        assertArrayEquals(histogram(noise, 0, noise.length), whole.getFrequencies());
+    }
+    
+    @Test
+    void testReaderModesAgree() throws IOException {
+        byte[] content = new byte[250_000];
+        new Random(4).nextBytes(content);
+        Path file = write(content);
+        
+        BufferPool pool = new BufferPool(1 << 20);
+        try (ChunkReader mapped = ChunkReader.open(file, true, pool);
+             ChunkReader positional = ChunkReader.open(file, false, pool)) {
+            for (long offset = 0; offset < content.length; offset += 100_000) {
+                ChunkScanner.Result a = mapped.read(offset, 100_000, ChunkScanner.Histogram.FULL);
+                ChunkScanner.Result b = positional.read(offset, 100_000, ChunkScanner.Histogram.FULL);
+                
+                assertEquals(b.getBytesRead(), a.getBytesRead());
+                assertArrayEquals(b.getChecksum(), a.getChecksum());
+                assertArrayEquals(b.getFrequencies(), a.getFrequencies());
+                positional.release(b);
+            }
+            // Two full chunks share one buffer; the short tail takes a smaller class
+            assertEquals(2, pool.getAllocations());
+            assertEquals(1, pool.getReuses());
+            assertEquals(50_000, mapped.read(200_000, 100_000, ChunkScanner.Histogram.NONE).getBytesRead());
+        }
+    }
+    
+    private Path write(byte[] content) throws IOException {
+        Path file = tempDir.resolve("input.bin");
+        Files.write(file, content);
+        return file;
+    }
+    
+    private static long[] histogram(byte[] data, int offset, int length) {
+        long[] histogram = new long[256];
+        for (int i = offset; i < offset + length; i++) {
+            histogram[data[i] & 0xFF]++;
+        }
+        return histogram;
+    }
+}
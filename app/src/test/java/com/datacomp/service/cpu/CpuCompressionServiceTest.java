@@ -1,13 +1,33 @@
 package com.datacomp.service.cpu;
 
+import com.datacomp.config.CompressionOptions;
+import com.datacomp.core.ChecksumAlgorithm;
+import com.datacomp.core.ChunkMetadata;
+import com.datacomp.core.ChunkType;
+import com.datacomp.core.CompressionHeader;
+import com.datacomp.core.DczFile;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Random;
 
 /**
@@ -137,5 +157,544 @@ class CpuCompressionServiceTest {
         boolean valid = service.verifyIntegrity(compressedFile);
         assertTrue(valid);
     }
+    
+    @Test
+    void testCompressDecompressStreamLayouts() throws IOException {
+        byte[] data = skewedData(2 * 1024 * 1024 + 12345, 7);
+        
+        // Single stream (v1 layout), generic multi-stream path, interleaved 4-stream path
+        for (int streams : new int[] {1, 3, 4}) {
+            assertRoundTrip(CompressionOptions.builder()
+                .chunkSizeMB(1)
+                .streamCount(streams)
+                .build(), data);
+        }
+    }
+    
+    @Test
+    void testMappedAndPositionalInputProduceSameArchive() throws IOException {
+        byte[] data = skewedData(2 * 1024 * 1024 + 777, 8);
+        
+        byte[][] archives = new byte[2][];
+        boolean[] modes = {true, false};
+        for (int m = 0; m < modes.length; m++) {
+            archives[m] = Files.readAllBytes(assertRoundTrip(CompressionOptions.builder()
+                .chunkSizeMB(1)
+                .memoryMappedIo(modes[m])
+                .orderedWrites(true)
+                .build(), data));
+        }
+        assertArrayEquals(archives[0], archives[1]);
+    }
+    
+    @Test
+    void testDecompressWindowSizes() throws IOException {
+        Path inputFile = tempDir.resolve("window.bin");
+        byte[] data = new byte[5 * 1024 * 1024 + 99];
+        Random random = new Random(9);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (random.nextInt(16) * random.nextInt(16));
+        }
+        Files.write(inputFile, data);
+        Path compressedFile = tempDir.resolve("window.dcz");
+        service.compress(inputFile, compressedFile, null);
+        
+        // 1 MB budget leaves a single chunk in flight; 64 MB holds the whole file
+        for (int budget : new int[] {1, 3, 64}) {
+            CompressionOptions options = CompressionOptions.builder()
+                .chunkSizeMB(1)
+                .memoryBudgetMB(budget)
+                .memoryMappedIo(false)
+                .build();
+            try (CpuCompressionService windowService = new CpuCompressionService(options)) {
+                Path decompressedFile = tempDir.resolve("window" + budget + ".out");
+                double[] lastProgress = {0};
+                windowService.decompress(compressedFile, decompressedFile, progress -> {
+                    assertTrue(progress > lastProgress[0], "Progress must increase");
+                    lastProgress[0] = progress;
+                });
+                
+                assertEquals(1.0, lastProgress[0], 1e-9);
+                assertArrayEquals(data, Files.readAllBytes(decompressedFile), budget + " MB budget");
+            }
+        }
+    }
+    
+    @Test
+    void testChunksInBudget() {
+        CompressionOptions options = CompressionOptions.builder().memoryBudgetMB(64).build();
+        assertEquals(2, options.chunksInBudget(32L * 1024 * 1024));
+        assertEquals(1, options.chunksInBudget(1L << 40));
+        assertThrows(IllegalArgumentException.class,
+            () -> CompressionOptions.builder().memoryBudgetMB(-1).build());
+    }
+    
+    @Test
+    void testThreadCountsAndWindow() {
+        assertEquals(Runtime.getRuntime().availableProcessors(),
+                     CompressionOptions.builder().build().getCpuThreads());
+        assertThrows(IllegalArgumentException.class,
+            () -> CompressionOptions.builder().cpuThreads(-1).build());
+        assertThrows(IllegalArgumentException.class,
+            () -> CompressionOptions.builder().ioThreads(0).build());
+        
+        // The window grows with the workers until the memory budget caps it
+        CompressionOptions wide = CompressionOptions.builder()
+            .chunkSizeMB(1).cpuThreads(32).ioThreads(4).memoryBudgetMB(1024).build();
+        CompressionOptions capped = CompressionOptions.builder()
+            .chunkSizeMB(1).cpuThreads(32).ioThreads(4).memoryBudgetMB(16).build();
+        try (CpuCompressionService wideService = new CpuCompressionService(wide);
+             CpuCompressionService cappedService = new CpuCompressionService(capped)) {
+            assertEquals(2 * 32 + 4, wideService.compressionWindow());
+            assertEquals(8, cappedService.compressionWindow());
+        }
+        
+        // Without a configured budget the window follows the thread count
+        // (16 MB chunks; the test heap allows a 640 MB budget)
+        int previous = 0;
+        for (int threads : new int[] {2, 4, 8}) {
+            CompressionOptions options = CompressionOptions.builder().cpuThreads(threads).build();
+            try (CpuCompressionService defaultService = new CpuCompressionService(options)) {
+                assertEquals(options.inFlightChunks(), defaultService.compressionWindow(), threads + " threads");
+                assertTrue(defaultService.compressionWindow() > previous);
+                previous = defaultService.compressionWindow();
+            }
+        }
+    }
+    
+    @Test
+    void testSplitChunkEncodingMatchesSingleThread() throws IOException {
+        // Fewer chunks than workers, so each chunk is encoded in parallel segments
+        byte[] data = skewedData(2 * 1024 * 1024 + 12_345, 13);
+        
+        byte[][] archives = new byte[2][];
+        int[] threadCounts = {1, 8};
+        for (int t = 0; t < threadCounts.length; t++) {
+            archives[t] = Files.readAllBytes(assertRoundTrip(CompressionOptions.builder()
+                .chunkSizeMB(1)
+                .cpuThreads(threadCounts[t])
+                .orderedWrites(true)
+                .build(), data));
+        }
+        assertArrayEquals(archives[0], archives[1]);
+    }
+    
+    @Test
+    void testCheckpointsSplitDecoding() throws IOException {
+        // One chunk and four workers: decompression splits the chunk at its checkpoints
+        byte[] data = skewedData(1024 * 1024 - 777, 14);
+        
+        for (int intervalKB : new int[] {0, 64}) {
+            for (boolean mapped : new boolean[] {true, false}) {
+                Path compressedFile = assertRoundTrip(CompressionOptions.builder()
+                    .chunkSizeMB(1)
+                    .cpuThreads(4)
+                    .checkpointIntervalKB(intervalKB)
+                    .memoryMappedIo(mapped)
+                    .build(), data);
+                
+                ChunkMetadata chunk = readFooter(compressedFile).getChunks().get(0);
+                assertEquals(intervalKB * 1024, chunk.getCheckpointInterval());
+                assertEquals(intervalKB == 0 ? 0 : 15, chunk.getCheckpoints().length);
+            }
+        }
+    }
+    
+    @Test
+    void testFooterSizePerChunk() throws IOException {
+        // A repeated block: chunks of one statistics share a code length table
+        int chunks = 16;
+        byte[] block = skewedData(64 * 1024, 21);
+        byte[] data = new byte[chunks * 1024 * 1024];
+        for (int i = 0; i < data.length; i += block.length) {
+            System.arraycopy(block, 0, data, i, block.length);
+        }
+        
+        // Records and tables alone, then with the default checkpoints
+        long[] footerBytes = new long[2];
+        long prefixBytes = 0;
+        int checkpoints = 0;
+        for (int intervalKB : new int[] {0, CompressionOptions.DEFAULT_CHECKPOINT_INTERVAL_KB}) {
+            Path compressedFile = assertRoundTrip(CompressionOptions.builder()
+                .chunkSizeMB(1)
+                .checkpointIntervalKB(intervalKB)
+                .build(), data);
+            CompressionHeader header = readFooter(compressedFile);
+            assertEquals(chunks, header.getNumChunks());
+            checkpoints = 0;
+            for (ChunkMetadata chunk : header.getChunks()) {
+                checkpoints += chunk.getCheckpoints().length;
+            }
+            footerBytes[intervalKB == 0 ? 0 : 1] = Files.size(compressedFile) - Long.BYTES - footerStart(compressedFile);
+            
+            ByteArrayOutputStream prefix = new ByteArrayOutputStream();
+            new CompressionHeader(header.getOriginalFileName(), data.length, 0L, new byte[32], 1024 * 1024)
+                .writeTo(new DataOutputStream(prefix));
+            prefixBytes = prefix.size();
+        }
+        assertEquals(chunks * 15, checkpoints);
+        
+        long perChunk = (footerBytes[0] - prefixBytes) / chunks;
+        // 572 bytes per chunk in version 1: fixed fields and 256 two-byte code lengths
+        assertTrue(perChunk * 10 <= 572, perChunk + " bytes per chunk");
+        // Checkpoints as second differences
+        long perCheckpoint = (footerBytes[1] - footerBytes[0]) / checkpoints;
+        assertTrue(perCheckpoint <= 2, perCheckpoint + " bytes per checkpoint");
+    }
+    
+    @Test
+    void testDecompressRange() throws IOException {
+        byte[] data = skewedData(3 * 1024 * 1024 + 999, 15);
+        
+        long[][] ranges = {
+            {0, data.length},                   // Everything
+            {5, 100},                           // Inside the first chunk
+            {200_000, 70_000},                  // Between checkpoints
+            {1024 * 1024 - 10, 20},             // Across a chunk boundary
+            {700_000, 2 * 1024 * 1024},         // Partial, whole and partial chunks
+            {data.length - 50, 1000},           // Clipped at the end of the file
+            {data.length, 10},                  // Past the end
+            {123, 0}
+        };
+        for (int intervalKB : new int[] {0, 64}) {
+            CompressionOptions options = CompressionOptions.builder()
+                .chunkSizeMB(1)
+                .cpuThreads(4)
+                .checkpointIntervalKB(intervalKB)
+                .build();
+            Path compressedFile = assertRoundTrip(options, data);
+            try (CpuCompressionService rangeService = new CpuCompressionService(options)) {
+                // One handle, many ranges: the chunk table is read once
+                try (DczFile file = DczFile.open(compressedFile)) {
+                    assertEquals(4, file.getChunks().size());
+                    assertEquals(2, file.chunkIndexAt(2 * 1024 * 1024));
+                    assertEquals(1, file.chunkIndexAt(2 * 1024 * 1024 - 1));
+                    for (long[] range : ranges) {
+                        int from = (int) Math.min(range[0], data.length);
+                        int to = (int) Math.min(range[0] + range[1], data.length);
+                        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                        long written = rangeService.decompressRange(file, range[0], range[1],
+                                                                    Channels.newChannel(bytes));
+                        
+                        assertEquals(to - from, written);
+                        assertArrayEquals(Arrays.copyOfRange(data, from, to), bytes.toByteArray(),
+                                          intervalKB + " KB checkpoints, range " + range[0] + "+" + range[1]);
+                    }
+                }
+                
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                rangeService.decompressRange(compressedFile, 1_500_000, 300_000, Channels.newChannel(bytes));
+                assertArrayEquals(Arrays.copyOfRange(data, 1_500_000, 1_800_000), bytes.toByteArray());
+                assertThrows(IllegalArgumentException.class, () -> rangeService.decompressRange(
+                    compressedFile, -1, 10, Channels.newChannel(new ByteArrayOutputStream())));
+            }
+        }
+    }
+    
+    @Test
+    void testThreadCountsProduceSameData() throws IOException {
+        byte[] data = skewedData(6 * 1024 * 1024 + 55, 12);
+        
+        for (int threads : new int[] {1, 3, 16}) {
+            assertRoundTrip(CompressionOptions.builder()
+                .chunkSizeMB(1)
+                .cpuThreads(threads)
+                .ioThreads(threads == 1 ? 1 : 2)
+                .build(), data);
+        }
+    }
+    
+    @Test
+    void testMappedDecompressionMatchesStreaming() throws IOException {
+        Path inputFile = tempDir.resolve("mapped.bin");
+        byte[] data = new byte[3 * 1024 * 1024 + 4321];
+        Random random = new Random(10);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (random.nextGaussian() * 25);
+        }
+        Files.write(inputFile, data);
+        Path compressedFile = tempDir.resolve("mapped.dcz");
+        service.compress(inputFile, compressedFile, null);
+        
+        for (boolean mapped : new boolean[] {true, false}) {
+            CompressionOptions options = CompressionOptions.builder()
+                .chunkSizeMB(1)
+                .memoryMappedIo(mapped)
+                .build();
+            try (CpuCompressionService ioService = new CpuCompressionService(options)) {
+                Path decompressedFile = tempDir.resolve("mapped-" + mapped + ".out");
+                // Stale longer content must be cut to the original size
+                Files.write(decompressedFile, new byte[data.length + 1000]);
+                
+                ioService.decompress(compressedFile, decompressedFile, null);
+                
+                assertArrayEquals(data, Files.readAllBytes(decompressedFile), "mapped=" + mapped);
+            }
+        }
+    }
+    
+    @Test
+    void testIncompressibleChunksAreStored() throws IOException {
+        byte[] data = new byte[4 * 1024 * 1024 + 777];
+        Random random = new Random(18);
+        for (int i = 0; i < data.length; i++) {
+            // Random chunks 0 and 2, skewed chunks 1 and 3; the short random
+            // tail has too few bytes for Huffman coding to lose
+            int chunk = i / (1024 * 1024);
+            data[i] = (byte) (chunk % 2 == 0 ? random.nextInt(256) : random.nextGaussian() * 20);
+        }
+        
+        for (boolean mapped : new boolean[] {true, false}) {
+            Path compressedFile = assertRoundTrip(CompressionOptions.builder()
+                .chunkSizeMB(1)
+                .memoryMappedIo(mapped)
+                .build(), data);
+            
+            try (DczFile file = DczFile.open(compressedFile)) {
+                for (ChunkMetadata chunk : file.getChunks()) {
+                    boolean stored = chunk.getChunkIndex() % 2 == 0 && chunk.getChunkIndex() < 4;
+                    assertEquals(stored, chunk.getChunkType() == ChunkType.STORED, "chunk " + chunk.getChunkIndex());
+                    if (stored) {
+                        assertEquals(chunk.getOriginalSize(), chunk.getCompressedSize());
+                        assertEquals(0, chunk.getCheckpoints().length);
+                    }
+                }
+                
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                service.decompressRange(file, 1024 * 1024 - 100, 2 * 1024 * 1024 + 200, Channels.newChannel(bytes));
+                assertArrayEquals(Arrays.copyOfRange(data, 1024 * 1024 - 100, 3 * 1024 * 1024 + 100),
+                                  bytes.toByteArray());
+            }
+        }
+        
+        // Without storing, every chunk is Huffman coded
+        Path compressedFile = assertRoundTrip(CompressionOptions.builder()
+            .chunkSizeMB(1)
+            .storeIncompressible(false)
+            .build(), data);
+        try (DczFile file = DczFile.open(compressedFile)) {
+            assertTrue(file.getChunks().stream().noneMatch(chunk -> chunk.getChunkType() == ChunkType.STORED));
+        }
+    }
+    
+    @Test
+    void testConstantChunks() throws IOException {
+        Path inputFile = tempDir.resolve("constant.bin");
+        int mb = 1024 * 1024;
+        byte[] data = new byte[4 * mb + 500];
+        // Zeros, a fill of 'A', skewed data, then zeros up to the end of the file
+        Arrays.fill(data, mb, 2 * mb, (byte) 'A');
+        Random random = new Random(19);
+        for (int i = 2 * mb; i < 3 * mb; i++) {
+            data[i] = (byte) (random.nextGaussian() * 20);
+        }
+        Files.write(inputFile, data);
+        
+        Path compressedFile = tempDir.resolve("constant.dcz");
+        service.compress(inputFile, compressedFile, null);
+        
+        try (DczFile file = DczFile.open(compressedFile)) {
+            for (ChunkMetadata chunk : file.getChunks()) {
+                boolean constant = chunk.getChunkIndex() != 2;
+                assertEquals(constant, chunk.getChunkType() == ChunkType.CONSTANT, "chunk " + chunk.getChunkIndex());
+            }
+            assertEquals(4, file.getChunks().stream().mapToInt(ChunkMetadata::getCompressedSize)
+                .filter(size -> size == 1).count());
+            
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            service.decompressRange(file, mb - 10, mb + 20, Channels.newChannel(bytes));
+            assertArrayEquals(Arrays.copyOfRange(data, mb - 10, 2 * mb + 10), bytes.toByteArray());
+        }
+        try (InputStream in = DczSeekableChannel.newInputStream(compressedFile)) {
+            assertArrayEquals(data, in.readAllBytes());
+        }
+        
+        for (boolean mapped : new boolean[] {true, false}) {
+            CompressionOptions options = CompressionOptions.builder()
+                .chunkSizeMB(1)
+                .memoryMappedIo(mapped)
+                .build();
+            try (CpuCompressionService ioService = new CpuCompressionService(options)) {
+                Path decompressedFile = tempDir.resolve("constant-" + mapped + ".out");
+                // Zero chunks are not written, so stale content must not show through
+                byte[] stale = new byte[data.length + 1000];
+                Arrays.fill(stale, (byte) 7);
+                Files.write(decompressedFile, stale);
+                
+                ioService.decompress(compressedFile, decompressedFile, null);
+                
+                assertArrayEquals(data, Files.readAllBytes(decompressedFile), "mapped=" + mapped);
+            }
+        }
+    }
+    
+    @Test
+    void testChecksumAlgorithms() throws IOException {
+        Path inputFile = tempDir.resolve("checksum.bin");
+        int mb = 1024 * 1024;
+        byte[] data = new byte[3 * mb + 999];
+        Random random = new Random(25);
+        for (int i = 0; i < data.length; i++) {
+            // A random, stored first chunk, so a flipped byte still decodes
+            data[i] = (byte) (i < mb ? random.nextInt(256) : random.nextGaussian() * 20);
+        }
+        Files.write(inputFile, data);
+        
+        for (ChecksumAlgorithm algorithm : ChecksumAlgorithm.values()) {
+            for (boolean mapped : new boolean[] {true, false}) {
+                CompressionOptions options = CompressionOptions.builder()
+                    .chunkSizeMB(1)
+                    .memoryMappedIo(mapped)
+                    .checksumAlgorithm(algorithm)
+                    .build();
+                String label = algorithm.getName() + " mapped=" + mapped;
+                try (CpuCompressionService checksumService = new CpuCompressionService(options)) {
+                    Path compressedFile = tempDir.resolve(label.replace(' ', '-') + ".dcz");
+                    Path decompressedFile = tempDir.resolve(label.replace(' ', '-') + ".out");
+                    
+                    checksumService.compress(inputFile, compressedFile, null);
+                    assertEquals(algorithm.getName(), checksumService.getLastStageMetrics().getChecksumAlgorithm());
+                    assertTrue(checksumService.getLastStageMetrics().getChecksumThroughputMBps() > 0, label);
+                    
+                    checksumService.decompress(compressedFile, decompressedFile, null);
+                    assertArrayEquals(data, Files.readAllBytes(decompressedFile), label);
+                    assertTrue(checksumService.getLastStageMetrics().getChecksumThroughputMBps() > 0, label);
+                    
+                    long firstChunk;
+                    try (DczFile file = DczFile.open(compressedFile)) {
+                        assertEquals(algorithm, file.getHeader().getChecksumAlgorithm());
+                        ChunkMetadata chunk = file.getChunks().get(0);
+                        assertEquals(ChunkType.STORED, chunk.getChunkType(), label);
+                        assertArrayEquals(algorithm.compute(data, 0, mb), chunk.getChecksum(), label);
+                        firstChunk = file.getDataStart() + chunk.getCompressedOffset();
+                        
+                        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                        checksumService.decompressRange(file, mb - 10, mb + 20, Channels.newChannel(bytes));
+                        assertArrayEquals(Arrays.copyOfRange(data, mb - 10, 2 * mb + 10), bytes.toByteArray(), label);
+                    }
+                    
+                    try (FileChannel channel = FileChannel.open(compressedFile, StandardOpenOption.WRITE)) {
+                        channel.write(ByteBuffer.wrap(new byte[] {(byte) ~data[1234]}), firstChunk + 1234);
+                    }
+                    IOException error = assertThrows(IOException.class,
+                        () -> checksumService.decompress(compressedFile, decompressedFile, null), label);
+                    assertTrue(error.getMessage().contains("Checksum mismatch"), error.getMessage());
+                }
+            }
+        }
+    }
+    
+    @Test
+    void testParallelWritesRecordActualOffsets() throws IOException {
+        byte[] data = new byte[6 * 1024 * 1024 + 1234];
+        Random random = new Random(11);
+        for (int i = 0; i < data.length; i++) {
+            // Chunks of very different entropy encode at different speeds and sizes
+            int chunk = i / (1024 * 1024);
+            data[i] = (byte) (chunk % 2 == 0 ? random.nextInt(256) : random.nextInt(1 + chunk));
+        }
+        Path compressedFile = assertRoundTrip(CompressionOptions.defaults(1), data);
+        
+        // Chunk ranges tile the data section exactly, in whatever order they landed
+        CompressionHeader footer = readFooter(compressedFile);
+        List<ChunkMetadata> byOffset = new ArrayList<>(footer.getChunks());
+        byOffset.sort(Comparator.comparingLong(ChunkMetadata::getCompressedOffset));
+        long expectedOffset = 0;
+        for (ChunkMetadata chunk : byOffset) {
+            assertEquals(expectedOffset, chunk.getCompressedOffset());
+            expectedOffset += chunk.getCompressedSize();
+        }
+        assertEquals(expectedOffset, footerStart(compressedFile));
+    }
+    
+    @Test
+    void testFailedCompressionReportsItsOwnError() throws IOException {
+        Path inputFile = tempDir.resolve("failing.bin");
+        byte[] data = new byte[8 * 1024 * 1024];
+        new Random(13).nextBytes(data);
+        Files.write(inputFile, data);
+        Path compressedFile = tempDir.resolve("failing.dcz");
+        
+        // Writes still in flight must not surface as a closed-channel error
+        IllegalStateException failure = new IllegalStateException("cancelled");
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+            () -> service.compress(inputFile, compressedFile, progress -> {
+                if (progress >= 0.25) {
+                    throw failure;
+                }
+            }));
+        assertSame(failure, thrown);
+        
+        service.compress(inputFile, compressedFile, null);
+        Path decompressedFile = tempDir.resolve("failing.out");
+        service.decompress(compressedFile, decompressedFile, null);
+        assertArrayEquals(data, Files.readAllBytes(decompressedFile));
+    }
+    
+    @Test
+    void testOrderedWritesAreReproducible() throws IOException {
+        byte[] data = new byte[4 * 1024 * 1024 + 17];
+        new Random(12).nextBytes(data);
+        
+        CompressionOptions options = CompressionOptions.builder()
+            .chunkSizeMB(1)
+            .orderedWrites(true)
+            .ioBufferSizeKB(4)
+            .build();
+        Path first = assertRoundTrip(options, data);
+        Path second = assertRoundTrip(options, data);
+        
+        assertArrayEquals(Files.readAllBytes(first), Files.readAllBytes(second));
+        long offset = 0;
+        for (ChunkMetadata chunk : readFooter(first).getChunks()) {
+            assertEquals(offset, chunk.getCompressedOffset());
+            offset += chunk.getCompressedSize();
+        }
+    }
+    
+    /**
+     * Bytes drawn from an exponential distribution, so small values dominate
+     * and Huffman coding shrinks them well.
+     */
+    private static byte[] skewedData(int size, long seed) {
+        byte[] data = new byte[size];
+        Random random = new Random(seed);
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) Math.min(255, (int) (-Math.log(1 - random.nextDouble()) * 3));
+        }
+        return data;
+    }
+    
+    /**
+     * Compress and decompress input with a service built from options, check
+     * the bytes come back unchanged, and return the compressed file.
+     */
+    private Path assertRoundTrip(CompressionOptions options, byte[] input) throws IOException {
+        // A fixed name and time, so equal options give byte-identical archives
+        Path dir = Files.createTempDirectory(tempDir, "roundtrip");
+        Path inputFile = dir.resolve("input.bin");
+        Path compressedFile = dir.resolve("input.dcz");
+        Path decompressedFile = dir.resolve("input.out");
+        Files.write(inputFile, input);
+        Files.setLastModifiedTime(inputFile, FileTime.fromMillis(1_000_000L));
+        
+        try (CpuCompressionService roundTripService = new CpuCompressionService(options)) {
+            roundTripService.compress(inputFile, compressedFile, null);
+            roundTripService.decompress(compressedFile, decompressedFile, null);
+        }
+        assertArrayEquals(input, Files.readAllBytes(decompressedFile));
+        return compressedFile;
+    }
+    
+    private static long footerStart(Path compressedFile) throws IOException {
+        byte[] bytes = Files.readAllBytes(compressedFile);
+        return ByteBuffer.wrap(bytes, bytes.length - 8, 8).getLong();
+    }
+    
+    private static CompressionHeader readFooter(Path compressedFile) throws IOException {
+        byte[] bytes = Files.readAllBytes(compressedFile);
+        int start = (int) footerStart(compressedFile);
+        return CompressionHeader.readFrom(new DataInputStream(
+            new ByteArrayInputStream(bytes, start, bytes.length - 8 - start)));
+    }
 }
-
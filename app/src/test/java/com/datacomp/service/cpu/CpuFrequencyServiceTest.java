@@ -2,6 +2,11 @@ package com.datacomp.service.cpu;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -51,7 +56,7 @@ class CpuFrequencyServiceTest {
     @Test
     void testHistogramLargeData() {
         // Test with data larger than parallel threshold
-        byte[] data = new byte[128 * 1024]; // 128KB
+        byte[] data = new byte[512 * 1024]; // 512KB
         for (int i = 0; i < data.length; i++) {
             data[i] = (byte) (i % 10);
         }
@@ -89,5 +94,68 @@ class CpuFrequencyServiceTest {
         assertEquals(1, histogram[254]); // -2 as unsigned
         assertEquals(1, histogram[253]); // -3 as unsigned
     }
+    
+    @Test
+    void testMatchesReferenceAtEveryAlignment() {
+        byte[] data = new byte[100];
+        new Random(1).nextBytes(data);
+        
+        for (int offset = 0; offset < 8; offset++) {
+            for (int length = 0; length <= data.length - offset; length++) {
+                assertArrayEquals(referenceHistogram(data, offset, length),
+                                 service.computeHistogram(data, offset, length),
+                                 "offset " + offset + ", length " + length);
+            }
+        }
+    }
+    
+    @Test
+    void testLongRunsAcrossParallelSplits() {
+        // Zero page followed by long runs, larger than the parallel threshold
+        byte[] data = new byte[1024 * 1024 + 13];
+        Random random = new Random(2);
+        for (int i = 4096; i < data.length; ) {
+            int run = 1 + random.nextInt(20_000);
+            Arrays.fill(data, i, Math.min(data.length, i + run), (byte) random.nextInt(256));
+            i += run;
+        }
+        
+        assertArrayEquals(referenceHistogram(data, 0, data.length),
+                         service.computeHistogram(data, 0, data.length));
+        assertArrayEquals(referenceHistogram(data, 5, data.length - 9),
+                         service.computeHistogram(data, 5, data.length - 9));
+    }
+    
+    @Test
+    void testRepeatedCallsDoNotAccumulate() {
+        byte[] data = new byte[600 * 1024];
+        new Random(3).nextBytes(data);
+        long[] expected = referenceHistogram(data, 0, data.length);
+        
+        for (int i = 0; i < 3; i++) {
+            assertArrayEquals(expected, service.computeHistogram(data, 0, data.length));
+            assertArrayEquals(referenceHistogram(data, 0, 1000), service.computeHistogram(data, 0, 1000));
+        }
+    }
+    
+    @Test
+    void testCustomPool() {
+        byte[] data = new byte[512 * 1024];
+        new Random(4).nextBytes(data);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            assertArrayEquals(referenceHistogram(data, 0, data.length),
+                             new CpuFrequencyService(pool).computeHistogram(data, 0, data.length));
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    private static long[] referenceHistogram(byte[] data, int offset, int length) {
+        long[] histogram = new long[256];
+        for (int i = offset; i < offset + length; i++) {
+            histogram[data[i] & 0xFF]++;
+        }
+        return histogram;
+    }
 }
-
@@ -0,0 +1,116 @@
+package com.datacomp.service.cpu;
+
+import com.datacomp.config.CompressionOptions;
+import com.datacomp.core.DczFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the seekable channel and input stream views over a compressed file.
+ */
+class DczSeekableChannelTest {
+
+    @TempDir
+    Path tempDir;
+
+    private byte[] data;
+    private Path compressedFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        data = new byte[5 * 1024 * 1024 + 321];
+        Random random = new Random(16);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) Math.min(255, (int) (-Math.log(1 - random.nextDouble()) * 3));
+        }
+        Path inputFile = tempDir.resolve("channel.bin");
+        Files.write(inputFile, data);
+
+        compressedFile = tempDir.resolve("channel.dcz");
+        try (CpuCompressionService service = new CpuCompressionService(
+                CompressionOptions.builder().chunkSizeMB(1).build())) {
+            service.compress(inputFile, compressedFile, null);
+        }
+    }
+
+    @Test
+    void testSequentialReadThroughInputStream() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = DczSeekableChannel.newInputStream(compressedFile)) {
+            byte[] buffer = new byte[100_000];  // Reads that straddle chunk boundaries
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+        }
+        assertArrayEquals(data, bytes.toByteArray());
+    }
+
+    @Test
+    void testSkipSeeks() throws IOException {
+        try (InputStream in = DczSeekableChannel.newInputStream(compressedFile)) {
+            assertEquals(3_000_000, in.skip(3_000_000));
+            byte[] buffer = new byte[10];
+            assertEquals(10, in.readNBytes(buffer, 0, 10));
+            assertArrayEquals(Arrays.copyOfRange(data, 3_000_000, 3_000_010), buffer);
+        }
+    }
+
+    @Test
+    void testRandomReads() throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try (DczSeekableChannel channel = new DczSeekableChannel(DczFile.open(compressedFile), pool, 2, 1)) {
+            assertEquals(data.length, channel.size());
+
+            Random random = new Random(17);
+            for (int i = 0; i < 50; i++) {
+                int position = random.nextInt(data.length);
+                int length = Math.min(1 + random.nextInt(2 * 1024 * 1024), data.length - position);
+                ByteBuffer buffer = ByteBuffer.allocate(length);
+
+                channel.position(position);
+                while (buffer.hasRemaining()) {
+                    assertTrue(channel.read(buffer) > 0);
+                }
+                assertEquals(position + length, channel.position());
+                assertArrayEquals(Arrays.copyOfRange(data, position, position + length), buffer.array(),
+                                  "read at " + position);
+            }
+
+            channel.position(data.length + 10L);
+            assertEquals(-1, channel.read(ByteBuffer.allocate(1)));
+            assertThrows(IllegalArgumentException.class, () -> channel.position(-1));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testReadOnlyAndClosed() throws IOException {
+        DczSeekableChannel channel = DczSeekableChannel.open(compressedFile);
+        assertThrows(NonWritableChannelException.class, () -> channel.write(ByteBuffer.allocate(1)));
+        assertThrows(NonWritableChannelException.class, () -> channel.truncate(0));
+
+        channel.close();
+        assertFalse(channel.isOpen());
+        assertThrows(ClosedChannelException.class, () -> channel.read(ByteBuffer.allocate(1)));
+        assertThrows(ClosedChannelException.class, channel::size);
+        channel.close();
+    }
+}
@@ -0,0 +1,82 @@
+package com.datacomp.service.cpu;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the Vector API frequency service.
+ */
+class VectorFrequencyServiceTest {
+    
+    private VectorFrequencyService service;
+    
+    @BeforeEach
+    void setUp() {
+        service = new VectorFrequencyService();
+    }
+    
+    @Test
+    void testServiceAvailable() {
+        assertTrue(service.isAvailable());
+    }
+    
+    @Test
+    void testMatchesScalarOnRandomData() {
+        byte[] data = new byte[300_001];
+        new Random(1).nextBytes(data);
+        
+        assertMatchesScalar(data, 0, data.length);
+        assertMatchesScalar(data, 7, data.length - 20);
+    }
+    
+    @Test
+    void testRunsAndZeroPages() {
+        byte[] data = new byte[200_000];
+        Random random = new Random(2);
+        // Zero page, then runs of varying length that straddle vector boundaries
+        for (int i = 4096; i < data.length; ) {
+            int run = 1 + random.nextInt(300);
+            Arrays.fill(data, i, Math.min(data.length, i + run), (byte) random.nextInt(256));
+            i += run;
+        }
+        
+        assertMatchesScalar(data, 0, data.length);
+        assertMatchesScalar(data, 3, 4093);
+    }
+    
+    @Test
+    void testShortInputs() {
+        byte[] data = new byte[200];
+        new Random(3).nextBytes(data);
+        
+        for (int length = 0; length <= 130; length++) {
+            assertMatchesScalar(data, 5, length);
+        }
+    }
+    
+    @Test
+    void testParallelLargeData() {
+        // Larger than the parallel threshold, all one byte
+        byte[] data = new byte[3 * 1024 * 1024 + 17];
+        Arrays.fill(data, (byte) -1);
+        
+        long[] histogram = service.computeHistogram(data, 0, data.length);
+        
+        assertEquals(data.length, histogram[255]);
+        assertEquals(data.length, Arrays.stream(histogram).sum());
+    }
+    
+    private void assertMatchesScalar(byte[] data, int offset, int length) {
+        long[] expected = new long[256];
+        for (int i = offset; i < offset + length; i++) {
+            expected[data[i] & 0xFF]++;
+        }
+        assertArrayEquals(expected, service.computeHistogram(data, offset, length),
+                         "offset " + offset + ", length " + length);
+    }
+}
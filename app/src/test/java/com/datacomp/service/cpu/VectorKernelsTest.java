@@ -0,0 +1,62 @@
+package com.datacomp.service.cpu;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the Vector API encoder kernels.
+ */
+class VectorKernelsTest {
+    
+    @Test
+    void testSumMatchesScalar() {
+        int[] codeLengths = randomCodeLengths(1);
+        byte[] data = new byte[10_003];
+        new Random(2).nextBytes(data);
+        
+        for (int length : new int[] {0, 1, 15, 16, 17, 1000, 9_990}) {
+            assertEquals(scalarSum(data, 13, length, codeLengths),
+                        VectorKernels.sumCodeLengths(data, 13, length, codeLengths), "length " + length);
+        }
+    }
+    
+    @Test
+    void testBlockOffsetsArePrefixSums() {
+        int[] codeLengths = randomCodeLengths(3);
+        byte[] data = new byte[100_000];
+        new Random(4).nextBytes(data);
+        int blockSize = 4096;
+        int length = data.length - 7;
+        long[] offsets = new long[(length + blockSize - 1) / blockSize];
+        
+        long total = VectorKernels.computeBlockBitOffsets(data, 7, length, blockSize, codeLengths, offsets);
+        
+        long expected = 0;
+        for (int block = 0; block < offsets.length; block++) {
+            assertEquals(expected, offsets[block], "block " + block);
+            int start = block * blockSize;
+            expected += scalarSum(data, 7 + start, Math.min(blockSize, length - start), codeLengths);
+        }
+        assertEquals(expected, total);
+    }
+    
+    private static long scalarSum(byte[] data, int offset, int length, int[] codeLengths) {
+        long bits = 0;
+        for (int i = offset; i < offset + length; i++) {
+            bits += codeLengths[data[i] & 0xFF];
+        }
+        return bits;
+    }
+    
+    private static int[] randomCodeLengths(long seed) {
+        Random random = new Random(seed);
+        int[] codeLengths = new int[256];
+        for (int i = 0; i < 256; i++) {
+            codeLengths[i] = 1 + random.nextInt(32);
+        }
+        return codeLengths;
+    }
+}
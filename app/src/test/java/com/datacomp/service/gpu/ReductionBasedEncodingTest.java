@@ -242,4 +242,29 @@ public class ReductionBasedEncodingTest {
         assertEquals(8, mergeRatio, "Each thread merges 8 codes");
         assertEquals(7, s, "7 shuffle iterations");
     }
+    
+    /**
+     * Block-parallel prefix sum matches the serial running sum, including
+     * across block boundaries and in a partial last block.
+     */
+    @Test
+    public void testBitPositionPrefixSum() {
+        int length = 2_500_003;  // Two full 1M-symbol blocks plus a partial one
+        byte[] data = new byte[length];
+        new java.util.Random(5).nextBytes(data);
+        int[] codeLengths = new int[256];
+        for (int i = 0; i < 256; i++) {
+            codeLengths[i] = 1 + i % 13;
+        }
+        
+        int[] bitPositions = new int[length];
+        long total = GpuCompressionService.computeBitPositionsParallel(data, length, codeLengths, bitPositions);
+        
+        long expected = 0;
+        for (int i = 0; i < length; i++) {
+            assertEquals(expected, bitPositions[i], "Position of symbol " + i);
+            expected += codeLengths[data[i] & 0xFF];
+        }
+        assertEquals(expected, total);
+    }
 }
@@ -0,0 +1,76 @@
+package com.datacomp.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the size-classed buffer pool.
+ */
+class BufferPoolTest {
+
+    @Test
+    void testSizeClasses() {
+        assertEquals(BufferPool.MIN_CLASS_BITS, BufferPool.classBits(0));
+        assertEquals(BufferPool.MIN_CLASS_BITS, BufferPool.classBits(1 << BufferPool.MIN_CLASS_BITS));
+        assertEquals(17, BufferPool.classBits((1 << 16) + 1));
+        assertEquals(20, BufferPool.classBits(1 << 20));
+        assertEquals(23, BufferPool.classBits(5_000_000));
+
+        BufferPool pool = new BufferPool(1 << 24);
+        assertEquals(1 << 16, pool.acquire(10).length);
+        assertEquals(1 << 23, pool.acquire(5_000_000).length);
+    }
+
+    @Test
+    void testReleasedBufferIsReused() {
+        BufferPool pool = new BufferPool(1 << 24);
+        byte[] first = pool.acquire(1_000_000);
+        pool.release(first);
+
+        // Any request in the same class gets the same array back
+        assertSame(first, pool.acquire(600_000));
+        assertEquals(1, pool.getAllocations());
+        assertEquals(1, pool.getReuses());
+        assertEquals(first.length, pool.getAllocatedBytes());
+        assertEquals(0, pool.getRetainedBytes());
+
+        // A different class does not
+        assertNotSame(first, pool.acquire(100_000));
+        assertEquals(2, pool.getAllocations());
+    }
+
+    @Test
+    void testRetentionLimit() {
+        BufferPool pool = new BufferPool(1 << 20);
+        byte[] a = pool.acquire(1 << 20);
+        byte[] b = pool.acquire(1 << 20);
+        pool.release(a);
+        pool.release(b);  // Over the limit: left to the GC
+
+        assertEquals(1 << 20, pool.getRetainedBytes());
+        assertSame(a, pool.acquire(1 << 20));
+        assertNotSame(b, pool.acquire(1 << 20));
+
+        pool.release(a);
+        pool.clear();
+        assertEquals(0, pool.getRetainedBytes());
+    }
+
+    @Test
+    void testForeignArraysAreIgnored() {
+        BufferPool pool = new BufferPool(1 << 24);
+        pool.release(null);
+        pool.release(new byte[100_000]);
+        pool.release(new byte[1024]);
+
+        assertEquals(0, pool.getRetainedBytes());
+        assertEquals(1 << 17, pool.acquire(100_000).length);
+    }
+
+    @Test
+    void testRejectsNegativeSizes() {
+        assertThrows(IllegalArgumentException.class, () -> new BufferPool(-1));
+        assertThrows(IllegalArgumentException.class, () -> new BufferPool(1024).acquire(-1));
+    }
+}